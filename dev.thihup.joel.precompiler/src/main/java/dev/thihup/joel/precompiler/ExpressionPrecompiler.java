@@ -0,0 +1,190 @@
+package dev.thihup.joel.precompiler;
+
+import dev.thihup.joel.impl.antlr.JoelExpressionParser;
+import dev.thihup.joel.impl.cache.PrecompiledExpressions;
+import dev.thihup.joel.impl.node.Node;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementScanner14;
+import javax.lang.model.util.SimpleAnnotationValueVisitor14;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation processor that parses expressions at build time and stores their trees in
+ * {@value PrecompiledExpressions#RESOURCE}, where {@code JoelExpressionFactory} finds them at runtime.
+ * <p>
+ * Expressions are collected from the files listed in the {@value #EXPRESSION_FILES} option, separated by
+ * {@link java.io.File#pathSeparator}, which hold one expression per line, and from the string values containing
+ * {@code ${} or {@code #{} of the annotations whose fully qualified names are listed, separated by commas, in the
+ * {@value #EXPRESSION_ANNOTATIONS} option. Other annotations are never read, since their strings are not necessarily
+ * expressions, for instance property placeholders. An expression that does not parse fails the compilation. The
+ * processor never claims annotations, so it is enabled explicitly, with this module on the processor path only: the
+ * runtime needs neither it nor {@code java.compiler}.
+ * <pre>
+ * javac -processor dev.thihup.joel.precompiler.ExpressionPrecompiler -Adev.thihup.joel.expressionFiles=expressions.txt ...
+ * </pre>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions({ExpressionPrecompiler.EXPRESSION_FILES, ExpressionPrecompiler.EXPRESSION_ANNOTATIONS})
+public final class ExpressionPrecompiler extends AbstractProcessor {
+    public static final String EXPRESSION_FILES = "dev.thihup.joel.expressionFiles";
+    public static final String EXPRESSION_ANNOTATIONS = "dev.thihup.joel.expressionAnnotations";
+
+    private final Map<String, Node> expressions = new TreeMap<>();
+    private Set<String> expressionAnnotations = Set.of();
+    private boolean failed;
+
+    public ExpressionPrecompiler() {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        var annotations = processingEnv.getOptions().get(EXPRESSION_ANNOTATIONS);
+        if (annotations != null) {
+            expressionAnnotations = Arrays.stream(annotations.split(","))
+                    .map(String::strip)
+                    .filter(name -> !name.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        var files = processingEnv.getOptions().get(EXPRESSION_FILES);
+        if (files == null || files.isBlank())
+            return;
+        for (String file : files.split(java.io.File.pathSeparator)) {
+            if (!file.isBlank())
+                readExpressionFile(Path.of(file.strip()));
+        }
+    }
+
+    private void readExpressionFile(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            error("Cannot read %s: %s".formatted(file, e), null, null, null);
+            return;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            var expression = lines.get(i);
+            if (!expression.isBlank())
+                precompile(expression, "%s:%d: ".formatted(file, i + 1), null, null, null);
+        }
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeResource();
+            return false;
+        }
+        if (expressionAnnotations.isEmpty())
+            return false;
+        var scanner = new AnnotatedElementScanner();
+        for (Element element : roundEnv.getRootElements())
+            scanner.scan(element);
+        return false;
+    }
+
+    private void precompile(String expression, String location, Element element, AnnotationMirror annotation, AnnotationValue value) {
+        if (expressions.containsKey(expression))
+            return;
+        try {
+            expressions.put(expression, JoelExpressionParser.parse(expression));
+        } catch (RuntimeException e) {
+            error("%sInvalid expression \"%s\": %s".formatted(location, expression, e.getMessage()), element, annotation, value);
+        }
+    }
+
+    private void writeResource() {
+        if (failed || expressions.isEmpty())
+            return;
+        try {
+            var resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", PrecompiledExpressions.RESOURCE);
+            try (var output = resource.openOutputStream()) {
+                PrecompiledExpressions.write(expressions, output);
+            }
+        } catch (IOException e) {
+            error("Cannot write %s: %s".formatted(PrecompiledExpressions.RESOURCE, e), null, null, null);
+        }
+    }
+
+    private void error(String message, Element element, AnnotationMirror annotation, AnnotationValue value) {
+        failed = true;
+        if (element == null)
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+        else
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element, annotation, value);
+    }
+
+    private boolean isExpressionAnnotation(AnnotationMirror annotation) {
+        var type = (TypeElement) annotation.getAnnotationType().asElement();
+        return expressionAnnotations.contains(type.getQualifiedName().toString());
+    }
+
+    private final class AnnotatedElementScanner extends ElementScanner14<Void, Void> {
+        @Override
+        public Void scan(Element element, Void unused) {
+            for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+                for (AnnotationValue value : annotation.getElementValues().values())
+                    value.accept(new ExpressionCollector(element, annotation), value);
+            }
+            return super.scan(element, unused);
+        }
+    }
+
+    private final class ExpressionCollector extends SimpleAnnotationValueVisitor14<Void, AnnotationValue> {
+        private final Element element;
+        private final AnnotationMirror annotation;
+
+        private ExpressionCollector(Element element, AnnotationMirror annotation) {
+            this.element = element;
+            this.annotation = annotation;
+        }
+
+        @Override
+        public Void visitString(String value, AnnotationValue annotationValue) {
+            if (isExpressionAnnotation(annotation) && (value.contains("${") || value.contains("#{")))
+                precompile(value, "", element, annotation, annotationValue);
+            return null;
+        }
+
+        @Override
+        public Void visitArray(List<? extends AnnotationValue> values, AnnotationValue annotationValue) {
+            for (AnnotationValue value : values)
+                value.accept(this, value);
+            return null;
+        }
+
+        @Override
+        public Void visitAnnotation(AnnotationMirror nested, AnnotationValue annotationValue) {
+            for (AnnotationValue value : nested.getElementValues().values())
+                value.accept(new ExpressionCollector(element, nested), value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+import dev.thihup.joel.precompiler.ExpressionPrecompiler;
+
+module dev.thihup.joel.precompiler {
+    exports dev.thihup.joel.precompiler;
+    requires dev.thihup.joel;
+    requires java.compiler;
+    provides javax.annotation.processing.Processor with ExpressionPrecompiler;
+}
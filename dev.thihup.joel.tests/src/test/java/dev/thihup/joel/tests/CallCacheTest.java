@@ -0,0 +1,179 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.BeanELResolver;
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.LambdaExpression;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that method calls caching the methods they link for the classes they see call like uncached ones, and that
+ * resolvers that can change or post-process what they invoke are not served from the cache.
+ */
+class CallCacheTest {
+
+    private static final ExpressionFactory GENERIC = newFactory(0);
+
+    private static ExpressionFactory newFactory(int polymorphismLimit) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.polymorphismLimit", String.valueOf(polymorphismLimit));
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory, Object bean, Object argument) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("bean", factory.createValueExpression(bean, Object.class));
+        context.getVariableMapper().setVariable("arg", factory.createValueExpression(argument, Object.class));
+        return context;
+    }
+
+    private static ELContext newBeanContext(ExpressionFactory factory, BeanELResolver resolver, Object bean, Object argument) {
+        var context = PropertyCacheTest.newContext(factory, resolver, bean);
+        context.getVariableMapper().setVariable("arg", factory.createValueExpression(argument, Object.class));
+        return context;
+    }
+
+    private static Object eval(ExpressionFactory factory, ELContext context, String expression) {
+        try {
+            var value = factory.createValueExpression(context, expression, Object.class).getValue(context);
+            // lambdas have no equality of their own
+            return value instanceof LambdaExpression ? value.toString() : value;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    public static class Overloads {
+        public String describe(String value) {
+            return "string " + value;
+        }
+
+        public String describe(Integer value) {
+            return "integer " + value;
+        }
+
+        public String describe(Object value) {
+            return "object " + value;
+        }
+
+        public String join(String... values) {
+            return String.join("+", values);
+        }
+
+        public long twice(long value) {
+            return value * 2;
+        }
+
+        public void fail(Object value) {
+            throw new IllegalStateException("failed on " + value);
+        }
+    }
+
+    public static class MoreOverloads extends Overloads {
+        @Override
+        public String describe(String value) {
+            return "more " + value;
+        }
+    }
+
+    @Test
+    void cachedCallsCallLikeUncachedOnes() {
+        var factory = newFactory(3);
+        List<Object> beans = List.of(new Overloads(), new MoreOverloads(), "text", List.of(1, 2, 3), Map.of("a", 1));
+        List<Object> arguments = new ArrayList<>(List.of("a", 1, 2L, 1.5, new BigDecimal("3.5"), List.of()));
+        arguments.add(null);
+        var expressions = List.of("${bean.describe(arg)}", "${bean.join(arg, arg)}", "${bean.twice(arg)}",
+                "${bean.fail(arg)}", "${bean.toString()}", "${bean.equals(arg)}", "${bean.contains(arg)}",
+                "${bean.get(arg)}", "${bean.stream().count()}", "${bean.stream().findFirst().orElseGet(() -> arg)}", "${bean.substring(1)}", "${bean.missing(arg)}");
+        for (int round = 0; round < 3; round++) {
+            for (var bean : beans) {
+                for (var argument : arguments) {
+                    for (var expression : expressions) {
+                        assertEquals(eval(GENERIC, newContext(GENERIC, bean, argument), expression),
+                                eval(factory, newContext(factory, bean, argument), expression),
+                                expression + " on " + bean + " with " + argument);
+                    }
+                }
+            }
+            var context = newContext(factory, null, null);
+            var beanContext = newBeanContext(factory, new BeanELResolver(), null, null);
+            for (var bean : beans) {
+                for (var argument : arguments) {
+                    for (var variables : List.of(context.getVariableMapper(), beanContext.getVariableMapper())) {
+                        variables.setVariable("bean", factory.createValueExpression(bean, Object.class));
+                        variables.setVariable("arg", factory.createValueExpression(argument, Object.class));
+                    }
+                    for (var expression : expressions) {
+                        assertEquals(eval(GENERIC, newContext(GENERIC, bean, argument), expression),
+                                eval(factory, context, expression), expression + " on " + bean + " with " + argument);
+                        assertEquals(eval(GENERIC, newBeanContext(GENERIC, new BeanELResolver(), bean, argument), expression),
+                                eval(factory, beanContext, expression), expression + " on " + bean + " with " + argument);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void callsWithOtherArgumentClassesSelectTheirOwnMethod() {
+        var factory = newFactory(2);
+        var context = newBeanContext(factory, new BeanELResolver(), new Overloads(), 21);
+        var expression = factory.createValueExpression(context, "${bean.describe(arg)}", String.class);
+        for (int i = 0; i < 100; i++)
+            assertEquals("integer 21", expression.getValue(context));
+        context.getVariableMapper().setVariable("arg", factory.createValueExpression("x", Object.class));
+        assertEquals("string x", expression.getValue(context));
+        context.getVariableMapper().setVariable("bean", factory.createValueExpression(new MoreOverloads(), Object.class));
+        assertEquals("more x", expression.getValue(context));
+        context.getVariableMapper().setVariable("arg", factory.createValueExpression(21, Object.class));
+        assertEquals("integer 21", expression.getValue(context));
+    }
+
+    @Test
+    void standardContextsAreServedFromTheCache() {
+        var factory = newFactory(2);
+        assertEquals(PropertyCacheTest.lookups(factory, "${bean}"), PropertyCacheTest.lookups(factory, "${bean.getName()}"));
+        assertTrue(PropertyCacheTest.lookups(GENERIC, "${bean}") < PropertyCacheTest.lookups(GENERIC, "${bean.getName()}"));
+    }
+
+    @Test
+    void resolversAddedToTheContextTakeOver() {
+        var factory = newFactory(2);
+        var context = newContext(factory, new Overloads(), "x");
+        var expression = factory.createValueExpression(context, "${bean.describe(arg)}", String.class);
+        for (int i = 0; i < 10; i++)
+            assertEquals("string x", expression.getValue(context));
+        context.addELResolver(new BeanELResolver() {
+            @Override
+            public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+                context.setPropertyResolved(base, method);
+                return "overridden";
+            }
+        });
+        assertEquals("overridden", expression.getValue(context));
+    }
+
+    @Test
+    void subclassesOfTheBeanResolverAreNotServedFromTheCache() {
+        var factory = newFactory(2);
+        var context = newBeanContext(factory, new BeanELResolver() {
+            @Override
+            public Object invoke(ELContext context, Object base, Object method, Class<?>[] paramTypes, Object[] params) {
+                return ((String) super.invoke(context, base, method, paramTypes, params)).toUpperCase();
+            }
+        }, new Overloads(), "x");
+        var expression = factory.createValueExpression(context, "${bean.describe(arg)}", String.class);
+        for (int i = 0; i < 10; i++)
+            assertEquals("STRING X", expression.getValue(context));
+    }
+}
@@ -0,0 +1,133 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that sharing repeated property paths reads them once per evaluation without changing what expressions
+ * evaluate to.
+ */
+class CommonSubexpressionsTest {
+
+    private static final ExpressionFactory PLAIN = newFactory("dev.thihup.joel.eliminateCommonSubexpressions", "false");
+    private static final ExpressionFactory ELIMINATING = newFactory("dev.thihup.joel.eliminateCommonSubexpressions", "true");
+
+    private static ELContext newContext(ExpressionFactory factory, Order order) {
+        var context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        variables.setVariable("items", factory.createValueExpression(List.of(1L, 2L, 3L), List.class));
+        variables.setVariable("order", factory.createValueExpression(order, Order.class));
+        return context;
+    }
+
+    private static List<Object> describe(ExpressionFactory factory, String expression) {
+        return Differential.describe(factory, () -> newContext(factory, new Order()), expression);
+    }
+
+    @Test
+    void repeatedPaths() {
+        String[] expressions = {
+                "${order.customer.address.city != null ? order.customer.address.city : order.customer.address.zip}",
+                "${order.customer.address.city += ', ' += order.customer.address.zip}",
+                "${order['customer'].address.city == order.customer['address'].city}",
+                "Ship to ${order.customer.name}, ${order.customer.address.city}",
+                "${order.customer.visits; order.customer.visit(); order.customer.visits}",
+                "${[order.customer.visits, order.customer.visit(), order.customer.visits]}",
+                "${order.customer.visits = order.customer.visits + 1; order.customer.visits}",
+                "${order.customer.address.city; order.customer = null; order.customer.address.city}",
+                "${order.customer.visits + [1, 2].stream().map(x -> order.customer.visit()).toList().size() + order.customer.visits}",
+                "${(x -> x.address.city += order.customer.address.city)(order.customer)}",
+                "${order.customer[order.customer.address.city == 'Paris' ? 'name' : 'visits']}",
+                "${order.missing.city ?: order.missing.city}",
+                "${Integer.MAX_VALUE - Integer.MAX_VALUE}",
+        };
+        for (String expression : expressions)
+            assertEquals(describe(PLAIN, expression), describe(ELIMINATING, expression), expression);
+    }
+
+    @Test
+    void pathsAreReadOncePerEvaluation() {
+        assumeTrue(ELIMINATING.getClass().getName().startsWith("dev.thihup.joel"));
+        var expression = "${order.customer.address.city != null ? order.customer.address.city : order.customer.address.zip}";
+        assertEquals(1, customerReads(ELIMINATING, expression, 1));
+        assertEquals(2, customerReads(ELIMINATING, expression, 2));
+        assertEquals(2, customerReads(PLAIN, expression, 1));
+    }
+
+    @Test
+    void callsInvalidateSharedPaths() {
+        assumeTrue(ELIMINATING.getClass().getName().startsWith("dev.thihup.joel"));
+        var expression = "${order.customer.visits; order.customer.visit(); order.customer.visits}";
+        // the call reuses the customer read before it, which is read again after it
+        assertEquals(2, customerReads(ELIMINATING, expression, 1));
+        assertEquals(3, customerReads(PLAIN, expression, 1));
+    }
+
+    private static int customerReads(ExpressionFactory factory, String expression, int evaluations) {
+        var order = new Order();
+        var context = newContext(factory, order);
+        var valueExpression = factory.createValueExpression(context, expression, Object.class);
+        for (int i = 0; i < evaluations; i++)
+            valueExpression.getValue(context);
+        return order.customerReads;
+    }
+
+    public static class Order {
+        private Buyer customer = new Buyer();
+        private int customerReads;
+
+        public Buyer getCustomer() {
+            customerReads++;
+            return customer;
+        }
+
+        public void setCustomer(Buyer customer) {
+            this.customer = customer;
+        }
+    }
+
+    public static class Buyer {
+        private final Address address = new Address();
+        private int visits;
+
+        public String getName() {
+            return "Ada";
+        }
+
+        public Address getAddress() {
+            return address;
+        }
+
+        public int getVisits() {
+            return visits;
+        }
+
+        public void setVisits(int visits) {
+            this.visits = visits;
+        }
+
+        public void visit() {
+            visits++;
+        }
+    }
+
+    public static class Address {
+        public String getCity() {
+            return "Paris";
+        }
+
+        public String getZip() {
+            return "75001";
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELResolver;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.LambdaExpression;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.beans.FeatureDescriptor;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that compiled expressions evaluate and report about themselves like interpreted ones.
+ */
+class CompiledExpressionsTest {
+
+    private static final ExpressionFactory INTERPRETED = newFactory("none");
+    private static final List<String> COMPILERS = List.of("bytecode", "method_handles");
+
+    private static final String[] EXPRESSIONS = {
+            "${(a + b) * a - b % 7 > 100 and a != b ? a * 2 + b : b - a}",
+            "${a / b + d * 2 - bd}",
+            "${-a + -d == -(a + d)}",
+            "${a < b or a <= b or a > b and a >= b}",
+            "${not empty user.name && empty items ? 'x' : 'y'}",
+            "${user.age > 30 and user.name == 'Ada' ? user.name += '!' : 'nobody'}",
+            "Hello ${user.name}, you have ${items[0] + items[1] + items[2]} new messages",
+            "${user['name'] eq 'Ada' ? user.age : user.missing}",
+            "${user.missing.deeper}",
+            "${missing.property}",
+            "${missing}",
+            "${Integer.MAX_VALUE - user.age}",
+            "${Boolean.TRUE and Math.PI > 3}",
+            "${a; b; user.name}",
+            "${n == null ? 'none' : n}",
+            "${s + 1}",
+            "${s && true}",
+            "${'abc' += n += 1.5}",
+            "${items.stream().map(x -> x * a).toList()}",
+            "${(x -> x + b)(a)}",
+            "${x -> x + b}",
+            "${() -> a + b}",
+            "${1 / 0}",
+            "${a % 0}",
+            "${user.name.length()}",
+            "${[a, b, user.name]}",
+            "${{'k': a}}",
+            "#{user.name}",
+            "${user.name}#{user.age}",
+            "literal text",
+            "\u0001${a}\u0002 ${n}${s}${d}",
+            "${user.name.foo()} and ${a % 0}",
+            "${a % 0} and ${user.name.foo()}",
+            "${a}, ${user.name}; ".repeat(150),
+    };
+
+    private static ExpressionFactory newFactory(String compiler) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.compiler", compiler);
+        properties.setProperty("dev.thihup.joel.cacheSize", "0");
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory) {
+        var context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        variables.setVariable("items", factory.createValueExpression(List.of(1L, 2L, 3L), List.class));
+        variables.setVariable("a", factory.createValueExpression(17L, Long.class));
+        variables.setVariable("b", factory.createValueExpression(5, Integer.class));
+        variables.setVariable("d", factory.createValueExpression(2.5, Double.class));
+        variables.setVariable("bd", factory.createValueExpression(new BigDecimal("0.1"), BigDecimal.class));
+        variables.setVariable("s", factory.createValueExpression("4", String.class));
+        variables.setVariable("n", factory.createValueExpression(null, Object.class));
+        return context;
+    }
+
+    private static List<Object> describe(ExpressionFactory factory, String expression) {
+        var context = newContext(factory);
+        try {
+            var valueExpression = factory.createValueExpression(context, expression, Object.class);
+            return List.of(valueExpression.isLiteralText(), result(() -> valueExpression.getType(newContext(factory))),
+                    result(() -> valueExpression.isReadOnly(newContext(factory))), result(() -> valueExpression.getValue(context)),
+                    result(() -> valueExpression.getValue(context)));
+        } catch (RuntimeException e) {
+            return List.of(e.getClass());
+        }
+    }
+
+    private static Object result(Supplier<Object> supplier) {
+        try {
+            var value = supplier.get();
+            // lambdas have no equality of their own
+            return value instanceof LambdaExpression ? value.toString() : String.valueOf(value);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    static Stream<String> expressions() {
+        return Stream.concat(Stream.of(EXPRESSIONS), ParserEquivalenceTest.expressions());
+    }
+
+    @ParameterizedTest
+    @MethodSource("expressions")
+    void compiledExpressionsBehaveLikeInterpretedOnes(String expression) {
+        var expected = describe(INTERPRETED, expression);
+        for (String compiler : COMPILERS)
+            assertEquals(expected, describe(newFactory(compiler), expression), compiler + ": " + expression);
+    }
+
+    @Test
+    void compiledCodeEvaluates() {
+        assumeTrue(INTERPRETED.getClass().getName().startsWith("dev.thihup.joel"));
+        for (String compiler : COMPILERS) {
+            var factory = newFactory(compiler);
+            var context = newContext(factory);
+            var callers = new StackRecorder();
+            context.addELResolver(callers);
+            factory.createValueExpression(context, "${unknown + 1}", Object.class).getValue(context);
+            assertTrue(callers.frames.stream().anyMatch(frame -> frame.startsWith("dev.thihup.joel.impl.compiler.")), compiler + ": " + callers.frames);
+        }
+    }
+
+    /**
+     * Records the classes on the stack when the identifier is resolved.
+     */
+    private static final class StackRecorder extends ELResolver {
+        private List<String> frames = List.of();
+
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            if (base == null && "unknown".equals(property)) {
+                frames = StackWalker.getInstance(StackWalker.Option.SHOW_HIDDEN_FRAMES).walk(stack -> stack.map(StackWalker.StackFrame::getClassName).toList());
+                context.setPropertyResolved(true);
+                return 41L;
+            }
+            return null;
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            return null;
+        }
+
+        @Override
+        public void setValue(ELContext context, Object base, Object property, Object value) {
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context, Object base, Object property) {
+            return true;
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(ELContext context, Object base) {
+            return null;
+        }
+    }
+}
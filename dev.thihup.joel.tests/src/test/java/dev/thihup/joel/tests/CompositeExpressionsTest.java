@@ -0,0 +1,81 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.TypeConverter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that composite expressions concatenate their segments in every evaluation mode, however many they have.
+ */
+class CompositeExpressionsTest {
+
+    private static final List<Map<String, String>> MODES = List.of(
+            Map.of(),
+            Map.of("dev.thihup.joel.flatTrees", "true"),
+            Map.of("dev.thihup.joel.registerMachine", "true"),
+            Map.of("dev.thihup.joel.compiler", "bytecode"),
+            Map.of("dev.thihup.joel.compiler", "method_handles"));
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private static ExpressionFactory newFactory(Map<String, String> mode) {
+        var properties = new Properties();
+        properties.putAll(mode);
+        properties.setProperty("dev.thihup.joel.cacheSize", "0");
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        return context;
+    }
+
+    @Test
+    void longTemplatesEvaluate() {
+        var template = new StringBuilder();
+        var expected = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            template.append("<td>${user.name}#${").append(i % 2 == 0 ? "user.age" : i).append("}</td>");
+            expected.append("<td>Ada#").append(i % 2 == 0 ? 36 : i).append("</td>");
+        }
+        for (var mode : MODES) {
+            var factory = newFactory(mode);
+            var context = newContext(factory);
+            assertEquals(expected.toString(), factory.createValueExpression(context, template.toString(), String.class).getValue(context), mode.toString());
+        }
+    }
+
+    @Test
+    void valuesAreCoercedByTheContext() {
+        for (var mode : MODES) {
+            var factory = newFactory(mode);
+            var context = newContext(factory);
+            context.addELResolver(new TypeConverter() {
+                @Override
+                public Object convertToType(ELContext context, Object object, Class<?> type) {
+                    if (object instanceof Long value && type == String.class) {
+                        context.setPropertyResolved(true);
+                        return "#" + value;
+                    }
+                    return null;
+                }
+            });
+            var expression = factory.createValueExpression(context, "${user.name} is ${user.age} years old", String.class);
+            assertEquals("Ada is #36 years old", expression.getValue(context), mode.toString());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.TypeConverter;
+import org.junit.jupiter.api.Test;
+
+import static dev.thihup.joel.tests.Differential.describe;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that folding constant subtrees does not change what expressions evaluate to or report about themselves.
+ */
+class ConstantFoldingTest {
+
+    private static final ExpressionFactory UNFOLDED = newFactory("dev.thihup.joel.foldConstants", "false",
+            "dev.thihup.joel.specializeOperators", "false");
+    private static final ExpressionFactory FOLDED = newFactory("dev.thihup.joel.foldConstants", "true",
+            "dev.thihup.joel.specializeOperators", "false");
+
+    @Test
+    void constantOperators() {
+        String[] expressions = {
+                "${60 * 60 * 24}",
+                "${'a' += 'b'}",
+                "${true ? user.name : user.age}",
+                "${false ? user.name : user.age}",
+                "${false && user.missing}",
+                "${true || user.missing}",
+                "${true && user.age > 30}",
+                "${-(5)}",
+                "${-(5.5) * 2 + 10 / 4 - 7 % 3}",
+                "${1 % 0}",
+                "${1 / 0}",
+                "${'a' + 1}",
+                "${'1' + 1}",
+                "${null + null}",
+                "${!true or empty ''}",
+                "${1 == 1.0 and 'b' > 'a' and 2 >= 2 and 1 ne 2}",
+                "${1 + 1; user.name}",
+                "${(x -> 2 * 3 + x)(1)}",
+                "${[1 + 1, 'a' += 'b'][0]}",
+                "${{'k' += 'ey': 1 + 1}['key']}",
+                "Total: ${60 * 60} seconds",
+                "#{'a' += 'b'}",
+                "${user[true ? 'name' : 'age']}",
+                "${(x -> x * (2 + 3))(4)}",
+        };
+        for (String expression : expressions)
+            assertEquals(describe(UNFOLDED, expression), describe(FOLDED, expression), expression);
+    }
+
+    @Test
+    void foldedOperationsSkipConversions() {
+        assumeTrue(FOLDED.getClass().getName().startsWith("dev.thihup.joel"));
+        var expression = "${60 * 60 * 24 == 86400 ? 'day' : 'other'}";
+        // only the literal condition of the root and the result are still converted
+        assertEquals(2, conversions(FOLDED, expression));
+        assertTrue(conversions(UNFOLDED, expression) > 2);
+    }
+
+    private static int conversions(ExpressionFactory factory, String expression) {
+        int[] conversions = new int[1];
+        var context = new StandardELContext(factory);
+        context.addELResolver(new TypeConverter() {
+            @Override
+            public Object convertToType(ELContext context, Object object, Class<?> targetType) {
+                conversions[0]++;
+                return null;
+            }
+        });
+        assertEquals("day", factory.createValueExpression(context, expression, String.class).getValue(context));
+        return conversions[0];
+    }
+}
@@ -0,0 +1,106 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.LambdaExpression;
+import jakarta.el.StandardELContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Runs the same expressions through factories configured differently, so that tests can check that an option does not
+ * change their outcome. Outcomes are comparable across factories: a failure is reduced to the class of its exception,
+ * and a lambda, which has no equality of its own, to its string.
+ */
+final class Differential {
+
+    private Differential() {
+    }
+
+    /**
+     * Returns a factory with the given properties, listed as name and value pairs. The parse cache is disabled unless
+     * the properties say otherwise, so that every expression is parsed by the factory under test.
+     */
+    static ExpressionFactory newFactory(String... properties) {
+        var configuration = new Properties();
+        configuration.setProperty("dev.thihup.joel.cacheSize", "0");
+        for (int i = 0; i < properties.length; i += 2)
+            configuration.setProperty(properties[i], properties[i + 1]);
+        return ExpressionFactory.newInstance(configuration);
+    }
+
+    static ELContext newContext(ExpressionFactory factory) {
+        var context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        variables.setVariable("items", factory.createValueExpression(List.of(1L, 2L, 3L), List.class));
+        variables.setVariable("customer", factory.createValueExpression(new Customer("Ana", 36), Customer.class));
+        variables.setVariable("none", factory.createValueExpression(null, Object.class));
+        return context;
+    }
+
+    static Object create(ExpressionFactory factory, String expression) {
+        try {
+            return factory.createValueExpression(newContext(factory), expression, Object.class);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    static Object eval(ExpressionFactory factory, String expression) {
+        return eval(factory, newContext(factory), expression);
+    }
+
+    static Object eval(ExpressionFactory factory, ELContext context, String expression) {
+        try {
+            var value = factory.createValueExpression(context, expression, Object.class).getValue(context);
+            return value instanceof LambdaExpression ? value.toString() : value;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    static Object type(ExpressionFactory factory, String expression) {
+        return type(factory, newContext(factory), expression);
+    }
+
+    static Object type(ExpressionFactory factory, ELContext context, String expression) {
+        try {
+            return factory.createValueExpression(context, expression, Object.class).getType(context);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    /**
+     * Returns everything an expression reports about itself: whether it is literal text, its type, whether it is read
+     * only, its value and its source, each read in a fresh context from {@code contexts}.
+     */
+    static List<Object> describe(ExpressionFactory factory, Supplier<ELContext> contexts, String expression) {
+        var context = contexts.get();
+        try {
+            var valueExpression = factory.createValueExpression(context, expression, Object.class);
+            return List.of(valueExpression.isLiteralText(), result(() -> valueExpression.getType(contexts.get())),
+                    result(() -> valueExpression.isReadOnly(contexts.get())), result(() -> valueExpression.getValue(context)),
+                    valueExpression.getExpressionString());
+        } catch (RuntimeException e) {
+            return List.of(e.getClass());
+        }
+    }
+
+    static List<Object> describe(ExpressionFactory factory, String expression) {
+        return describe(factory, () -> newContext(factory), expression);
+    }
+
+    private static Object result(Supplier<Object> supplier) {
+        try {
+            var value = supplier.get();
+            return value instanceof LambdaExpression ? value.toString() : String.valueOf(value);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELException;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpressionCacheTest {
+
+    private static ExpressionFactory newFactory(String cacheSize) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.cacheSize", cacheSize);
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    @Test
+    void evictedExpressionsAreParsedAgain() {
+        var factory = newFactory("2");
+        var context = new StandardELContext(factory);
+        for (int i = 0; i < 10; i++) {
+            var valueExpression = factory.createValueExpression(context, "${%d + 1}".formatted(i), Long.class);
+            assertEquals(i + 1L, valueExpression.<Long>getValue(context));
+        }
+        var valueExpression = factory.createValueExpression(context, "${0 + 1}", Long.class);
+        assertEquals(1L, valueExpression.<Long>getValue(context));
+    }
+
+    @Test
+    void disabledCache() {
+        var factory = newFactory("0");
+        var context = new StandardELContext(factory);
+        var first = factory.createValueExpression(context, "${'a' += 'b'}", String.class);
+        var second = factory.createValueExpression(context, "${'a' += 'b'}", String.class);
+        assertEquals(first, second);
+        assertEquals("ab", second.getValue(context));
+    }
+
+    @Test
+    void syntaxErrorsAreNotCached() {
+        var factory = newFactory("16");
+        var context = new StandardELContext(factory);
+        assertThrows(ELException.class, () -> factory.createValueExpression(context, "${1 +}", Object.class));
+        assertThrows(ELException.class, () -> factory.createValueExpression(context, "${1 +}", Object.class));
+    }
+
+    @Test
+    void concurrentParsing() throws Exception {
+        var factory = newFactory("8");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = IntStream.range(0, 2_000)
+                    .mapToObj(i -> executor.submit(() -> {
+                        var context = new StandardELContext(factory);
+                        long operand = i % 32;
+                        var valueExpression = factory.createValueExpression(context, "${%d * 2}".formatted(operand), Long.class);
+                        assertEquals(operand * 2, valueExpression.<Long>getValue(context));
+                        return null;
+                    }))
+                    .toList();
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static dev.thihup.joel.tests.Differential.create;
+import static dev.thihup.joel.tests.Differential.eval;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpressionStoreTest {
+
+    @TempDir
+    static Path directory;
+
+    private static ExpressionFactory newFactory(Path file) {
+        return Differential.newFactory("dev.thihup.joel.cacheFile", file.toString());
+    }
+
+    @Test
+    void expressionsAreReusedAcrossFactories() throws IOException {
+        var file = directory.resolve("expressions.bin");
+        var factory = newFactory(file);
+        assertEquals(3L, eval(factory, "${1 + 2}"));
+        assertEquals("a-b", eval(factory, "a-${'b'}"));
+        long size = Files.size(file);
+
+        var restarted = newFactory(file);
+        assertEquals(3L, eval(restarted, "${1 + 2}"));
+        assertEquals("a-b", eval(restarted, "a-${'b'}"));
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void storedExpressionsAreEqualToParsedOnes() {
+        String[] expressions = {"${user.name += ' is ' += user.age}", "Hello ${items.stream().map(x -> x * 2).toList()}", "#{a.b(c)}", "${1 +}"};
+        var factory = newFactory(directory.resolve("stored.bin"));
+        for (String expression : expressions) {
+            var parsed = create(factory, expression);
+            assertEquals(parsed, create(factory, expression), expression);
+            assertEquals(parsed, create(newFactory(directory.resolve("stored.bin")), expression), expression);
+        }
+    }
+
+    @Test
+    void incompatibleFileIsReplaced() throws IOException {
+        var file = directory.resolve("outdated.bin");
+        Files.write(file, new byte[]{'n', 'o', 't', ' ', 'a', ' ', 'c', 'a', 'c', 'h', 'e', ' ', 'f', 'i', 'l', 'e', 1, 2, 3});
+        var factory = newFactory(file);
+        assertEquals(6L, eval(factory, "${2 * 3}"));
+        assertEquals(6L, eval(newFactory(file), "${2 * 3}"));
+    }
+
+    @Test
+    void tornRecordIsDiscarded() throws IOException {
+        var file = directory.resolve("torn.bin");
+        assertEquals(true, eval(newFactory(file), "${1 < 2}"));
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        var factory = newFactory(file);
+        assertEquals(true, eval(factory, "${1 < 2}"));
+        assertEquals(false, eval(factory, "${1 > 2}"));
+        assertEquals(false, eval(newFactory(file), "${1 > 2}"));
+    }
+}
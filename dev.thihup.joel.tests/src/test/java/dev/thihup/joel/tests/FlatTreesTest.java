@@ -0,0 +1,68 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.PropertyNotFoundException;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newContext;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that expressions lowered to the flat encoding evaluate exactly like the record trees they come from.
+ */
+class FlatTreesTest {
+
+    private static final ExpressionFactory TREES = newFactory("dev.thihup.joel.flatTrees", "false");
+    private static final ExpressionFactory FLAT = newFactory("dev.thihup.joel.flatTrees", "true");
+
+    @Test
+    void operators() {
+        String[] expressions = {
+                "${user.name += ' is ' += user.age}",
+                "${user.age > 30 and user.name == 'Ada' ? 'yes' : 'no'}",
+                "${user.age >= 36 && user.age <= 36 && user.age != 35 && !(user.age < 36)}",
+                "${none.missing or empty none ? -user.age % 5 : 0}",
+                "${items[1] * 2 - items[0] / 4 + items.size()}",
+                "${false && none.missing}",
+                "${true || none.missing}",
+                "${user['na' += 'me'].length()}",
+                "${Boolean.TRUE && user.age > 1}",
+                "Hello ${user.name}, ${items.stream().map(x -> x * 2).toList()}",
+        };
+        for (String expression : expressions)
+            assertEquals(eval(TREES, expression), eval(FLAT, expression), expression);
+    }
+
+    @Test
+    void missingPropertiesAreReportedWithTheirPath() {
+        var context = newContext(FLAT);
+        var expression = FLAT.createValueExpression(context, "${1 + missing.property}", Object.class);
+        var exception = assertThrows(PropertyNotFoundException.class, () -> expression.getValue(context));
+        assertEquals("missing.property", exception.getMessage());
+    }
+
+    @Test
+    void flatExpressionsAreSerializable() throws IOException, ClassNotFoundException {
+        var context = newContext(FLAT);
+        var expression = FLAT.createValueExpression(context, "${user.age * 2 > 10 ? user.name : 'x'}", Object.class);
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(expression);
+        }
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            var copy = (ValueExpression) input.readObject();
+            assertEquals(expression, copy);
+            assertEquals("Ada", copy.getValue(context));
+        }
+    }
+}
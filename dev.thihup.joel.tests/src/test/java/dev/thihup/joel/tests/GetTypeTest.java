@@ -68,6 +68,14 @@ class GetTypeTest {
         assertEquals(valueExpression.getExpectedType(), valueExpression.getType(context));
     }
 
+    @Test
+    void getTypeTemplateExpression() {
+        var factory = ExpressionFactory.newInstance();
+        var context = new StandardELContext(factory);
+        var valueExpression = factory.createValueExpression(context, "Hello ${1 + 1} and ${'hi'}!", String.class);
+        assertEquals(valueExpression.getExpectedType(), valueExpression.getType(context));
+    }
+
     @Test
     void getTypeStaticMemberAccess() {
         var factory = ExpressionFactory.newInstance();
@@ -0,0 +1,79 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELException;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.stream.IntStream;
+
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newContext;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that composite expressions whose segments are parsed on first evaluation behave like eagerly parsed ones.
+ */
+class LazyTemplatesTest {
+
+    private static final ExpressionFactory EAGER = newFactory("dev.thihup.joel.lazyTemplates", "false");
+    private static final ExpressionFactory LAZY = newFactory("dev.thihup.joel.lazyTemplates", "true");
+
+    @BeforeEach
+    void joelOnly() {
+        assumeTrue(LAZY.getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    @Test
+    void invalidSegmentsOnlyFailWhenEvaluated() {
+        var context = newContext(LAZY);
+        var expression = LAZY.createValueExpression(context, "${user.name} ${user.age +}", String.class);
+        assertThrows(ELException.class, () -> expression.getValue(context));
+        assertThrows(ELException.class, () -> expression.getValue(context));
+        assertThrows(ELException.class, () -> EAGER.createValueExpression(context, "${user.name} ${user.age +}", String.class));
+    }
+
+    @Test
+    void singleSegmentsAndMixedDelimitersAreStillCheckedOnCreation() {
+        var context = newContext(LAZY);
+        assertThrows(ELException.class, () -> LAZY.createValueExpression(context, "${user.age +}", String.class));
+        assertThrows(ELException.class, () -> LAZY.createValueExpression(context, "${user.name} #{user.age}", String.class));
+        assertThrows(ELException.class, () -> LAZY.createValueExpression(context, "${user.name} ${user.age", String.class));
+    }
+
+    @Test
+    void segmentsAreParsedOnceAcrossThreads() {
+        var template = IntStream.range(0, 300)
+                .mapToObj(i -> "<li>${items[" + (i % 3) + "] + " + i + "}</li>")
+                .reduce("", String::concat);
+        var expected = eval(EAGER, template);
+        var expression = LAZY.createValueExpression(newContext(LAZY), template, String.class);
+        IntStream.range(0, 64).parallel().forEach(i -> {
+            var context = newContext(LAZY);
+            assertEquals(expected, expression.getValue(context));
+        });
+    }
+
+    @Test
+    void lazyExpressionsAreSerializable() throws IOException, ClassNotFoundException {
+        var context = newContext(LAZY);
+        var expression = LAZY.createValueExpression(context, "${user.name} is ${user.age}", String.class);
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(expression);
+        }
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            var copy = (ValueExpression) input.readObject();
+            assertEquals("Ada is 36", copy.getValue(context));
+        }
+    }
+}
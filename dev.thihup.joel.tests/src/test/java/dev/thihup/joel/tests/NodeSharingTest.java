@@ -0,0 +1,44 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import org.junit.jupiter.api.Test;
+
+import static dev.thihup.joel.tests.Differential.create;
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that sharing the subtrees of parsed expressions changes neither their equality nor their evaluation.
+ */
+class NodeSharingTest {
+
+    private static final ExpressionFactory SHARED = newFactory("dev.thihup.joel.shareNodes", "true");
+    private static final ExpressionFactory UNSHARED = newFactory("dev.thihup.joel.shareNodes", "false");
+
+    @Test
+    void sharedSubtreesEvaluateInEveryExpression() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(6L, eval(SHARED, "${(x -> x * 2)(3)}"));
+            assertEquals(9L, eval(SHARED, "${(x -> x * 2)(3) + 3}"));
+            assertEquals("a-6", eval(SHARED, "a-${[1, 2, 3].stream().map(x -> x * 2).toList()[2]}"));
+            assertEquals(eval(UNSHARED, "${{'a': [1, 2], 'b': {1, 2}}}"), eval(SHARED, "${{'a': [1, 2], 'b': {1, 2}}}"));
+            assertEquals(true, eval(SHARED, "${'x' == 'x' ? 'x' != 'y' : false}"));
+        }
+    }
+
+    @Test
+    void sharedExpressionsAreEqualToUnsharedOnes() {
+        String[] expressions = {
+                "${(x -> x * 2)(3) + (x -> x * 2)(3)}",
+                "Hello ${user.name}, ${user.name}",
+                "${[1, 2, 3].stream().map(x -> x * 2).toList()}",
+                "${a.b.c.d(e, f)[g]}",
+        };
+        for (String expression : expressions) {
+            var shared = create(SHARED, expression);
+            assertEquals(create(UNSHARED, expression), shared, expression);
+            assertEquals(create(UNSHARED, expression).hashCode(), shared.hashCode(), expression);
+        }
+    }
+}
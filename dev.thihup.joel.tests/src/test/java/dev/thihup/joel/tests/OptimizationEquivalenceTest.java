@@ -0,0 +1,105 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.file.Path;
+
+import static dev.thihup.joel.tests.Differential.create;
+import static dev.thihup.joel.tests.Differential.describe;
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static dev.thihup.joel.tests.Differential.type;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks on the whole corpus of {@link ParserEquivalenceTest} that turning each optimization on or off does not change
+ * what expressions evaluate to or report about themselves.
+ */
+class OptimizationEquivalenceTest {
+
+    private static final String CORPUS = "dev.thihup.joel.tests.ParserEquivalenceTest#expressions";
+
+    private static final ExpressionFactory UNSHARED = newFactory("dev.thihup.joel.shareNodes", "false");
+    private static final ExpressionFactory SHARED = newFactory("dev.thihup.joel.shareNodes", "true");
+    private static final ExpressionFactory EAGER = newFactory("dev.thihup.joel.lazyTemplates", "false");
+    private static final ExpressionFactory LAZY = newFactory("dev.thihup.joel.lazyTemplates", "true");
+    private static final ExpressionFactory UNFOLDED = newFactory("dev.thihup.joel.foldConstants", "false",
+            "dev.thihup.joel.specializeOperators", "false");
+    private static final ExpressionFactory FOLDED = newFactory("dev.thihup.joel.foldConstants", "true",
+            "dev.thihup.joel.specializeOperators", "false");
+    private static final ExpressionFactory GENERIC = newFactory("dev.thihup.joel.specializeOperators", "false");
+    private static final ExpressionFactory SPECIALIZED = newFactory("dev.thihup.joel.specializeOperators", "true");
+    private static final ExpressionFactory PLAIN = newFactory("dev.thihup.joel.eliminateCommonSubexpressions", "false");
+    private static final ExpressionFactory ELIMINATING = newFactory("dev.thihup.joel.eliminateCommonSubexpressions", "true");
+    private static final ExpressionFactory TREES = newFactory("dev.thihup.joel.flatTrees", "false",
+            "dev.thihup.joel.registerMachine", "false");
+    private static final ExpressionFactory FLAT = newFactory("dev.thihup.joel.flatTrees", "true");
+    private static final ExpressionFactory REGISTERS = newFactory("dev.thihup.joel.registerMachine", "true",
+            "dev.thihup.joel.polymorphismLimit", "0");
+    private static final ExpressionFactory SPECIALIZING_REGISTERS = newFactory("dev.thihup.joel.registerMachine", "true",
+            "dev.thihup.joel.polymorphismLimit", "2");
+
+    @TempDir
+    static Path directory;
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void sharedExpressionsAreEqualToUnsharedOnes(String expression) {
+        var shared = create(SHARED, expression);
+        assertEquals(create(UNSHARED, expression), shared, expression);
+        assertEquals(create(UNSHARED, expression).hashCode(), shared.hashCode(), expression);
+        assertEquals(shared, create(SHARED, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void lazyExpressionsEvaluateLikeEagerOnes(String expression) {
+        assertEquals(eval(EAGER, expression), eval(LAZY, expression), expression);
+        assertEquals(eval(EAGER, "<" + expression + ">"), eval(LAZY, "<" + expression + ">"), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void foldedExpressionsBehaveLikeUnfoldedOnes(String expression) {
+        assertEquals(describe(UNFOLDED, expression), describe(FOLDED, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void specializedOperatorsEvaluateLikeGenericOnes(String expression) {
+        assertEquals(eval(GENERIC, expression), eval(SPECIALIZED, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void sharedPathsBehaveLikeRepeatedOnes(String expression) {
+        assertEquals(describe(PLAIN, expression), describe(ELIMINATING, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void flatExpressionsEvaluateLikeTrees(String expression) {
+        assertEquals(eval(TREES, expression), eval(FLAT, expression), expression);
+        assertEquals(type(TREES, expression), type(FLAT, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void registerProgramsEvaluateLikeTrees(String expression) {
+        assertEquals(eval(TREES, expression), eval(REGISTERS, expression), expression);
+        assertEquals(eval(TREES, expression), eval(SPECIALIZING_REGISTERS, expression), expression);
+        assertEquals(type(TREES, expression), type(REGISTERS, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource(CORPUS)
+    void storedExpressionsAreEqualToParsedOnes(String expression) {
+        var factory = newFactory("dev.thihup.joel.cacheFile", directory.resolve("corpus.bin").toString());
+        var parsed = create(factory, expression);
+        var stored = create(factory, expression);
+        assertEquals(parsed, stored, expression);
+    }
+}
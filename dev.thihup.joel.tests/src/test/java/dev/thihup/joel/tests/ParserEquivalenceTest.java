@@ -0,0 +1,158 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the hand-written parser builds the same expressions as the ANTLR one, or fails with the same exception.
+ * The corpus is made of every string literal of the TCK, both as-is and wrapped in {@code ${...}}, plus cases
+ * exercising precedence and lexing corner cases.
+ */
+class ParserEquivalenceTest {
+
+    private static final ExpressionFactory ANTLR = newFactory("antlr");
+    private static final ExpressionFactory PRATT = newFactory("pratt");
+
+    private static final String[] EXTRA_EXPRESSIONS = {
+            "",
+            "a$${'x'}",
+            "\\${x}",
+            "a\\${x}",
+            "x #",
+            "$",
+            "#",
+            "$#{a}",
+            "#{a}${b}",
+            "${a}#{b}",
+            "${a}${b}",
+            "${a} and #",
+            "${1 + 2 * 3 - 4 / 5 % 6 div 7 mod 8}",
+            "${-a.b[c](d).e}",
+            "${!empty a && not b || c and d or e}",
+            "${a < b == c > d != e <= f eq g ne h ge i le j lt k gt l}",
+            "${a ? b : c ? d : e}",
+            "${a ? b ? c : d : e}",
+            "${a = b = c += d}",
+            "${a = 1; b = 2; a + b}",
+            "${x -> x + 1}",
+            "${(x, y) -> x * y}",
+            "${() -> 42}",
+            "${((x) -> x)(1)}",
+            "${fn:length('abc')}",
+            "${a ? fn:f() : b}",
+            "${a ? fn:f()}",
+            "${a ? b ? fn:f() : c}",
+            "${[]}",
+            "${[1, 2, [3]]}",
+            "${{}}",
+            "${{1, 2}}",
+            "${{1: 2, 'a': [3]}}",
+            "${{'a': {1, 2}}}",
+            "${1.5e10 + .5 + 1e3 + 1E-2 + 3.}",
+            "${99999999999999999999}",
+            "${'it\\'s' += \"\\\"q\\\"\" += '\\\\'}",
+            "${'\\n'}",
+            "${'unterminated}",
+            "${a\u0660\u0966 + x\u1049.y\u06f0}",
+            "${\u0e50}",
+            "${a instanceof b}",
+            "${a.1}",
+            "${a & b}",
+            "${a | b}",
+            "${a +}",
+            "${(a}",
+            "${a)}",
+            "${a b}",
+            "${",
+            "${}",
+            "${a}}",
+            "${$}",
+            "${$a.$b}",
+            "${true.false}",
+            "${null == empty null}",
+            "${x->y->x+y}",
+            "${a.b.c.d(e, f)[g]}",
+    };
+
+    private static ExpressionFactory newFactory(String parser) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.parser", parser);
+        properties.setProperty("dev.thihup.joel.cacheSize", "0");
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    static Stream<String> expressions() {
+        var corpus = ParserEquivalenceTest.class.getResourceAsStream("expressions.txt");
+        Objects.requireNonNull(corpus, "expressions.txt");
+        try (var reader = new BufferedReader(new InputStreamReader(corpus, StandardCharsets.UTF_8))) {
+            var literals = reader.lines()
+                    .map(String::translateEscapes)
+                    .toList();
+            return Stream.concat(
+                    Stream.of(EXTRA_EXPRESSIONS),
+                    literals.stream().flatMap(literal -> Stream.of(literal, "${" + literal + "}")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("expressions")
+    void sameResult(String expression) {
+        assertEquals(parse(ANTLR, expression), parse(PRATT, expression), expression);
+    }
+
+    @ParameterizedTest
+    @MethodSource("expressions")
+    void deferredExpressionsParseLikeDynamicOnes(String expression) {
+        if (expression.contains("#{"))
+            return;
+        var deferred = expression.replace("${", "#{");
+        // a segment with a syntax error is parsed again with full LL prediction, which must still expect a deferred one
+        assertEquals(outcome(ANTLR, expression), outcome(ANTLR, deferred), deferred);
+        assertEquals(outcome(PRATT, expression), outcome(PRATT, deferred), deferred);
+    }
+
+    @Test
+    void deferredSegmentsStayDeferredWhenParsedAgain() {
+        // the deferred segment fails SLL prediction after a dynamic one, so it is parsed again with full LL prediction
+        var template = "${x}#{a ? b ? fn:f() : c}";
+        var dynamic = "${x}${a ? b ? fn:f() : c}";
+        assertEquals(outcome(ANTLR, dynamic), outcome(ANTLR, template), template);
+        assertEquals(outcome(PRATT, dynamic), outcome(PRATT, template), template);
+    }
+
+    private static String outcome(ExpressionFactory factory, String expression) {
+        try {
+            factory.createValueExpression(new StandardELContext(factory), expression, Object.class);
+            return "parsed";
+        } catch (RuntimeException e) {
+            // messages echo the input, whose delimiters differ
+            return e.getClass().getName() + ": " + String.valueOf(e.getMessage()).replace('#', '$');
+        }
+    }
+
+    private static Object parse(ExpressionFactory factory, String expression) {
+        try {
+            ValueExpression valueExpression = factory.createValueExpression(new StandardELContext(factory), expression, Object.class);
+            return valueExpression;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.LambdaExpression;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that residual expressions, specialized to known values of some identifiers, evaluate like the original ones in
+ * contexts that only provide the other identifiers.
+ */
+class PartialEvaluationTest {
+
+    private static final Map<String, Object> KNOWN = Map.of(
+            "tenant", new Customer("Acme", 12),
+            "config", Map.of("enabled", true, "greeting", "Hello", "limit", 10L, "tiers", List.of("free", "gold")));
+
+    private static final List<Map<String, String>> MODES = List.of(
+            Map.of(),
+            Map.of("dev.thihup.joel.flatTrees", "true"),
+            Map.of("dev.thihup.joel.registerMachine", "true"),
+            Map.of("dev.thihup.joel.eliminateCommonSubexpressions", "true"),
+            Map.of("dev.thihup.joel.polymorphismLimit", "4"),
+            Map.of("dev.thihup.joel.lazyTemplates", "true"),
+            Map.of("dev.thihup.joel.compiler", "bytecode"),
+            Map.of("dev.thihup.joel.compiler", "method_handles"));
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private static ValueExpression specialize(ExpressionFactory factory, ELContext context, ValueExpression expression,
+                                              Map<String, ?> bindings) {
+        try {
+            return (ValueExpression) factory.getClass()
+                    .getMethod("specialize", ELContext.class, ValueExpression.class, Map.class)
+                    .invoke(factory, context, expression, bindings);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new AssertionError(e);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static ValueExpression createTemplateExpression(ExpressionFactory factory, ELContext context, CharSequence template) {
+        try {
+            return (ValueExpression) factory.getClass()
+                    .getMethod("createTemplateExpression", ELContext.class, CharSequence.class, Class.class)
+                    .invoke(factory, context, template, String.class);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory, Map<String, ?> variables) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("user", factory.createValueExpression(new Customer("Ana", 36), Customer.class));
+        variables.forEach((name, value) ->
+                context.getVariableMapper().setVariable(name, factory.createValueExpression(value, Object.class)));
+        return context;
+    }
+
+    private static Object eval(ValueExpression expression, ELContext context) {
+        try {
+            var value = expression.getValue(context);
+            // lambdas have no equality of their own
+            return value instanceof LambdaExpression ? value.toString() : value;
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    @Test
+    void residualsEvaluateLikeTheOriginalExpressions() {
+        String[] expressions = {
+                "${tenant.name}",
+                "${tenant}",
+                "${config.greeting += ', ' += user.name}",
+                "${config.enabled ? user.name : missing.property}",
+                "${!config.enabled or user.age > config.limit}",
+                "${config.enabled and user.age > tenant.age}",
+                "${tenant.age * 2 + config.limit - user.age}",
+                "${config.tiers[1] == 'gold' ? tenant.name.length() : 0}",
+                "${config.tiers.size() + user.age}",
+                "${config.missing}",
+                "${tenant.missing}",
+                "${tenant.age / 0}",
+                "${[1, 2].stream().map(tenant -> tenant + config.limit).toList()}",
+                "${user.age > 18 ? config['greeting'] : tenant['name']}",
+                "${(x -> x + tenant.age)(1)}",
+                "${user.age + user.age > tenant.age * tenant.age ? user.age - 1 : tenant.age % 5}",
+                "${config.greeting} ${user.name} from ${tenant.name}",
+                "#{config.greeting} #{tenant.name}",
+                "literal text",
+        };
+        for (var mode : MODES) {
+            var properties = new Properties();
+            properties.putAll(mode);
+            var factory = ExpressionFactory.newInstance(properties);
+            for (String text : expressions) {
+                var original = factory.createValueExpression(newContext(factory, KNOWN), text, Object.class);
+                var residual = specialize(factory, newContext(factory, Map.of()), original, KNOWN);
+                assertEquals(eval(original, newContext(factory, KNOWN)), eval(residual, newContext(factory, Map.of())),
+                        mode + ": " + text);
+            }
+        }
+    }
+
+    @Test
+    void templatesAreSpecializedFromTheirTree() {
+        for (var lazyTemplates : List.of("false", "true")) {
+            var properties = new Properties();
+            properties.setProperty("dev.thihup.joel.lazyTemplates", lazyTemplates);
+            var factory = ExpressionFactory.newInstance(properties);
+            var context = newContext(factory, Map.of());
+            var template = createTemplateExpression(factory, context, "Hello ${user.name} from ${tenant.name}!");
+            var residual = specialize(factory, context, template, Map.of("tenant", new Customer("Acme", 12)));
+            assertEquals("Hello Ana from Acme!", residual.getValue(context), lazyTemplates);
+        }
+    }
+
+    @Test
+    void lazySegmentsThatDoNotParseStillFail() {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.lazyTemplates", "true");
+        var factory = ExpressionFactory.newInstance(properties);
+        var context = newContext(factory, Map.of());
+        var template = factory.createValueExpression(context, "${tenant.name} ${1 +}", String.class);
+        var residual = specialize(factory, context, template, KNOWN);
+        assertEquals(ELException.class, eval(residual, context));
+    }
+
+    @Test
+    void knownConditionsPruneTheirBranches() {
+        var factory = ExpressionFactory.newInstance();
+        var context = newContext(factory, Map.of());
+        var expression = factory.createValueExpression(context, "${config.enabled ? user.name : tenant.name}", String.class);
+        var residual = specialize(factory, context, expression, Map.of("config", Map.of("enabled", false)));
+        assertEquals("Acme", eval(residual, newContext(factory, Map.of("tenant", new Customer("Acme", 1)))));
+        // the other branch, which reads an identifier the residual context lacks, is gone
+        residual = specialize(factory, context, expression, Map.of("config", Map.of("enabled", true)));
+        assertEquals("Ana", eval(residual, context));
+    }
+
+    @Test
+    void residualPropertyReadsCanBeAssigned() {
+        var factory = ExpressionFactory.newInstance();
+        var tenant = new Customer("Acme", 12);
+        var context = newContext(factory, Map.of());
+        var expression = factory.createValueExpression(newContext(factory, Map.of()), "${tenant.age}", Integer.class);
+        var residual = specialize(factory, context, expression, Map.of("tenant", tenant));
+        residual.setValue(context, 13);
+        assertEquals(13, tenant.getAge());
+        assertEquals(13, residual.getValue(context));
+    }
+}
@@ -0,0 +1,161 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PrecompilationTest {
+
+    private static final String PROCESSOR = "dev.thihup.joel.precompiler.ExpressionPrecompiler";
+    private static final String RESOURCE = "META-INF/dev.thihup.joel/expressions.bin";
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(String source, String... expressionFiles) throws IOException {
+        var sourceFile = Files.writeString(directory.resolve("Pages.java"), source);
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        var diagnostics = new DiagnosticCollector<JavaFileObject>();
+        var processorPath = Stream.of(System.getProperty("jdk.module.path"), System.getProperty("java.class.path"))
+                .filter(path -> path != null && !path.isBlank())
+                .collect(Collectors.joining(File.pathSeparator));
+        try (var fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            var options = List.of(
+                    "-proc:only",
+                    "-processor", PROCESSOR,
+                    "-processorpath", processorPath,
+                    "-d", directory.toString(),
+                    "-Adev.thihup.joel.expressionAnnotations=Template, Missing",
+                    "-Adev.thihup.joel.expressionFiles=" + String.join(File.pathSeparator, expressionFiles));
+            compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjects(sourceFile)).call();
+        }
+        return diagnostics;
+    }
+
+    @Test
+    void precompiledExpressionsArePickedUp() throws IOException {
+        var expressions = Files.writeString(directory.resolve("expressions.txt"), "${[1, 2, 3].stream().sum()}\n\n#{'a' += 'b'}\n");
+        var diagnostics = compile("""
+                @interface Template {
+                    String[] value();
+                }
+
+                @interface Value {
+                    String value();
+                }
+
+                @Template({"Hello ${'world'}", "no expression"})
+                class Pages {
+                    @Template("#{1 + 2}")
+                    void page() {
+                    }
+
+                    @Value("${server.port:8080}")
+                    int port;
+                }
+                """, expressions.toString());
+        assertEquals(List.of(), diagnostics.getDiagnostics());
+        assertTrue(Files.exists(directory.resolve(RESOURCE)));
+
+        var thread = Thread.currentThread();
+        var previous = thread.getContextClassLoader();
+        try (var classLoader = new URLClassLoader(new java.net.URL[]{directory.toUri().toURL()}, previous)) {
+            thread.setContextClassLoader(classLoader);
+            var factory = ExpressionFactory.newInstance();
+            var context = new StandardELContext(factory);
+            assertEquals("Hello world", factory.createValueExpression(context, "Hello ${'world'}", String.class).getValue(context));
+            assertEquals(3L, factory.createValueExpression(context, "#{1 + 2}", Long.class).getValue(context));
+            assertEquals(6L, factory.createValueExpression(context, "${[1, 2, 3].stream().sum()}", Long.class).getValue(context));
+            assertEquals("ab", factory.createValueExpression(context, "#{'a' += 'b'}", String.class).getValue(context));
+            assertEquals(4, precompiledCount(factory));
+            assertEquals(4L, factory.createValueExpression(context, "${2 + 2}", Long.class).getValue(context));
+            assertEquals(4, precompiledCount(factory));
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private static long precompiledCount(ExpressionFactory factory) {
+        try {
+            var stats = factory.getClass().getMethod("getCacheStats").invoke(factory);
+            return (long) stats.getClass().getMethod("precompiledCount").invoke(stats);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Test
+    void onlyListedAnnotationsAreRead() throws IOException {
+        var diagnostics = compile("""
+                @interface Template {
+                    String value();
+                }
+
+                @interface Templates {
+                    Template[] value();
+                }
+
+                @interface Value {
+                    String value();
+                }
+
+                @Templates({@Template("${1 + 1}"), @Template("${2 + 2}")})
+                class Pages {
+                    @Value("${server.port:8080}")
+                    int port;
+
+                    @Value("#{not an expression ?}")
+                    int other;
+                }
+                """);
+        assertEquals(List.of(), diagnostics.getDiagnostics());
+        assertTrue(Files.exists(directory.resolve(RESOURCE)));
+    }
+
+    @Test
+    void invalidExpressionsFailTheBuild() throws IOException {
+        var expressions = Files.writeString(directory.resolve("invalid.txt"), "${1 + 1}\n${a ? b}\n");
+        var diagnostics = compile("""
+                @interface Template {
+                    String value();
+                }
+
+                @Template("${1 +}")
+                class Pages {
+                }
+                """, expressions.toString());
+        var errors = diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .toList();
+        assertEquals(2, errors.size(), errors::toString);
+        assertTrue(errors.stream().anyMatch(error -> error.contains("invalid.txt:2: Invalid expression \"${a ? b}\"")), errors::toString);
+        assertTrue(errors.stream().anyMatch(error -> error.contains("Invalid expression \"${1 +}\"")), errors::toString);
+        assertFalse(Files.exists(directory.resolve(RESOURCE)));
+    }
+}
@@ -0,0 +1,73 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Checks that evaluating an expression to a primitive gives the value it evaluates to, coerced to that primitive.
+ */
+class PrimitiveEvaluationTest {
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private static Object primitive(ValueExpression expression, ELContext context, String name) {
+        try {
+            return Class.forName("dev.thihup.joel.impl.spi.PrimitiveValueExpression")
+                    .getMethod(name, ELContext.class).invoke(expression, context);
+        } catch (InvocationTargetException e) {
+            return e.getCause().getClass();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Object coerced(ExpressionFactory factory, ValueExpression expression, ELContext context, Class<?> type) {
+        try {
+            return factory.coerceToType(expression.getValue(context), type);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    @Test
+    void primitivesAreTheCoercedValues() {
+        var factory = ExpressionFactory.newInstance();
+        List<Object> values = new ArrayList<>(List.of(7L, 3, -2L, 2.5, new BigDecimal("1.5"), "4", true, Long.MAX_VALUE, 0L));
+        values.add(null);
+        String[] expressions = {
+                "${a}", "${a + b}", "${(a + b) * a - b % 7}", "${a * 2 + b * 3 - 1}", "${a / b}", "${a / 2 + b}",
+                "${a % b}", "${-a + 1}", "${a > b}", "${a + 1 >= b * 2}", "${a == b and a != 1}",
+                "${a < b or a + b > 10}", "${!(a <= b)}", "${a > 1 ? a * b : b - 1}", "${a + b > 5 ? true : a}",
+                "${empty a}", "${a += b}", "${1 + 2 * 3}", "${2.5 * a}",
+        };
+        for (var a : values) {
+            for (var b : values) {
+                var context = new StandardELContext(factory);
+                context.getVariableMapper().setVariable("a", factory.createValueExpression(a, Object.class));
+                context.getVariableMapper().setVariable("b", factory.createValueExpression(b, Object.class));
+                for (var text : expressions) {
+                    var expression = factory.createValueExpression(context, text, Object.class);
+                    var message = text + " with " + a + " and " + b;
+                    assertEquals(coerced(factory, expression, context, long.class), primitive(expression, context, "getLong"), message);
+                    assertEquals(coerced(factory, expression, context, double.class), primitive(expression, context, "getDouble"), message);
+                    assertEquals(coerced(factory, expression, context, boolean.class), primitive(expression, context, "getBoolean"), message);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.BeanELResolver;
+import jakarta.el.ELContext;
+import jakarta.el.ELResolver;
+import jakarta.el.EvaluationListener;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.FunctionMapper;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import jakarta.el.VariableMapper;
+import org.junit.jupiter.api.Test;
+
+import java.beans.FeatureDescriptor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that property reads caching the getters of the bean classes they see read like uncached ones, and that
+ * resolvers that can change or post-process what they read are not served from the cache.
+ */
+class PropertyCacheTest {
+
+    private static final ExpressionFactory GENERIC = newFactory(0);
+
+    private static ExpressionFactory newFactory(int polymorphismLimit) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.polymorphismLimit", String.valueOf(polymorphismLimit));
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory, Object bean) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("bean", factory.createValueExpression(bean, Object.class));
+        return context;
+    }
+
+    /**
+     * Returns a context whose resolver is only {@code resolver}, with {@code bean} as a variable.
+     */
+    static ELContext newContext(ExpressionFactory factory, ELResolver resolver, Object bean) {
+        var variables = new HashMap<String, ValueExpression>();
+        var variableMapper = new VariableMapper() {
+            @Override
+            public ValueExpression resolveVariable(String variable) {
+                return variables.get(variable);
+            }
+
+            @Override
+            public ValueExpression setVariable(String variable, ValueExpression expression) {
+                return variables.put(variable, expression);
+            }
+        };
+        var context = new ELContext() {
+            @Override
+            public ELResolver getELResolver() {
+                return resolver;
+            }
+
+            @Override
+            public FunctionMapper getFunctionMapper() {
+                return null;
+            }
+
+            @Override
+            public VariableMapper getVariableMapper() {
+                return variableMapper;
+            }
+        };
+        context.getVariableMapper().setVariable("bean", factory.createValueExpression(bean, Object.class));
+        return context;
+    }
+
+    private static Object eval(ExpressionFactory factory, ELContext context, String expression) {
+        try {
+            return factory.createValueExpression(context, expression, Object.class).getValue(context);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    public static class Failing {
+        public String getName() {
+            throw new IllegalStateException("no name");
+        }
+    }
+
+    public record Point(long x, long y) {
+    }
+
+    public static class Named {
+        public String getName() {
+            return "named";
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+    }
+
+    @Test
+    void cachedReadsReadLikeUncachedOnes() {
+        var factory = newFactory(2);
+        List<Object> beans = List.of(new Customer("Ana", 36), new Named(), new Failing(), new Point(1, 2),
+                Map.of("name", "map"), List.of(1, 2), "text", new Customer("Bia", 7), new Named());
+        var expressions = List.of("${bean.name}", "${bean.age}", "${bean.active}", "${bean.x + bean.y}",
+                "${bean.size}", "${bean['name']}", "${bean.name.length()}");
+        for (int round = 0; round < 3; round++) {
+            for (var bean : beans) {
+                for (var expression : expressions) {
+                    // one context per read, so that the resolver changes and the cache has to start over
+                    assertEquals(eval(GENERIC, newContext(GENERIC, bean), expression),
+                            eval(factory, newContext(factory, bean), expression), expression + " on " + bean);
+                }
+            }
+            var context = newContext(factory, null);
+            var beanContext = newContext(factory, new BeanELResolver(), null);
+            for (var bean : beans) {
+                context.getVariableMapper().setVariable("bean", factory.createValueExpression(bean, Object.class));
+                beanContext.getVariableMapper().setVariable("bean", factory.createValueExpression(bean, Object.class));
+                for (var expression : expressions) {
+                    assertEquals(eval(GENERIC, newContext(GENERIC, bean), expression),
+                            eval(factory, context, expression), expression + " on " + bean);
+                    assertEquals(eval(GENERIC, newContext(GENERIC, new BeanELResolver(), bean), expression),
+                            eval(factory, beanContext, expression), expression + " on " + bean);
+                }
+            }
+        }
+    }
+
+    /**
+     * Standard context counting the lookups that go through its resolver, which start by resetting the resolved flag.
+     */
+    private static final class CountingContext extends StandardELContext {
+        private int lookups;
+
+        CountingContext(ExpressionFactory factory) {
+            super(factory);
+        }
+
+        @Override
+        public void setPropertyResolved(boolean resolved) {
+            if (!resolved)
+                lookups++;
+            super.setPropertyResolved(resolved);
+        }
+    }
+
+    /**
+     * Returns how many lookups go through the resolver of a standard context to evaluate {@code expression} once it has
+     * been evaluated before.
+     */
+    static int lookups(ExpressionFactory factory, String expression) {
+        var context = new CountingContext(factory);
+        context.getVariableMapper().setVariable("bean", factory.createValueExpression(new Customer("Ana", 36), Object.class));
+        var valueExpression = factory.createValueExpression(context, expression, Object.class);
+        valueExpression.getValue(context);
+        int lookups = context.lookups;
+        valueExpression.getValue(context);
+        return context.lookups - lookups;
+    }
+
+    @Test
+    void standardContextsAreServedFromTheCache() {
+        var factory = newFactory(4);
+        assertEquals(lookups(factory, "${bean}"), lookups(factory, "${bean.name}"));
+        assertTrue(lookups(GENERIC, "${bean}") < lookups(GENERIC, "${bean.name}"));
+    }
+
+    @Test
+    void contextsWithOtherResolversAreNotServedFromTheCache() {
+        var factory = newFactory(4);
+        var customer = new Customer("Ana", 36);
+        var standard = newContext(factory, customer);
+        for (int i = 0; i < 10; i++)
+            assertEquals("Ana", eval(factory, standard, "${bean.name}"));
+
+        var custom = newContext(factory, customer);
+        custom.addELResolver(new ELResolver() {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                if (base instanceof Customer && "name".equals(property)) {
+                    context.setPropertyResolved(base, property);
+                    return "intercepted";
+                }
+                return null;
+            }
+
+            @Override
+            public Class<?> getType(ELContext context, Object base, Object property) {
+                return null;
+            }
+
+            @Override
+            public void setValue(ELContext context, Object base, Object property, Object value) {
+            }
+
+            @Override
+            public boolean isReadOnly(ELContext context, Object base, Object property) {
+                return false;
+            }
+
+            @Override
+            public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+                return null;
+            }
+
+            @Override
+            public Class<?> getCommonPropertyType(ELContext context, Object base) {
+                return null;
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            assertEquals("intercepted", eval(factory, custom, "${bean.name}"));
+            assertEquals("Ana", eval(factory, standard, "${bean.name}"));
+        }
+    }
+
+    @Test
+    void resolversAddedToTheContextTakeOver() {
+        var factory = newFactory(4);
+        var context = newContext(factory, new Customer("Ana", 36));
+        var expression = factory.createValueExpression(context, "${bean.name}", Object.class);
+        for (int i = 0; i < 10; i++)
+            assertEquals("Ana", expression.getValue(context));
+        context.addELResolver(new BeanELResolver() {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                context.setPropertyResolved(base, property);
+                return "overridden";
+            }
+        });
+        assertEquals("overridden", expression.getValue(context));
+    }
+
+    @Test
+    void subclassesOfTheBeanResolverAreNotServedFromTheCache() {
+        var factory = newFactory(4);
+        var context = newContext(factory, new BeanELResolver() {
+            @Override
+            public Object getValue(ELContext context, Object base, Object property) {
+                return ((String) super.getValue(context, base, property)).toUpperCase();
+            }
+        }, new Customer("Ana", 36));
+        var expression = factory.createValueExpression(context, "${bean.name}", Object.class);
+        for (int i = 0; i < 10; i++)
+            assertEquals("ANA", expression.getValue(context));
+    }
+
+    @Test
+    void cachedReadsNotifyListeners() {
+        var factory = newFactory(4);
+        var customer = new Customer("Ana", 36);
+        var context = newContext(factory, new BeanELResolver(), customer);
+        var resolved = new ArrayList<Object>();
+        context.addEvaluationListener(new EvaluationListener() {
+            @Override
+            public void propertyResolved(ELContext context, Object base, Object property) {
+                resolved.add(property);
+            }
+        });
+        var expression = factory.createValueExpression(context, "${bean.age + bean.age}", Object.class);
+        for (int i = 0; i < 3; i++)
+            assertEquals(72L, expression.getValue(context));
+        assertEquals(List.of("age", "age", "age", "age", "age", "age"), resolved);
+    }
+}
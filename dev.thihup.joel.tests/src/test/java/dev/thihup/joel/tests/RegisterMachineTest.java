@@ -0,0 +1,83 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.PropertyNotFoundException;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newContext;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that expressions run by the register machine evaluate exactly like the trees they are lowered from.
+ */
+class RegisterMachineTest {
+
+    private static final ExpressionFactory TREES = newFactory("dev.thihup.joel.registerMachine", "false",
+            "dev.thihup.joel.polymorphismLimit", "0");
+    private static final ExpressionFactory REGISTERS = newFactory("dev.thihup.joel.registerMachine", "true",
+            "dev.thihup.joel.polymorphismLimit", "0");
+    private static final ExpressionFactory SPECIALIZING_REGISTERS = newFactory("dev.thihup.joel.registerMachine", "true",
+            "dev.thihup.joel.polymorphismLimit", "2");
+
+    @Test
+    void operators() {
+        String[] expressions = {
+                "${user.name += ' is ' += user.age}",
+                "${user.age > 30 and user.name == 'Ada' ? 'yes' : 'no'}",
+                "${user.age >= 36 && user.age <= 36 && user.age != 35 && !(user.age < 36)}",
+                "${none.missing or empty none ? -user.age % 5 : 0}",
+                "${items[1] * 2 - items[0] / 4 + items.size()}",
+                "${false && none.missing}",
+                "${true || none.missing}",
+                "${none.missing.deeper}",
+                "${missing.property + 1}",
+                "${customer.missing}",
+                "${customer.name.length() + customer.age}",
+                "${user['na' += 'me'].length()}",
+                "${user[none]}",
+                "${items.get(1 + 1) * items.size()}",
+                "${items.stream().map(x -> x * user.age).toList()}",
+                "${x = 4; y = x + 1; x * y}",
+                "${(x -> x > 2 ? x : -x)(user.age)}",
+                "${Boolean.TRUE && user.age > 1}",
+                "Hello ${user.name}, ${items.stream().map(x -> x * 2).toList()}",
+        };
+        for (String expression : expressions) {
+            assertEquals(eval(TREES, expression), eval(REGISTERS, expression), expression);
+            assertEquals(eval(TREES, expression), eval(SPECIALIZING_REGISTERS, expression), expression);
+        }
+    }
+
+    @Test
+    void missingPropertiesAreReportedWithTheirPath() {
+        var context = newContext(REGISTERS);
+        var expression = REGISTERS.createValueExpression(context, "${1 + missing.property}", Object.class);
+        var exception = assertThrows(PropertyNotFoundException.class, () -> expression.getValue(context));
+        assertEquals("missing.property", exception.getMessage());
+    }
+
+    @Test
+    void registerProgramsAreSerializable() throws IOException, ClassNotFoundException {
+        var context = newContext(REGISTERS);
+        var expression = REGISTERS.createValueExpression(context, "${user.age * 2 > 10 ? user.name : 'x'}", Object.class);
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(expression);
+        }
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            var copy = (ValueExpression) input.readObject();
+            assertEquals(expression, copy);
+            assertEquals("Ada", copy.getValue(context));
+        }
+    }
+}
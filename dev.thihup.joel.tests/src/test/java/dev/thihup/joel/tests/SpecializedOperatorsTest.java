@@ -0,0 +1,67 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static dev.thihup.joel.tests.Differential.eval;
+import static dev.thihup.joel.tests.Differential.newFactory;
+import static dev.thihup.joel.tests.Differential.type;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that operators specialized for {@code Long} operands evaluate like the generic ones, whatever the values.
+ */
+class SpecializedOperatorsTest {
+
+    private static final ExpressionFactory GENERIC = newFactory("dev.thihup.joel.specializeOperators", "false");
+    private static final ExpressionFactory SPECIALIZED = newFactory("dev.thihup.joel.specializeOperators", "true");
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%", "==", "!=", "<", "<=", ">", ">="};
+    private static final String[] OPERANDS = {"i", "l", "d", "bd", "bi", "s", "n", "b", "3", "0", "-7", "2.5"};
+
+    private static ELContext newContext(ExpressionFactory factory) {
+        var context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("i", factory.createValueExpression(12, Integer.class));
+        variables.setVariable("l", factory.createValueExpression(Long.MAX_VALUE, Long.class));
+        variables.setVariable("d", factory.createValueExpression(1.5, Double.class));
+        variables.setVariable("bd", factory.createValueExpression(new BigDecimal("2.25"), BigDecimal.class));
+        variables.setVariable("bi", factory.createValueExpression(BigInteger.TEN, BigInteger.class));
+        variables.setVariable("s", factory.createValueExpression("4", String.class));
+        variables.setVariable("n", factory.createValueExpression(null, Object.class));
+        variables.setVariable("b", factory.createValueExpression(true, Boolean.class));
+        variables.setVariable("items", factory.createValueExpression(List.of(1L, 2L, 3L), List.class));
+        variables.setVariable("user", factory.createValueExpression(Map.of("age", 36L), Map.class));
+        return context;
+    }
+
+    static Stream<String> expressions() {
+        var binary = Stream.of(OPERATORS).flatMap(operator -> Stream.of(OPERANDS).flatMap(left -> Stream.of(OPERANDS)
+                .map(right -> "${" + left + " " + operator + " " + right + "}")));
+        var nested = Stream.of(OPERATORS).flatMap(operator -> Stream.of(OPERANDS).map(operand ->
+                "${(" + operand + " " + operator + " 2) " + operator + " (1 " + operator + " " + operand + ")}"));
+        var others = Stream.of(
+                "${items.stream().map(x -> x * 2 + 1).filter(x -> x % 3 == 0).toList()}",
+                "${user.age > 30 ? user.age - 30 : 30 - user.age}",
+                "${(b ? 1 : 2) + i}",
+                "${-(b ? 1 : 2) * l}",
+                "${items[0] + items[1] / 2 >= 1; items.size() * 3}");
+        return Stream.of(binary, nested, others).flatMap(stream -> stream);
+    }
+
+    @ParameterizedTest
+    @MethodSource("expressions")
+    void specializedOperatorsEvaluateLikeGenericOnes(String expression) {
+        assertEquals(eval(GENERIC, newContext(GENERIC), expression), eval(SPECIALIZED, newContext(SPECIALIZED), expression), expression);
+        assertEquals(type(GENERIC, newContext(GENERIC), expression), type(SPECIALIZED, newContext(SPECIALIZED), expression), expression);
+    }
+}
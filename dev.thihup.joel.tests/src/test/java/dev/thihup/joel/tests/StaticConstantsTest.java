@@ -0,0 +1,93 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.PropertyNotFoundException;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that constants bound on their first evaluation follow the variables and imports of later contexts.
+ */
+class StaticConstantsTest {
+
+    private final ExpressionFactory factory = ExpressionFactory.newInstance();
+
+    private ELContext newContext(String... packages) {
+        var context = new StandardELContext(factory);
+        for (String packageName : packages)
+            context.getImportHandler().importPackage(packageName);
+        return context;
+    }
+
+    @Test
+    void constantsAreReadOnEveryEvaluation() {
+        var context = newContext("java.time");
+        var maxValue = factory.createValueExpression(context, "${Integer.MAX_VALUE}", Object.class);
+        var monday = factory.createValueExpression(context, "${DayOfWeek.MONDAY}", Object.class);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Integer.MAX_VALUE, maxValue.getValue(context));
+            assertEquals(Integer.MAX_VALUE, maxValue.getValue(newContext()));
+            assertEquals(DayOfWeek.MONDAY, monday.getValue(context));
+        }
+        assertThrows(PropertyNotFoundException.class, () -> monday.getValue(newContext()));
+    }
+
+    @Test
+    void bindingsFollowTheImportsOfEachContext() {
+        var reflection = newContext("java.lang.reflect");
+        var languageModel = newContext("javax.lang.model.element");
+        var expression = factory.createValueExpression(reflection, "${Modifier.PUBLIC}", Object.class);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(java.lang.reflect.Modifier.PUBLIC, expression.getValue(reflection));
+            assertEquals(javax.lang.model.element.Modifier.PUBLIC, expression.getValue(languageModel));
+        }
+    }
+
+    @Test
+    void laterImportsCanChangeTheBoundClass() {
+        var context = newContext("javax.lang.model.element");
+        var expression = factory.createValueExpression(context, "${Modifier.PUBLIC}", Object.class);
+        for (int i = 0; i < 3; i++)
+            assertEquals(javax.lang.model.element.Modifier.PUBLIC, expression.getValue(context));
+        // the import handler resolves the name to the class of the first package it finds it in
+        context.getImportHandler().importClass("java.lang.reflect.Modifier");
+        var expected = ExpressionFactory.newInstance().createValueExpression(context, "${Modifier.PUBLIC}", Object.class).getValue(context);
+        assertEquals(java.lang.reflect.Modifier.PUBLIC, expected);
+        for (int i = 0; i < 3; i++)
+            assertEquals(expected, expression.getValue(context));
+    }
+
+    @Test
+    void variablesStillShadowBoundClasses() {
+        var context = newContext();
+        var expression = factory.createValueExpression(context, "${Integer.MAX_VALUE}", Object.class);
+        assertEquals(Integer.MAX_VALUE, expression.getValue(context));
+        context.getVariableMapper().setVariable("Integer", factory.createValueExpression(Map.of("MAX_VALUE", "shadowed"), Map.class));
+        assertEquals("shadowed", expression.getValue(context));
+    }
+
+    @Test
+    void staticallyImportedConstants() {
+        var context = newContext();
+        context.getImportHandler().importStatic("java.lang.Long.MAX_VALUE");
+        var expression = factory.createValueExpression(context, "${MAX_VALUE - 1}", Object.class);
+        for (int i = 0; i < 3; i++)
+            assertEquals(Long.MAX_VALUE - 1, expression.getValue(context));
+        assertThrows(PropertyNotFoundException.class, () -> expression.getValue(newContext()));
+    }
+
+    @Test
+    void nonConstantsAreNotBound() {
+        var context = newContext("java.util");
+        var expression = factory.createValueExpression(context, "${Collections.EMPTY_LIST.size() + Integer.SIZE}", Object.class);
+        assertEquals(32L, expression.getValue(context));
+        assertEquals(32L, expression.getValue(context));
+    }
+}
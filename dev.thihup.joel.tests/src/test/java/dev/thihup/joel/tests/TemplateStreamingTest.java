@@ -0,0 +1,174 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.CharBuffer;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TemplateStreamingTest {
+
+    private static final String[] FRAGMENTS = {
+            "Lorem ipsum dolor sit amet, ", "\n", "${1 + 2}", "#", "$", "\\${x}", "\\#{y}", "a$b", "$$", "##",
+            "${'}' += \"{\"}", "${{1: [2, 3]}}", "${x -> x * 2}", "${empty null ? 'yes' : 'no'}", "\\", "}{", "price: $10",
+    };
+
+    private static ExpressionFactory factory;
+    private static ExpressionFactory uncached;
+    private static ELContext context;
+
+    @BeforeAll
+    static void requiresJoel() {
+        factory = ExpressionFactory.newInstance();
+        assumeTrue(factory.getClass().getName().startsWith("dev.thihup.joel"));
+        context = new StandardELContext(factory);
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.cacheSize", "0");
+        uncached = ExpressionFactory.newInstance(properties);
+    }
+
+    private static ValueExpression createTemplateExpression(Class<?> templateType, Object template) {
+        return createTemplateExpression(factory, templateType, template);
+    }
+
+    private static ValueExpression createTemplateExpression(ExpressionFactory factory, Class<?> templateType, Object template) {
+        try {
+            var method = factory.getClass().getMethod("createTemplateExpression", ELContext.class, templateType, Class.class);
+            return (ValueExpression) method.invoke(factory, context, template, Object.class);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new AssertionError(e);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static long cacheStat(String name) {
+        try {
+            var stats = factory.getClass().getMethod("getCacheStats").invoke(factory);
+            return (long) stats.getClass().getMethod(name).invoke(stats);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static String randomTemplate(Random random, int length) {
+        var template = new StringBuilder();
+        while (template.length() < length) {
+            if (random.nextInt(10) == 0)
+                template.append(".".repeat(random.nextInt(3000)));
+            else
+                template.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return template.toString();
+    }
+
+    @Test
+    void streamedTemplatesMatchParsedStrings() {
+        var random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            var template = randomTemplate(random, random.nextInt(40_000));
+            var expected = factory.createValueExpression(context, template, Object.class);
+            assertEquals(expected, createTemplateExpression(Reader.class, new StringReader(template)));
+            assertEquals(expected, createTemplateExpression(CharSequence.class, CharBuffer.wrap(template)));
+            // without a cache to look up, the template is parsed as it is read
+            assertEquals(expected, createTemplateExpression(uncached, Reader.class, new StringReader(template)));
+        }
+    }
+
+    @Test
+    void streamedTemplatesShareTheCachedTree() {
+        var template = "Streamed ${'once'}" + ".".repeat(30_000);
+        var expression = createTemplateExpression(Reader.class, new StringReader(template));
+        long misses = cacheStat("missCount");
+        long hits = cacheStat("hitCount");
+        assertEquals(expression, createTemplateExpression(Reader.class, new StringReader(template)));
+        assertEquals(expression, createTemplateExpression(CharSequence.class, template));
+        assertEquals(misses, cacheStat("missCount"));
+        assertEquals(hits + 2, cacheStat("hitCount"));
+    }
+
+    @Test
+    void streamedTemplatesEvaluate() {
+        var template = ("Total: ${2 * 21}" + " ".repeat(100)).repeat(500);
+        var expression = createTemplateExpression(Reader.class, new StringReader(template));
+        assertEquals(("Total: 42" + " ".repeat(100)).repeat(500), expression.getValue(context));
+        assertEquals(expression, createTemplateExpression(CharSequence.class, CharBuffer.wrap(template)));
+    }
+
+    @Test
+    void randomTemplatesPrintTheirSource() {
+        var random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            var template = randomTemplate(random, random.nextInt(200));
+            var expression = createTemplateExpression(CharSequence.class, template);
+            assertEquals(expression, factory.createValueExpression(context, expression.getExpressionString(), Object.class), template);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("dev.thihup.joel.tests.ParserEquivalenceTest#expressions")
+    void templatesPrintTheirSource(String template) {
+        ValueExpression expression;
+        try {
+            expression = createTemplateExpression(CharSequence.class, template);
+        } catch (RuntimeException invalidTemplate) {
+            return;
+        }
+        var source = expression.getExpressionString();
+        assertSame(source, expression.getExpressionString());
+        assertEquals(expression, factory.createValueExpression(context, source, Object.class), source);
+    }
+
+    @Test
+    void syntaxErrorsAreReported() {
+        var template = "x".repeat(20_000) + "${1 +}" + "y".repeat(20_000);
+        assertThrows(ELException.class, () -> createTemplateExpression(Reader.class, new StringReader(template)));
+        assertThrows(ELException.class, () -> createTemplateExpression(Reader.class, new StringReader("${'unterminated")));
+        assertThrows(ELException.class, () -> createTemplateExpression(uncached, Reader.class, new StringReader(template)));
+        assertThrows(ELException.class, () -> createTemplateExpression(uncached, Reader.class, new StringReader("${'unterminated")));
+        assertThrows(ELException.class, () -> createTemplateExpression(uncached, Reader.class, new StringReader("${a &")));
+    }
+
+    @Test
+    void streamedSyntaxErrorsAreReportedWithoutReadingTheRest() {
+        var reader = new Reader() {
+            private final String prefix = "Hello ${1 +} ";
+            private long position;
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                if (position > 1_000_000)
+                    throw new IOException("Read past the syntax error");
+                for (int i = 0; i < length; i++, position++)
+                    buffer[offset + i] = position < prefix.length() ? prefix.charAt((int) position) : 'x';
+                return length;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var error = assertThrows(ELException.class, () -> createTemplateExpression(uncached, Reader.class, reader));
+        assertNull(error.getCause(), () -> String.valueOf(error.getCause()));
+    }
+}
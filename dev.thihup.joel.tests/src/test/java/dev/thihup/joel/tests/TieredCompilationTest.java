@@ -0,0 +1,112 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TieredCompilationTest {
+
+    private static final int THRESHOLD = 100;
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private static ExpressionFactory newFactory(int threshold) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.compiler", "bytecode");
+        properties.setProperty("dev.thihup.joel.compileThreshold", String.valueOf(threshold));
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static StandardELContext newContext(ExpressionFactory factory) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("a", factory.createValueExpression(6L, Long.class));
+        context.getVariableMapper().setVariable("b", factory.createValueExpression(7L, Long.class));
+        return context;
+    }
+
+    private static Object invoke(Object target, String name) {
+        try {
+            return target.getClass().getMethod(name).invoke(target);
+        } catch (InvocationTargetException | IllegalAccessException | NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static long stat(ExpressionFactory factory, String name) {
+        return (long) invoke(invoke(factory, "getCompilerStats"), name);
+    }
+
+    /**
+     * Waits for the background compilations submitted so far, and returns the number of expressions promoted.
+     */
+    private static long promotedCount(ExpressionFactory factory) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (stat(factory, "pendingCount") > 0 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+        assertEquals(0, stat(factory, "pendingCount"));
+        return stat(factory, "promotedCount");
+    }
+
+    @Test
+    void hotExpressionsAreCompiledInTheBackground() throws InterruptedException {
+        var factory = newFactory(THRESHOLD);
+        var context = newContext(factory);
+        var expression = factory.createValueExpression(context, "${a * b + 1}", Long.class);
+        for (int i = 1; i < THRESHOLD; i++)
+            assertEquals(43L, expression.getValue(context));
+        assertEquals(0, promotedCount(factory));
+
+        assertEquals(43L, expression.getValue(context));
+        assertEquals(1, promotedCount(factory));
+        assertTrue(stat(factory, "totalCompileTime") > 0);
+        for (int i = 0; i < THRESHOLD; i++)
+            assertEquals(43L, expression.getValue(context));
+        assertEquals(1, promotedCount(factory));
+    }
+
+    @Test
+    void evaluationsOfTheSameTextAreCountedTogether() throws InterruptedException {
+        var factory = newFactory(THRESHOLD);
+        var context = newContext(factory);
+        for (int i = 0; i < THRESHOLD; i++)
+            assertEquals(false, factory.createValueExpression(context, "${a > b}", Boolean.class).getValue(context));
+        assertEquals(1, promotedCount(factory));
+    }
+
+    @Test
+    void interpretedRootsAreNeverSubmitted() throws InterruptedException {
+        var factory = newFactory(THRESHOLD);
+        var context = newContext(factory);
+        var literal = factory.createValueExpression(context, "literal text", String.class);
+        var lambda = factory.createValueExpression(context, "${(x -> x + a)(b)}", Long.class);
+        // larger than the bytecode compiler takes
+        var large = factory.createValueExpression(context, "${[" + "a, ".repeat(5000) + "b].size()}", Long.class);
+        for (int i = 0; i < THRESHOLD * 2; i++) {
+            assertEquals("literal text", literal.getValue(context));
+            assertEquals(13L, lambda.getValue(context));
+            assertEquals(5001L, large.getValue(context));
+        }
+        assertEquals(0, promotedCount(factory));
+        assertEquals(0, stat(factory, "failedCount"));
+    }
+
+    @Test
+    void zeroThresholdCompilesWhenParsing() throws InterruptedException {
+        var factory = newFactory(0);
+        var context = newContext(factory);
+        var expression = factory.createValueExpression(context, "${a * b + 1}", Long.class);
+        assertEquals(1, promotedCount(factory));
+        assertEquals(43L, expression.getValue(context));
+    }
+}
@@ -0,0 +1,114 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that operators specializing themselves to the values they see evaluate like the generic ones, however the
+ * classes of the values change from one evaluation of the same tree to the next.
+ */
+class TypeFeedbackTest {
+
+    private static final ExpressionFactory GENERIC = newFactory(0);
+
+    private static final String[] OPERATORS = {"+", "-", "*", "/", "%", "==", "!=", "<", "<=", ">", ">="};
+    private static final Object[] VALUES = {12, 3L, Long.MAX_VALUE, (short) -4, (byte) 0, 1.5, -0.0, Double.NaN, 2.5f,
+            new BigDecimal("2.25"), BigInteger.TEN, "4", "2.5", null, true, 'a'};
+
+    private static ExpressionFactory newFactory(int polymorphismLimit) {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.polymorphismLimit", String.valueOf(polymorphismLimit));
+        return ExpressionFactory.newInstance(properties);
+    }
+
+    private static ELContext newContext(ExpressionFactory factory, Object left, Object right) {
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("x", factory.createValueExpression(left, Object.class));
+        context.getVariableMapper().setVariable("y", factory.createValueExpression(right, Object.class));
+        return context;
+    }
+
+    private static Object eval(ExpressionFactory factory, ValueExpression expression, Object left, Object right) {
+        try {
+            return expression.getValue(newContext(factory, left, right));
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+
+    private static Object expected(String expression, Object left, Object right) {
+        var context = newContext(GENERIC, left, right);
+        return eval(GENERIC, GENERIC.createValueExpression(context, expression, Object.class), left, right);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 1000})
+    void specializedOperatorsEvaluateLikeGenericOnes(int polymorphismLimit) {
+        var factory = newFactory(polymorphismLimit);
+        for (var operator : OPERATORS) {
+            var text = "${x " + operator + " y}";
+            var expression = factory.createValueExpression(newContext(factory, null, null), text, Object.class);
+            // twice, so that the second round goes through the cases learnt in the first one
+            for (int round = 0; round < 2; round++) {
+                for (var left : VALUES) {
+                    for (var right : VALUES)
+                        assertEquals(expected(text, left, right), eval(factory, expression, left, right), text + " with " + left + ", " + right);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nestedOperatorsSpecializeIndependently() {
+        var factory = newFactory(2);
+        var text = "${(x + 1) * (y - 0.5) > x / y}";
+        var expression = factory.createValueExpression(newContext(factory, null, null), text, Object.class);
+        for (int round = 0; round < 3; round++) {
+            for (var left : VALUES) {
+                for (var right : VALUES)
+                    assertEquals(expected(text, left, right), eval(factory, expression, left, right), text + " with " + left + ", " + right);
+            }
+        }
+    }
+
+    @Test
+    void sharedTreesSpecializeConcurrently() throws InterruptedException, ExecutionException {
+        var factory = newFactory(3);
+        var text = "${x * y + x - y}";
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var results = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < 4; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 2_000; i++) {
+                        var left = VALUES[(i + offset) % 7];
+                        var right = VALUES[(i * offset) % 6];
+                        var expression = factory.createValueExpression(newContext(factory, left, right), text, Object.class);
+                        assertEquals(expected(text, left, right), eval(factory, expression, left, right), text + " with " + left + ", " + right);
+                    }
+                    return null;
+                }));
+            }
+            for (var result : results)
+                result.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.thihup.joel.tests;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class WarmUpTest {
+
+    private static final String MANIFEST = "dev/thihup/joel/tests/expressions.txt";
+
+    @BeforeAll
+    static void requiresJoel() {
+        assumeTrue(ExpressionFactory.newInstance().getClass().getName().startsWith("dev.thihup.joel"));
+    }
+
+    private static Object invoke(Object target, String name, Class<?>[] parameterTypes, Object... arguments) {
+        try {
+            return target.getClass().getMethod(name, parameterTypes).invoke(target, arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new AssertionError(e);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int warmUp(ExpressionFactory factory, Object expressions, int evaluations) {
+        var expressionsType = expressions instanceof String ? String.class : Collection.class;
+        return (int) invoke(factory, "warmUp", new Class<?>[]{expressionsType, int.class}, expressions, evaluations);
+    }
+
+    private static long hitCount(ExpressionFactory factory) {
+        var stats = invoke(factory, "getCacheStats", new Class<?>[0]);
+        return (long) invoke(stats, "hitCount", new Class<?>[0]);
+    }
+
+    @Test
+    void warmedUpExpressionsAreCached() {
+        var factory = ExpressionFactory.newInstance();
+        var expressions = IntStream.range(0, 500).mapToObj("${%d * factor + 1}"::formatted).toList();
+        assertEquals(expressions.size(), warmUp(factory, expressions, 3));
+
+        var context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("factor", factory.createValueExpression(2L, Long.class));
+        long hits = hitCount(factory);
+        for (int i = 0; i < expressions.size(); i++)
+            assertEquals(i * 2L + 1, factory.createValueExpression(context, expressions.get(i), Long.class).getValue(context));
+        assertEquals(hits + expressions.size(), hitCount(factory));
+    }
+
+    @Test
+    void invalidExpressionsAreSkipped() {
+        var factory = ExpressionFactory.newInstance();
+        assertEquals(2, warmUp(factory, List.of("${1 +}", "${a.b(c)}", "${missing.property}", "${a.b(c)}"), 10));
+        assertEquals(1, warmUp(factory, List.of("${a instanceof b}", "${1+1}"), 0));
+    }
+
+    @Test
+    void dryEvaluationsDoNotCallTheApplication() {
+        var factory = ExpressionFactory.newInstance();
+        var expression = "${System.out.print('side effect')}";
+        var previous = System.out;
+        var output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            var context = new StandardELContext(factory);
+            factory.createValueExpression(context, expression, Object.class).getValue(context);
+            assertEquals("side effect", output.toString(StandardCharsets.UTF_8));
+            assertEquals(2, warmUp(factory, List.of(expression, "${System.exit(0)}"), 100));
+            assertEquals("side effect", output.toString(StandardCharsets.UTF_8));
+        } finally {
+            System.setOut(previous);
+        }
+    }
+
+    @Test
+    void manifestsAreReadFromTheClassPath() {
+        var factory = ExpressionFactory.newInstance();
+        int parsed = warmUp(factory, MANIFEST, 1);
+        assertTrue(parsed > 1000, () -> parsed + " expressions parsed");
+        assertEquals(0, warmUp(factory, "dev/thihup/joel/tests/missing.txt", 1));
+    }
+
+    @Test
+    void negativeEvaluations() {
+        var factory = ExpressionFactory.newInstance();
+        assertThrows(IllegalArgumentException.class, () -> warmUp(factory, List.of("${1}"), -1));
+    }
+}
@@ -0,0 +1,52 @@
+package dev.thihup.joel.tests.benchmark;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+@State(Scope.Benchmark)
+public class CompilerBenchmark {
+
+    @Param({"none", "bytecode", "method_handles"})
+    public String compiler;
+
+    @Param({
+            "${(a + b) * a - b % 7 > 100 and a != b ? a * 2 + b : b - a}",
+            "${user.age > 30 and user.name == 'Ada' ? user.name += '!' : 'nobody'}",
+            "Hello ${user.name}, you have ${items[0] + items[1] + items[2]} new messages",
+    })
+    public String expression;
+
+    private StandardELContext context;
+    private ValueExpression valueExpression;
+
+    @Setup
+    public void setUp() {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.compiler", compiler);
+        var factory = ExpressionFactory.newInstance(properties);
+        context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        variables.setVariable("items", factory.createValueExpression(List.of(1L, 2L, 3L), List.class));
+        variables.setVariable("a", factory.createValueExpression(17L, Long.class));
+        variables.setVariable("b", factory.createValueExpression(5L, Long.class));
+        valueExpression = factory.createValueExpression(context, expression, Object.class);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Object evaluate() {
+        return valueExpression.getValue(context);
+    }
+}
@@ -0,0 +1,50 @@
+package dev.thihup.joel.tests.benchmark;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Properties;
+
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"antlr", "pratt"})
+    public String parser;
+
+    @Param({
+            "${1+1}",
+            "Hello ${user.firstName} ${user.lastName}, you have ${messages.size()} new messages",
+            "${a.b[c] > 3 && !empty d ? fn:join(e, ', ') : (x, y) -> x * y + {1: [2, 3]}}",
+            "Dear ${customer.name}, thank you for your order placed on ${order.date}. We are happy to let you know that "
+                    + "all of its items have been shipped and should arrive within a few business days. You can follow "
+                    + "the delivery at any time from the orders page of your account. The total amount of "
+                    + "${order.total} has been charged to your card ending in ${order.card.lastDigits}. If anything "
+                    + "is wrong with your order, simply reply to this message and our team will get back to you."
+    })
+    public String expression;
+
+    private ExpressionFactory factory;
+    private StandardELContext context;
+
+    @Setup
+    public void setUp() {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.parser", parser);
+        properties.setProperty("dev.thihup.joel.cacheSize", "0");
+        factory = ExpressionFactory.newInstance(properties);
+        context = new StandardELContext(factory);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void parse(Blackhole blackhole) {
+        blackhole.consume(factory.createValueExpression(context, expression, Object.class));
+    }
+}
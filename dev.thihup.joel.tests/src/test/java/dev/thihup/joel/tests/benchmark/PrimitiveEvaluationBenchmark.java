@@ -0,0 +1,69 @@
+package dev.thihup.joel.tests.benchmark;
+
+import jakarta.el.ELContext;
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Compares evaluating arithmetic and predicates to a boxed value and to a primitive; run with {@code -prof gc} to see
+ * the allocations of the boxed intermediate results.
+ */
+@State(Scope.Benchmark)
+public class PrimitiveEvaluationBenchmark {
+
+    @Param({
+            "${(a + b) * a - b % 7}",
+            "${(a + b) * a - b % 7 > 100 and a != b}",
+    })
+    public String expression;
+
+    private StandardELContext context;
+    private ValueExpression valueExpression;
+    private MethodHandle getLong;
+    private MethodHandle getBoolean;
+    private boolean predicate;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        var factory = ExpressionFactory.newInstance();
+        context = new StandardELContext(factory);
+        var variables = context.getVariableMapper();
+        variables.setVariable("a", factory.createValueExpression(17L, Long.class));
+        variables.setVariable("b", factory.createValueExpression(5L, Long.class));
+        valueExpression = factory.createValueExpression(context, expression, Object.class);
+        predicate = valueExpression.getValue(context) instanceof Boolean;
+        var primitive = Class.forName("dev.thihup.joel.impl.spi.PrimitiveValueExpression");
+        var lookup = MethodHandles.publicLookup();
+        getLong = lookup.findVirtual(primitive, "getLong", MethodType.methodType(long.class, ELContext.class))
+                .asType(MethodType.methodType(long.class, ValueExpression.class, ELContext.class));
+        getBoolean = lookup.findVirtual(primitive, "getBoolean", MethodType.methodType(boolean.class, ELContext.class))
+                .asType(MethodType.methodType(boolean.class, ValueExpression.class, ELContext.class));
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Object boxed() {
+        return valueExpression.getValue(context);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public void primitive(Blackhole blackhole) throws Throwable {
+        if (predicate)
+            blackhole.consume((boolean) getBoolean.invokeExact(valueExpression, (ELContext) context));
+        else
+            blackhole.consume((long) getLong.invokeExact(valueExpression, (ELContext) context));
+    }
+}
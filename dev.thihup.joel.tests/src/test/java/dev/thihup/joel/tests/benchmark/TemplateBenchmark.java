@@ -0,0 +1,50 @@
+package dev.thihup.joel.tests.benchmark;
+
+import jakarta.el.ExpressionFactory;
+import jakarta.el.StandardELContext;
+import jakarta.el.ValueExpression;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Evaluates templates alternating literal text and expressions; run with {@code -prof gc} to see how the allocations
+ * grow with the number of segments.
+ */
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int segments;
+
+    @Param({"none", "bytecode"})
+    public String compiler;
+
+    private StandardELContext context;
+    private ValueExpression valueExpression;
+
+    @Setup
+    public void setUp() {
+        var properties = new Properties();
+        properties.setProperty("dev.thihup.joel.compiler", compiler);
+        var factory = ExpressionFactory.newInstance(properties);
+        context = new StandardELContext(factory);
+        context.getVariableMapper().setVariable("user", factory.createValueExpression(Map.of("name", "Ada", "age", 36L), Map.class));
+        var template = new StringBuilder();
+        for (int i = 0; i < segments; i++)
+            template.append(i % 2 == 0 ? "<td>" : i % 4 == 1 ? "${user.name}" : "${user.age}");
+        valueExpression = factory.createValueExpression(context, template.toString(), String.class);
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Object evaluate() {
+        return valueExpression.getValue(context);
+    }
+}
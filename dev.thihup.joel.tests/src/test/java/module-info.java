@@ -3,5 +3,6 @@ open module dev.thihup.joel.tests {
     requires org.junit.jupiter.api;
     requires org.junit.jupiter.params;
     requires jakarta.el;
+    requires java.compiler;
     requires jmh.core;
 }
@@ -27,6 +27,7 @@ public final class JoelMethodExpression extends MethodExpression {
     private final Class<?> expectedReturnType;
     private final Class<?>[] expectedParameterTypes;
     private final String expression;
+    private int hash;
 
     private JoelMethodExpression(String expression, Node node, Class<?> expectedReturnType, Class<?>[] expectedParameterTypes) {
         this.expression = expression;
@@ -106,8 +107,12 @@ public final class JoelMethodExpression extends MethodExpression {
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(node, expectedReturnType);
-        result = 31 * result + Arrays.hashCode(expectedParameterTypes);
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hash(node, expectedReturnType);
+            result = 31 * result + Arrays.hashCode(expectedParameterTypes);
+            hash = result;
+        }
         return result;
     }
 
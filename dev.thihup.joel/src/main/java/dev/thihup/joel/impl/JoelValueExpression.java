@@ -2,11 +2,14 @@ package dev.thihup.joel.impl;
 
 import dev.thihup.joel.impl.node.ObjectNode;
 import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.CompiledNode;
 import dev.thihup.joel.impl.node.Node;
 import dev.thihup.joel.impl.node.IdentifierNode;
 import dev.thihup.joel.impl.node.LambdaNode;
 import dev.thihup.joel.impl.node.MemberNode;
 import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.parser.TemplateScanner;
+import dev.thihup.joel.impl.spi.PrimitiveValueExpression;
 import jakarta.el.ELContext;
 import jakarta.el.PropertyNotFoundException;
 import jakarta.el.PropertyNotWritableException;
@@ -19,23 +22,39 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.util.Objects;
 
-public final class JoelValueExpression extends ValueExpression {
+public final class JoelValueExpression extends ValueExpression implements PrimitiveValueExpression {
 
     @Serial
     private static final long serialVersionUID = 2278002437607003601L;
 
     private final String expression;
     private final Node node;
+    private final transient Node evaluated;
     private final Class<?> expectedType;
+    private int hash;
+    private String expressionString;
 
-    private JoelValueExpression(String expression, Node node, Class<?> expectedType) {
+    private JoelValueExpression(String expression, Node node, Node evaluated, Class<?> expectedType) {
         this.expression = expression;
         this.node = node;
+        this.evaluated = evaluated;
         this.expectedType = expectedType;
     }
 
+    /**
+     * Creates an expression for {@code node}, which is evaluated by its compiled form when it is a {@link CompiledNode}.
+     */
     public static JoelValueExpression newInstance(String expression, Node node, Class<?> expectedType) {
-        return new JoelValueExpression(expression, node, expectedType);
+        if (node instanceof CompiledNode compiledNode)
+            return new JoelValueExpression(expression, compiledNode.node(), compiledNode, expectedType);
+        return new JoelValueExpression(expression, node, node, expectedType);
+    }
+
+    /**
+     * Returns the tree of this expression, without its compiled form.
+     */
+    public Node node() {
+        return node;
     }
 
     @Override
@@ -43,9 +62,18 @@ public final class JoelValueExpression extends ValueExpression {
         return node instanceof StringNode;
     }
 
+    /**
+     * Returns the original expression, or for templates created without retaining their text, a template printed from
+     * the tree once.
+     */
     @Override
     public String getExpressionString() {
-        return expression;
+        var result = expressionString;
+        if (result == null) {
+            result = expression != null ? expression : TemplateScanner.source(node);
+            expressionString = result;
+        }
+        return result;
     }
 
     @Override
@@ -61,16 +89,52 @@ public final class JoelValueExpression extends ValueExpression {
     @Override
     public Object getValue(ELContext context) {
         try {
-            context.notifyBeforeEvaluation(expression);
-            if (node instanceof LambdaNode lambdaNode && lambdaNode.parameters().isEmpty()) {
-                return context.convertToType(lambdaNode.expression().getValue(context), expectedType);
-            }
-            return context.convertToType(node.getValue(context), expectedType);
+            context.notifyBeforeEvaluation(getExpressionString());
+            return context.convertToType(body().getValue(context), expectedType);
+        } finally {
+            context.notifyAfterEvaluation(getExpressionString());
+        }
+    }
+
+    @Override
+    public long getLong(ELContext context) {
+        try {
+            context.notifyBeforeEvaluation(getExpressionString());
+            return body().getLong(context);
+        } finally {
+            context.notifyAfterEvaluation(getExpressionString());
+        }
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        try {
+            context.notifyBeforeEvaluation(getExpressionString());
+            return body().getDouble(context);
+        } finally {
+            context.notifyAfterEvaluation(getExpressionString());
+        }
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        try {
+            context.notifyBeforeEvaluation(getExpressionString());
+            return body().getBoolean(context);
         } finally {
-            context.notifyAfterEvaluation(expression);
+            context.notifyAfterEvaluation(getExpressionString());
         }
     }
 
+    /**
+     * Returns the node evaluating the expression: the body of a lambda without parameters is evaluated right away.
+     */
+    private Node body() {
+        if (node instanceof LambdaNode lambdaNode && lambdaNode.parameters().isEmpty())
+            return lambdaNode.expression();
+        return evaluated;
+    }
+
     @Override
     public boolean isReadOnly(ELContext context) {
         if (node instanceof MemberNode memberNode) {
@@ -107,7 +171,12 @@ public final class JoelValueExpression extends ValueExpression {
 
     @Override
     public int hashCode() {
-        return Objects.hash(node, expectedType);
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hash(node, expectedType);
+            hash = result;
+        }
+        return result;
     }
 
     @Override
@@ -120,7 +189,7 @@ public final class JoelValueExpression extends ValueExpression {
 
     @Override
     public String toString() {
-        return expression;
+        return getExpressionString();
     }
 
     @Serial
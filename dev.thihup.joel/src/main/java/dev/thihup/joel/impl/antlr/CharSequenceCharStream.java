@@ -0,0 +1,71 @@
+package dev.thihup.joel.impl.antlr;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * {@link CharStream} reading a {@link CharSequence} in place, indexed by UTF-16 code units so that indices match the
+ * ones of {@link String}, unlike {@code CharStreams.fromString} which copies the text into code points.
+ */
+final class CharSequenceCharStream implements CharStream {
+    private final CharSequence text;
+    private int index;
+
+    CharSequenceCharStream(CharSequence text) {
+        this.text = text;
+    }
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b + 1, text.length());
+        return start >= stop ? "" : text.subSequence(start, stop).toString();
+    }
+
+    @Override
+    public void consume() {
+        if (index >= text.length())
+            throw new IllegalStateException("cannot consume EOF");
+        index++;
+    }
+
+    @Override
+    public int LA(int offset) {
+        if (offset == 0)
+            return 0;
+        int position = offset < 0 ? index + offset : index + offset - 1;
+        if (position < 0 || position >= text.length())
+            return IntStream.EOF;
+        return text.charAt(position);
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return index;
+    }
+
+    @Override
+    public void seek(int index) {
+        this.index = Math.min(index, text.length());
+    }
+
+    @Override
+    public int size() {
+        return text.length();
+    }
+
+    @Override
+    public String getSourceName() {
+        return IntStream.UNKNOWN_SOURCE_NAME;
+    }
+}
@@ -16,6 +16,7 @@ import dev.thihup.joel.impl.node.AndNode;
 import dev.thihup.joel.impl.node.AssignNode;
 import dev.thihup.joel.impl.node.BooleanNode;
 import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.CompositeNode;
 import dev.thihup.joel.impl.node.ConcatNode;
 import dev.thihup.joel.impl.node.DeferredExpressionNode;
 import dev.thihup.joel.impl.node.DivExpressionNode;
@@ -29,6 +30,7 @@ import dev.thihup.joel.impl.node.LambdaNode;
 import dev.thihup.joel.impl.node.LessEqualNode;
 import dev.thihup.joel.impl.node.LessThanNode;
 import dev.thihup.joel.impl.node.ListNode;
+import dev.thihup.joel.impl.node.MapNode;
 import dev.thihup.joel.impl.node.MemberNode;
 import dev.thihup.joel.impl.node.ModExpressionNode;
 import dev.thihup.joel.impl.node.MulExpressionNode;
@@ -68,13 +70,15 @@ public final class ExpressionVisitor extends ExpressionLanguageParserBaseVisitor
 
     @Override
     public Node visitCompositeExpression(ExpressionLanguageParser.CompositeExpressionContext ctx) {
-        if (ctx.getChildCount() <= 1)
+        if (ctx.getChildCount() == 0)
+            return new StringNode("");
+        if (ctx.getChildCount() == 1)
             return visit(ctx.getChild(0));
         if (!ctx.deferredExpression().isEmpty() && !ctx.dynamicExpression().isEmpty())
             throw new ELException("Cannot mix dynamic expressions with deferred expression");
-        return ctx.children.stream()
+        return new CompositeNode(ctx.children.stream()
                 .map(this::visit)
-                .reduce(new StringNode(""), ConcatNode::new);
+                .toList());
     }
 
     @Override
@@ -248,6 +252,17 @@ public final class ExpressionVisitor extends ExpressionLanguageParserBaseVisitor
                 .toList());
     }
 
+    @Override
+    public Node visitMapExpression(ExpressionLanguageParser.MapExpressionContext ctx) {
+        var mapEntriesContext = ctx.mapEntries();
+        if (mapEntriesContext == null)
+            return new MapNode(Collections.emptyList(), Collections.emptyList());
+        var entries = mapEntriesContext.mapEntry();
+        return new MapNode(
+                entries.stream().map(entry -> visit(entry.expression(0))).toList(),
+                entries.stream().map(entry -> visit(entry.expression(1))).toList());
+    }
+
     @Override
     public Node visitQualifiedFunction(ExpressionLanguageParser.QualifiedFunctionContext ctx) {
         var expressionList = ctx.arguments().expressionList();
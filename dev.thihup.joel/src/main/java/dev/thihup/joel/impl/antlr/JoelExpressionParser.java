@@ -1,43 +1,79 @@
 package dev.thihup.joel.impl.antlr;
 
-import dev.thihup.joel.impl.node.DeferredExpressionNode;
-import dev.thihup.joel.impl.node.DynamicExpressionNode;
 import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.parser.TemplateScanner;
 import jakarta.el.ELException;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.RecognitionException;
 import org.antlr.v4.runtime.Recognizer;
-
-import java.util.HashMap;
-import java.util.Map;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 
 public final class JoelExpressionParser {
-    private static final Map<String, Node> CACHED_EXPRESSION = new HashMap<>();
     private static final ELErrorListener ERROR_LISTENER = new ELErrorListener();
 
     private JoelExpressionParser() {
     }
 
     public static Node parse(String expression) {
-        return CACHED_EXPRESSION.computeIfAbsent(expression, key -> {
-            var lexer = new ExpressionLanguageLexer(CharStreams.fromString(expression));
-            lexer.removeErrorListeners();
-            lexer.addErrorListener(ERROR_LISTENER);
-            var parser = new ExpressionLanguageParser(new CommonTokenStream(lexer));
-            parser.removeErrorListeners();
+        return TemplateScanner.parse(expression, JoelExpressionParser::segment);
+    }
+
+    public static TemplateScanner.Segment segment(CharSequence template, int start) {
+        // read before the lexer moves the stream, so that the LL retry parses the same kind of segment
+        boolean deferred = template.charAt(start) == '#';
+        var chars = new CharSequenceCharStream(template);
+        chars.seek(start);
+        var lexer = new SegmentLexer(chars);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(ERROR_LISTENER);
+        var parser = new ExpressionLanguageParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+        ParserRuleContext segment;
+        try {
+            segment = segment(parser, deferred);
+        } catch (ParseCancellationException sllFailure) {
+            // SLL either hit a real syntax error or needed full context, reparse with LL to tell them apart
+            parser.reset();
             parser.addErrorListener(ERROR_LISTENER);
-            var prog = parser.prog();
-            Node visit = new ExpressionVisitor().visit(prog);
-            if (visit instanceof DynamicExpressionNode dynamicExpression) {
-                return dynamicExpression.node();
-            }
-            if (visit instanceof DeferredExpressionNode deferredExpression) {
-                return deferredExpression.node();
-            }
-            return visit;
-        });
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            parser.setErrorHandler(new DefaultErrorStrategy());
+            segment = segment(parser, deferred);
+        }
+        return new TemplateScanner.Segment(new ExpressionVisitor().visit(segment), segment.getStop().getStopIndex() + 1);
+    }
+
+    private static ParserRuleContext segment(ExpressionLanguageParser parser, boolean deferred) {
+        return deferred ? parser.deferredExpression() : parser.dynamicExpression();
+    }
+
+    /**
+     * Lexer that stops at the brace closing the segment, so that the literal text after it is never tokenized.
+     */
+    private static final class SegmentLexer extends ExpressionLanguageLexer {
+        private boolean closed;
+
+        private SegmentLexer(CharStream input) {
+            super(input);
+        }
+
+        @Override
+        public Token nextToken() {
+            if (closed)
+                return emitEOF();
+            var token = super.nextToken();
+            if (token.getType() == RCURL && _modeStack.isEmpty())
+                closed = true;
+            return token;
+        }
     }
 
     private static class ELErrorListener extends BaseErrorListener {
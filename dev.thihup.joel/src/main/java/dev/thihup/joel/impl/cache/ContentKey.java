@@ -0,0 +1,145 @@
+package dev.thihup.joel.impl.cache;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Cache key standing for the content of a template without retaining it: a SHA-256 digest of its UTF-16 code units and
+ * its length. Unlike a plain hash, the digest cannot be expected to collide, so two templates with the same key have
+ * the same content.
+ */
+public final class ContentKey {
+    private static final int BUFFER_SIZE = 4096;
+
+    private final byte[] digest;
+    private final long length;
+    private final int hash;
+
+    private ContentKey(byte[] digest, long length) {
+        this.digest = digest;
+        this.length = length;
+        this.hash = ByteBuffer.wrap(digest).getInt();
+    }
+
+    public static ContentKey of(CharSequence content) {
+        var digest = new Digest();
+        for (int start = 0; start < content.length(); start += BUFFER_SIZE) {
+            int end = Math.min(start + BUFFER_SIZE, content.length());
+            for (int i = start; i < end; i++)
+                digest.buffer.putChar(content.charAt(i));
+            digest.flush();
+        }
+        return digest.key(content.length());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ContentKey that && length == that.length && Arrays.equals(digest, that.digest);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ContentKey[length=%d]".formatted(length);
+    }
+
+    /**
+     * Digest of UTF-16 code units fed through a buffer of {@link #BUFFER_SIZE} characters.
+     */
+    private static final class Digest {
+        private final MessageDigest messageDigest;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE * Character.BYTES);
+
+        Digest() {
+            try {
+                messageDigest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // every Java platform is required to support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void flush() {
+            messageDigest.update(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+
+        ContentKey key(long length) {
+            flush();
+            return new ContentKey(messageDigest.digest(), length);
+        }
+    }
+
+    /**
+     * Reader computing the key of everything read through it.
+     */
+    public static final class HashingReader extends FilterReader {
+        private final Digest digest = new Digest();
+        private long length;
+
+        public HashingReader(Reader reader) {
+            super(reader);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                digest.buffer.putChar((char) value);
+                if (!digest.buffer.hasRemaining())
+                    digest.flush();
+                length++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            for (int i = 0; i < read; i++) {
+                digest.buffer.putChar(buffer[offset + i]);
+                if (!digest.buffer.hasRemaining())
+                    digest.flush();
+            }
+            if (read > 0)
+                length += read;
+            return read;
+        }
+
+        /**
+         * Reads and hashes the skipped characters, so that the key still stands for the whole content.
+         */
+        @Override
+        public long skip(long count) throws IOException {
+            if (count < 0)
+                throw new IllegalArgumentException("Negative skip count: " + count);
+            var skipped = new char[(int) Math.min(count, BUFFER_SIZE)];
+            long total = 0;
+            while (total < count) {
+                int read = read(skipped, 0, (int) Math.min(count - total, skipped.length));
+                if (read < 0)
+                    break;
+                total += read;
+            }
+            return total;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        public ContentKey key() {
+            return digest.key(length);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package dev.thihup.joel.impl.cache;
+
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.parser.ParserVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of parsed expressions, shared by every factory and every JVM configured with the same path.
+ * <p>
+ * The file starts with a header made of a magic number, {@link NodeCodec#FORMAT_VERSION} and
+ * {@link ParserVersion#VALUE}, followed by records of the form {@code [length][crc32][key][node]}.
+ * A file whose header does not match is atomically replaced by an empty one, so a new parser or node format never
+ * reads stale trees. The records present when the file is first read are memory-mapped once; records appended later,
+ * by this process or by others, are indexed from heap copies, so appending never remaps the file. Records appended by
+ * other processes are picked up on the next miss. Readers scan under a shared lock and writers append under an
+ * exclusive lock, truncating any torn record left behind by a process that died mid-write. A record whose checksum
+ * does not match ends the scan.
+ * <p>
+ * Input/output failures never fail parsing: the store logs them once and keeps working as a plain parser.
+ */
+public final class ExpressionStore {
+    private static final int MAGIC = 0x4A4F454C;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAXIMUM_OPEN_ATTEMPTS = 3;
+    private static final System.Logger LOGGER = System.getLogger(ExpressionStore.class.getName());
+    private static final Map<Path, ExpressionStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, ByteBuffer> records = new HashMap<>();
+    private boolean mapped;
+    private long end = HEADER_SIZE;
+    private boolean disabled;
+
+    private ExpressionStore(Path path, FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Returns the store backed by {@code path}, creating the file or replacing it when its version is outdated.
+     * Stores are shared within the JVM, since file locks cannot be acquired twice by the same process.
+     */
+    public static ExpressionStore open(Path path) throws IOException {
+        try {
+            return STORES.computeIfAbsent(path.toAbsolutePath().normalize(), key -> {
+                try {
+                    return new ExpressionStore(key, openChannel(key));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        var parent = path.getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        for (int attempt = 0; attempt < MAXIMUM_OPEN_ATTEMPTS; attempt++) {
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean current;
+            try {
+                var lock = channel.lock();
+                try {
+                    if (channel.size() == 0)
+                        writeFully(channel, header(), 0);
+                    current = hasCurrentHeader(channel);
+                    if (!current)
+                        replace(path);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+            if (current)
+                return channel;
+            channel.close();
+        }
+        throw new IOException("%s keeps being replaced by an incompatible version".formatted(path));
+    }
+
+    private static void replace(Path path) throws IOException {
+        var replacement = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+        try (var channel = FileChannel.open(replacement, StandardOpenOption.WRITE)) {
+            writeFully(channel, header(), 0);
+        }
+        Files.move(replacement, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(NodeCodec.FORMAT_VERSION)
+                .putLong(ParserVersion.VALUE)
+                .flip();
+    }
+
+    private static boolean hasCurrentHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE)
+            return false;
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0)
+                return false;
+        }
+        return header.flip().equals(header());
+    }
+
+    /**
+     * Returns the stored tree of {@code expression}, parsing and appending it when it is not stored yet.
+     */
+    public Node get(String expression, Function<String, ? extends Node> parser) {
+        var node = find(expression);
+        if (node != null)
+            return node;
+        node = parser.apply(expression);
+        append(expression, node);
+        return node;
+    }
+
+    private synchronized Node find(String expression) {
+        if (disabled)
+            return null;
+        try {
+            return lookup(expression);
+        } catch (IOException e) {
+            disable(e);
+            return null;
+        }
+    }
+
+    private synchronized void append(String expression, Node node) {
+        if (disabled)
+            return;
+        try {
+            write(expression, node);
+        } catch (IOException e) {
+            disable(e);
+        }
+    }
+
+    private void disable(IOException cause) {
+        disabled = true;
+        LOGGER.log(System.Logger.Level.WARNING, "Disabling expression store " + path, cause);
+    }
+
+    private Node lookup(String expression) throws IOException {
+        var record = records.get(expression);
+        if (record == null && channel.size() > end) {
+            var lock = channel.lock(0, Long.MAX_VALUE, true);
+            try {
+                scan();
+            } finally {
+                lock.release();
+            }
+            record = records.get(expression);
+        }
+        if (record == null)
+            return null;
+        try {
+            return NodeCodec.decode(record.duplicate());
+        } catch (IllegalArgumentException corruptedRecord) {
+            records.remove(expression);
+            return null;
+        }
+    }
+
+    private void write(String expression, Node node) throws IOException {
+        byte[] payload;
+        try {
+            var bytes = new ByteArrayOutputStream();
+            try (var output = new DataOutputStream(bytes)) {
+                NodeCodec.writeString(expression, output);
+                output.write(NodeCodec.encode(node));
+            }
+            payload = bytes.toByteArray();
+        } catch (IllegalArgumentException notEncodable) {
+            return;
+        }
+        var lock = channel.lock();
+        try {
+            scan();
+            if (records.containsKey(expression) || end + RECORD_HEADER_SIZE + payload.length > Integer.MAX_VALUE)
+                return;
+            if (channel.size() > end)
+                channel.truncate(end);
+            var checksum = new CRC32();
+            checksum.update(payload);
+            var record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                    .putInt(payload.length)
+                    .putInt((int) checksum.getValue())
+                    .put(payload)
+                    .flip();
+            writeFully(channel, record, end);
+            index(record.rewind());
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Indexes the records between the end of the last valid record and the end of the file. The first scan maps the
+     * file, later ones copy only the records appended since. Must hold a lock.
+     */
+    private void scan() throws IOException {
+        long size = Math.min(channel.size(), Integer.MAX_VALUE);
+        if (size <= end)
+            return;
+        ByteBuffer appended;
+        if (mapped) {
+            appended = ByteBuffer.allocate((int) (size - end));
+            while (appended.hasRemaining()) {
+                if (channel.read(appended, end + appended.position()) < 0)
+                    break;
+            }
+            appended.flip();
+        } else {
+            appended = channel.map(FileChannel.MapMode.READ_ONLY, end, size - end);
+            mapped = true;
+        }
+        index(appended);
+    }
+
+    /**
+     * Indexes the records of {@code buffer}, which starts at {@link #end}, up to the first incomplete or corrupted one.
+     */
+    private void index(ByteBuffer buffer) {
+        var checksum = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int length = buffer.getInt();
+            int expectedChecksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining())
+                return;
+            var payload = buffer.slice(buffer.position(), length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+            if ((int) checksum.getValue() != expectedChecksum)
+                return;
+            var key = NodeCodec.readString(payload);
+            records.put(key, payload.slice());
+            end += RECORD_HEADER_SIZE + length;
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+}
@@ -0,0 +1,282 @@
+package dev.thihup.joel.impl.cache;
+
+import dev.thihup.joel.impl.node.AddExpressionNode;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.ConcatNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DivExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.EqualNode;
+import dev.thihup.joel.impl.node.GreaterEqualNode;
+import dev.thihup.joel.impl.node.GreaterThanNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LessEqualNode;
+import dev.thihup.joel.impl.node.LessThanNode;
+import dev.thihup.joel.impl.node.ListNode;
+import dev.thihup.joel.impl.node.MapNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.ModExpressionNode;
+import dev.thihup.joel.impl.node.MulExpressionNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.NotEqualNode;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.SetNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubExpressionNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary encoding of parsed expression trees.
+ * <p>
+ * Every node is written as a one byte tag followed by its operands in declaration order: strings as a length-prefixed
+ * UTF-8 byte sequence, numbers as eight bytes and lists as a length followed by their elements. Only the nodes produced
+ * by the parsers can be encoded, and {@link #FORMAT_VERSION} must be bumped whenever a tag or layout changes.
+ */
+public final class NodeCodec {
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte NULL_REFERENCE = 0;
+    private static final byte STRING = 1;
+    private static final byte IDENTIFIER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte NULL = 7;
+    private static final byte UNARY_MINUS = 8;
+    private static final byte UNARY_NOT = 9;
+    private static final byte UNARY_EMPTY = 10;
+    private static final byte DYNAMIC = 11;
+    private static final byte DEFERRED = 12;
+    private static final byte ADD = 13;
+    private static final byte SUB = 14;
+    private static final byte MUL = 15;
+    private static final byte DIV = 16;
+    private static final byte MOD = 17;
+    private static final byte CONCAT = 18;
+    private static final byte ASSIGN = 19;
+    private static final byte AND = 20;
+    private static final byte OR = 21;
+    private static final byte EQUAL = 22;
+    private static final byte NOT_EQUAL = 23;
+    private static final byte GREATER_THAN = 24;
+    private static final byte GREATER_EQUAL = 25;
+    private static final byte LESS_THAN = 26;
+    private static final byte LESS_EQUAL = 27;
+    private static final byte SEMICOLON = 28;
+    private static final byte MEMBER = 29;
+    private static final byte TERNARY = 30;
+    private static final byte LAMBDA = 31;
+    private static final byte CALL = 32;
+    private static final byte LIST = 33;
+    private static final byte SET = 34;
+    private static final byte MAP = 35;
+    private static final byte COMPOSITE = 36;
+
+    private NodeCodec() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the tree contains a node that was not produced by a parser
+     */
+    public static byte[] encode(Node node) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            write(node, output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the node starting at the position of {@code buffer}, leaving the position right after it.
+     *
+     * @throws IllegalArgumentException if the buffer does not contain a valid encoding
+     */
+    public static Node decode(ByteBuffer buffer) {
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated node encoding", e);
+        }
+    }
+
+    public static void writeString(String value, DataOutputStream output) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    public static String readString(ByteBuffer buffer) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void write(Node node, DataOutputStream output) throws IOException {
+        if (node == null) {
+            output.writeByte(NULL_REFERENCE);
+        } else if (node instanceof StringNode stringNode) {
+            output.writeByte(STRING);
+            writeString(stringNode.value(), output);
+        } else if (node instanceof IdentifierNode identifierNode) {
+            output.writeByte(IDENTIFIER);
+            writeString(identifierNode.value(), output);
+        } else if (node instanceof NumberNode numberNode && numberNode.value() instanceof Long value) {
+            output.writeByte(LONG);
+            output.writeLong(value);
+        } else if (node instanceof NumberNode numberNode && numberNode.value() instanceof Double value) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(value);
+        } else if (node == BooleanNode.TRUE) {
+            output.writeByte(TRUE);
+        } else if (node == BooleanNode.FALSE) {
+            output.writeByte(FALSE);
+        } else if (node == NullNode.INSTANCE) {
+            output.writeByte(NULL);
+        } else if (node instanceof LambdaNode lambdaNode) {
+            output.writeByte(LAMBDA);
+            output.writeInt(lambdaNode.parameters().size());
+            for (String parameter : lambdaNode.parameters())
+                writeString(parameter, output);
+            write(lambdaNode.expression(), output);
+        } else if (node instanceof CallExpressionNode callNode) {
+            output.writeByte(CALL);
+            write(callNode.callee(), output);
+            writeAll(callNode.arguments(), output);
+        } else if (node instanceof ListNode listNode) {
+            output.writeByte(LIST);
+            writeAll(listNode.values(), output);
+        } else if (node instanceof SetNode setNode) {
+            output.writeByte(SET);
+            writeAll(setNode.values(), output);
+        } else if (node instanceof MapNode mapNode) {
+            output.writeByte(MAP);
+            writeAll(mapNode.keys(), output);
+            writeAll(mapNode.values(), output);
+        } else if (node instanceof CompositeNode compositeNode) {
+            output.writeByte(COMPOSITE);
+            writeAll(compositeNode.segments(), output);
+        } else {
+            output.writeByte(tag(node));
+            for (Node child : node.children())
+                write(child, output);
+        }
+    }
+
+    private static void writeAll(List<? extends Node> nodes, DataOutputStream output) throws IOException {
+        output.writeInt(nodes.size());
+        for (Node node : nodes)
+            write(node, output);
+    }
+
+    private static byte tag(Node node) {
+        if (node instanceof UnaryMinusNode) return UNARY_MINUS;
+        if (node instanceof UnaryNotNode) return UNARY_NOT;
+        if (node instanceof UnaryEmptyNode) return UNARY_EMPTY;
+        if (node instanceof DynamicExpressionNode) return DYNAMIC;
+        if (node instanceof DeferredExpressionNode) return DEFERRED;
+        if (node instanceof AddExpressionNode) return ADD;
+        if (node instanceof SubExpressionNode) return SUB;
+        if (node instanceof MulExpressionNode) return MUL;
+        if (node instanceof DivExpressionNode) return DIV;
+        if (node instanceof ModExpressionNode) return MOD;
+        if (node instanceof ConcatNode) return CONCAT;
+        if (node instanceof AssignNode) return ASSIGN;
+        if (node instanceof AndNode) return AND;
+        if (node instanceof OrNode) return OR;
+        if (node instanceof EqualNode) return EQUAL;
+        if (node instanceof NotEqualNode) return NOT_EQUAL;
+        if (node instanceof GreaterThanNode) return GREATER_THAN;
+        if (node instanceof GreaterEqualNode) return GREATER_EQUAL;
+        if (node instanceof LessThanNode) return LESS_THAN;
+        if (node instanceof LessEqualNode) return LESS_EQUAL;
+        if (node instanceof SemicolonNode) return SEMICOLON;
+        if (node instanceof MemberNode) return MEMBER;
+        if (node instanceof TernaryNode) return TERNARY;
+        throw new IllegalArgumentException("Cannot encode " + node);
+    }
+
+    private static Node read(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        return switch (tag) {
+            case NULL_REFERENCE -> null;
+            case STRING -> new StringNode(readString(buffer));
+            case IDENTIFIER -> new IdentifierNode(readString(buffer));
+            case LONG -> new NumberNode(buffer.getLong());
+            case DOUBLE -> new NumberNode(buffer.getDouble());
+            case TRUE -> BooleanNode.TRUE;
+            case FALSE -> BooleanNode.FALSE;
+            case NULL -> NullNode.INSTANCE;
+            case UNARY_MINUS -> new UnaryMinusNode(read(buffer));
+            case UNARY_NOT -> new UnaryNotNode(read(buffer));
+            case UNARY_EMPTY -> new UnaryEmptyNode(read(buffer));
+            case DYNAMIC -> new DynamicExpressionNode(read(buffer));
+            case DEFERRED -> new DeferredExpressionNode(read(buffer));
+            case ADD -> new AddExpressionNode(read(buffer), read(buffer));
+            case SUB -> new SubExpressionNode(read(buffer), read(buffer));
+            case MUL -> new MulExpressionNode(read(buffer), read(buffer));
+            case DIV -> new DivExpressionNode(read(buffer), read(buffer));
+            case MOD -> new ModExpressionNode(read(buffer), read(buffer));
+            case CONCAT -> new ConcatNode(read(buffer), read(buffer));
+            case ASSIGN -> new AssignNode(read(buffer), read(buffer));
+            case AND -> new AndNode(read(buffer), read(buffer));
+            case OR -> new OrNode(read(buffer), read(buffer));
+            case EQUAL -> new EqualNode(read(buffer), read(buffer));
+            case NOT_EQUAL -> new NotEqualNode(read(buffer), read(buffer));
+            case GREATER_THAN -> new GreaterThanNode(read(buffer), read(buffer));
+            case GREATER_EQUAL -> new GreaterEqualNode(read(buffer), read(buffer));
+            case LESS_THAN -> new LessThanNode(read(buffer), read(buffer));
+            case LESS_EQUAL -> new LessEqualNode(read(buffer), read(buffer));
+            case SEMICOLON -> new SemicolonNode(read(buffer), read(buffer));
+            case MEMBER -> new MemberNode(read(buffer), read(buffer));
+            case TERNARY -> new TernaryNode(read(buffer), read(buffer), read(buffer));
+            case LAMBDA -> {
+                int count = buffer.getInt();
+                var parameters = new ArrayList<String>(count);
+                for (int i = 0; i < count; i++)
+                    parameters.add(readString(buffer));
+                yield new LambdaNode(Collections.unmodifiableList(parameters), read(buffer));
+            }
+            case CALL -> new CallExpressionNode(read(buffer), readAll(buffer));
+            case LIST -> new ListNode(readAll(buffer));
+            case SET -> new SetNode(readAll(buffer));
+            case MAP -> new MapNode(readAll(buffer), readAll(buffer));
+            case COMPOSITE -> new CompositeNode(readAll(buffer));
+            default -> throw new IllegalArgumentException("Unknown node tag " + tag);
+        };
+    }
+
+    private static List<Node> readAll(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining())
+            throw new IllegalArgumentException("Invalid node count " + count);
+        var nodes = new ArrayList<Node>(count);
+        for (int i = 0; i < count; i++)
+            nodes.add(read(buffer));
+        return Collections.unmodifiableList(nodes);
+    }
+}
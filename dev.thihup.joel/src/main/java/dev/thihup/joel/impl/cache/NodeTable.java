@@ -0,0 +1,181 @@
+package dev.thihup.joel.impl.cache;
+
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MapNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.ObjectNode;
+import dev.thihup.joel.impl.node.SpecializingNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubexpressionNode;
+import dev.thihup.joel.impl.node.SubexpressionScopeNode;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash-consing table that makes structurally equal subtrees of parsed expressions share a single instance.
+ * <p>
+ * Trees are interned bottom-up: once the children of a node are canonical, the node is identified by its type, its
+ * own value and the identity of its children, so looking it up hashes and compares a single level instead of the whole
+ * subtree. Canonical nodes are only weakly referenced and disappear with the last expression using them. Identifier
+ * names and lambda parameters are {@linkplain String#intern() interned}. Call nodes are never shared, since they
+ * memoize the functions they resolve, but their operands are. Unparsed lazy segments are left alone.
+ */
+public final class NodeTable {
+    private final ConcurrentHashMap<Shape, Entry> nodes = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Node> collected = new ReferenceQueue<>();
+
+    /**
+     * Returns a tree equal to {@code node} whose subtrees are the canonical instances of this table.
+     */
+    public Node intern(Node node) {
+        expungeCollected();
+        return canonical(node, new boolean[1]);
+    }
+
+    public int size() {
+        expungeCollected();
+        return nodes.size();
+    }
+
+    /**
+     * Returns the canonical instance of {@code node}, setting {@code added[0]} when it was not in the table before. A
+     * node with a new child cannot be in the table either, so it is not even looked up: it is only entered once its
+     * children are all known, that is the second time it is seen.
+     */
+    private Node canonical(Node node, boolean[] added) {
+        if (node == null || node instanceof Enum<?> || node instanceof ObjectNode || node instanceof LazySegmentNode)
+            return node;
+        var children = node.children();
+        if (children.isEmpty())
+            return lookup(new Shape(node.getClass(), value(node), children), node, added);
+        var canonicalChildren = new ArrayList<Node>(children.size());
+        boolean changed = false;
+        boolean newChild = false;
+        for (Node child : children) {
+            added[0] = false;
+            var canonicalChild = canonical(child, added);
+            canonicalChildren.add(canonicalChild);
+            changed |= canonicalChild != child;
+            newChild |= added[0];
+        }
+        var candidate = changed ? Nodes.withChildren(node, canonicalChildren) : node;
+        added[0] = true;
+        if (newChild || candidate instanceof CallExpressionNode)
+            return candidate;
+        return lookup(new Shape(candidate.getClass(), value(candidate), canonicalChildren), candidate, added);
+    }
+
+    private Node lookup(Shape shape, Node candidate, boolean[] added) {
+        while (true) {
+            var entry = nodes.get(shape);
+            var existing = entry == null ? null : entry.get();
+            if (existing != null) {
+                added[0] = false;
+                return existing;
+            }
+            candidate = withInternedNames(candidate);
+            var entered = new Entry(shape, candidate, collected);
+            if (entry == null ? nodes.putIfAbsent(shape, entered) == null : nodes.replace(shape, entry, entered)) {
+                added[0] = true;
+                return candidate;
+            }
+        }
+    }
+
+    private void expungeCollected() {
+        Entry entry;
+        while ((entry = (Entry) collected.poll()) != null)
+            nodes.remove(entry.shape, entry);
+    }
+
+    private static Object value(Node node) {
+        if (node instanceof StringNode stringNode)
+            return stringNode.value();
+        if (node instanceof NumberNode numberNode)
+            return numberNode.value();
+        if (node instanceof IdentifierNode identifierNode)
+            return identifierNode.value();
+        if (node instanceof LambdaNode lambdaNode)
+            return lambdaNode.parameters();
+        if (node instanceof MapNode mapNode)
+            return mapNode.keys().size();
+        if (node instanceof LongKernelNode kernelNode)
+            return kernelNode.kernel();
+        if (node instanceof MemberNode memberNode)
+            return memberNode.cacheSize();
+        if (node instanceof SpecializingNode specializingNode)
+            return List.of(specializingNode.kernel(), specializingNode.limit());
+        if (node instanceof SubexpressionScopeNode scopeNode)
+            return scopeNode.slots();
+        if (node instanceof SubexpressionNode subexpressionNode)
+            return subexpressionNode.slot();
+        return null;
+    }
+
+    private static Node withInternedNames(Node node) {
+        if (node instanceof IdentifierNode identifierNode && identifierNode.value().intern() != identifierNode.value())
+            return new IdentifierNode(identifierNode.value().intern());
+        if (node instanceof LambdaNode lambdaNode)
+            return new LambdaNode(lambdaNode.parameters().stream().map(String::intern).toList(), lambdaNode.expression());
+        return node;
+    }
+
+    /**
+     * One level of a canonical tree: children are compared by identity, which stands for structural equality since they
+     * are canonical themselves.
+     */
+    private static final class Shape {
+        private final Class<?> type;
+        private final Object value;
+        private final Node[] children;
+        private final int hash;
+
+        Shape(Class<?> type, Object value, List<? extends Node> children) {
+            this.type = type;
+            this.value = value;
+            this.children = children.toArray(Node[]::new);
+            int hash = type.hashCode() * 31 + Objects.hashCode(value);
+            for (Node child : this.children)
+                hash = hash * 31 + System.identityHashCode(child);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Shape that) || hash != that.hash || type != that.type
+                    || children.length != that.children.length || !Objects.equals(value, that.value))
+                return false;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != that.children[i])
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry extends WeakReference<Node> {
+        private final Shape shape;
+
+        Entry(Shape shape, Node node, ReferenceQueue<Node> queue) {
+            super(node, queue);
+            this.shape = shape;
+        }
+    }
+}
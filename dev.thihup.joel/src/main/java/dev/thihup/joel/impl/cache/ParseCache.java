@@ -0,0 +1,186 @@
+package dev.thihup.joel.impl.cache;
+
+import dev.thihup.joel.impl.node.FlatNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.RegisterNode;
+import dev.thihup.joel.impl.spi.CacheStats;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Bounded, thread-safe cache of parsed expressions.
+ * <p>
+ * The cache is bounded both by the number of entries and by their total weight, where the weight of an entry is the
+ * number of nodes of its tree. Concurrent misses on the same key parse only once: the first thread parses while the
+ * others wait on the entry. Eviction is a frequency-aware clock: every hit bumps a small saturating counter on the
+ * entry, and the eviction hand halves the counter of the entries it passes, evicting the first one that reaches zero.
+ * Entries that are hit often therefore survive several sweeps, while one-off expressions are evicted first.
+ */
+public final class ParseCache<K> {
+    private static final int MAXIMUM_FREQUENCY = 15;
+
+    private final ConcurrentHashMap<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final long maximumSize;
+    private final long maximumWeight;
+
+    public ParseCache(long maximumSize, long maximumWeight) {
+        if (maximumSize < 0 || maximumWeight < 0)
+            throw new IllegalArgumentException("Cache bounds must not be negative: size=%d, weight=%d".formatted(maximumSize, maximumWeight));
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+    }
+
+    public Node get(K key, Function<? super K, ? extends Node> parser) {
+        var entry = entries.get(key);
+        if (entry != null && entry.loaded) {
+            hitCount.increment();
+            entry.touch();
+            return entry.node;
+        }
+        return entries.computeIfAbsent(key, Entry::new).load(this, parser);
+    }
+
+    /**
+     * Whether the bounds leave no room for any entry, so that lookups never hit.
+     */
+    public boolean isDisabled() {
+        return maximumSize == 0 || maximumWeight == 0;
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            entries.clear();
+            clock.clear();
+            size.set(0);
+            weight.set(0);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the counters of this cache. It cannot tell precompiled trees from parsed ones, so the number of misses
+     * served from precompiled trees is passed in.
+     */
+    public CacheStats stats(long precompiledCount) {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size.get(), weight.get(), precompiledCount);
+    }
+
+    private void admit(Entry<K> entry) {
+        evictionLock.lock();
+        try {
+            // a concurrent invalidateAll may have dropped the entry while it was loading
+            if (entries.get(entry.key) != entry)
+                return;
+            size.incrementAndGet();
+            weight.addAndGet(entry.weight);
+            clock.add(entry);
+            if (isOverflowing())
+                evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private boolean isOverflowing() {
+        return size.get() > maximumSize || weight.get() > maximumWeight;
+    }
+
+    private void evict() {
+        evictionLock.lock();
+        try {
+            while (isOverflowing()) {
+                var candidate = clock.poll();
+                if (candidate == null)
+                    return;
+                if (candidate.frequency > 0) {
+                    candidate.frequency >>>= 1;
+                    clock.add(candidate);
+                    continue;
+                }
+                entries.remove(candidate.key, candidate);
+                size.decrementAndGet();
+                weight.addAndGet(-candidate.weight);
+                evictionCount.increment();
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    static long weigh(Node node) {
+        if (node == null)
+            return 1;
+        if (node instanceof FlatNode flatNode)
+            return flatNode.size();
+        if (node instanceof RegisterNode registerNode)
+            return registerNode.size();
+        long weight = 1;
+        for (Node child : node.children())
+            weight += weigh(child);
+        return weight;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private volatile boolean loaded;
+        private volatile int frequency;
+        private Node node;
+        private long weight;
+
+        private Entry(K key) {
+            this.key = key;
+        }
+
+        private void touch() {
+            if (frequency < MAXIMUM_FREQUENCY)
+                frequency++;
+        }
+
+        private Node load(ParseCache<K> cache, Function<? super K, ? extends Node> parser) {
+            boolean stale = false;
+            synchronized (this) {
+                if (loaded) {
+                    cache.hitCount.increment();
+                    touch();
+                    return node;
+                }
+                if (cache.entries.get(key) != this)
+                    stale = true;
+                else
+                    parse(cache, parser);
+            }
+            // the load this thread waited on failed, or the cache was cleared, so start over with a live entry
+            if (stale)
+                return cache.entries.computeIfAbsent(key, Entry::new).load(cache, parser);
+            cache.admit(this);
+            return node;
+        }
+
+        private void parse(ParseCache<K> cache, Function<? super K, ? extends Node> parser) {
+            cache.missCount.increment();
+            try {
+                node = parser.apply(key);
+            } catch (RuntimeException exception) {
+                cache.entries.remove(key, this);
+                throw exception;
+            }
+            weight = weigh(node);
+            loaded = true;
+        }
+    }
+}
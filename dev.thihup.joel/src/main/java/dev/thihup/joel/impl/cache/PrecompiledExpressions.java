@@ -0,0 +1,102 @@
+package dev.thihup.joel.impl.cache;
+
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.parser.ParserVersion;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Expressions parsed at build time by the {@code ExpressionPrecompiler} of the {@code dev.thihup.joel.precompiler} module
+ * and shipped in {@value #RESOURCE} resources.
+ * <p>
+ * A resource starts with a magic number, {@link NodeCodec#FORMAT_VERSION} and {@link ParserVersion#VALUE}, followed
+ * by the number of entries and the entries themselves, each made of the expression string and its encoded tree.
+ * Resources built by another parser version or node format are skipped, so their expressions are simply parsed at
+ * runtime.
+ */
+public final class PrecompiledExpressions {
+    public static final String RESOURCE = "META-INF/dev.thihup.joel/expressions.bin";
+
+    private static final int MAGIC = 0x4A454C50;
+    private static final PrecompiledExpressions EMPTY = new PrecompiledExpressions(Collections.emptyMap());
+    private static final System.Logger LOGGER = System.getLogger(PrecompiledExpressions.class.getName());
+
+    private final Map<String, ByteBuffer> expressions;
+
+    private PrecompiledExpressions(Map<String, ByteBuffer> expressions) {
+        this.expressions = expressions;
+    }
+
+    /**
+     * Reads every {@value #RESOURCE} visible to {@code classLoader}. When several resources define the same expression,
+     * the first one wins.
+     */
+    public static PrecompiledExpressions load(ClassLoader classLoader) {
+        if (classLoader == null)
+            return EMPTY;
+        var expressions = new HashMap<String, ByteBuffer>();
+        try {
+            var resources = classLoader.getResources(RESOURCE);
+            while (resources.hasMoreElements())
+                read(resources.nextElement(), expressions);
+        } catch (IOException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot list " + RESOURCE, e);
+        }
+        return expressions.isEmpty() ? EMPTY : new PrecompiledExpressions(expressions);
+    }
+
+    private static void read(URL resource, Map<String, ByteBuffer> expressions) {
+        try (InputStream input = resource.openStream()) {
+            var buffer = ByteBuffer.wrap(input.readAllBytes());
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC || buffer.getInt() != NodeCodec.FORMAT_VERSION
+                    || buffer.getLong() != ParserVersion.VALUE) {
+                LOGGER.log(System.Logger.Level.WARNING, "Ignoring {0}, it was built by another version", resource);
+                return;
+            }
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                var key = NodeCodec.readString(buffer);
+                int length = buffer.getInt();
+                expressions.putIfAbsent(key, buffer.slice(buffer.position(), length));
+                buffer.position(buffer.position() + length);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Ignoring unreadable " + resource, e);
+        }
+    }
+
+    /**
+     * Returns the precompiled tree of {@code expression}, or {@code null} when it was not precompiled.
+     */
+    public Node get(String expression) {
+        var encoded = expressions.get(expression);
+        return encoded == null ? null : NodeCodec.decode(encoded.duplicate());
+    }
+
+    public int size() {
+        return expressions.size();
+    }
+
+    public static void write(Map<String, ? extends Node> expressions, OutputStream stream) throws IOException {
+        var output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(NodeCodec.FORMAT_VERSION);
+        output.writeLong(ParserVersion.VALUE);
+        output.writeInt(expressions.size());
+        for (var entry : expressions.entrySet()) {
+            var encoded = NodeCodec.encode(entry.getValue());
+            NodeCodec.writeString(entry.getKey(), output);
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,407 @@
+package dev.thihup.joel.impl.compiler;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.ObjectNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.StringConcatFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_STATIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACONST_NULL;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.ASTORE;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.GETSTATIC;
+import static org.objectweb.asm.Opcodes.GOTO;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.IFEQ;
+import static org.objectweb.asm.Opcodes.IFNE;
+import static org.objectweb.asm.Opcodes.IF_ACMPEQ;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.POP;
+import static org.objectweb.asm.Opcodes.PUTSTATIC;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+/**
+ * Compiles expression trees to JVM bytecode, defined as {@linkplain MethodHandles.Lookup#defineHiddenClass hidden
+ * classes} that are unloaded with the last expression using them.
+ * <p>
+ * Literals, operators, conditionals, identifiers and property reads are compiled to straight-line code calling the same
+ * operations as the nodes, so that the JIT sees a whole expression at once instead of a megamorphic
+ * {@link Node#getValue} per node. Named property reads go through an {@code invokedynamic} call site linked to the
+ * resolver of the context, and composite expressions are concatenated by {@link StringConcatFactory}. The nodes the
+ * compiler does not know, like calls and lambdas, are kept as constants of the class and evaluated by the interpreter.
+ * Each property read is compiled to a method of its own, since it recovers from resolution failures like
+ * {@link MemberNode} does.
+ */
+public final class BytecodeCompiler {
+    private static final System.Logger LOGGER = System.getLogger(BytecodeCompiler.class.getName());
+    private static final int MAXIMUM_NODES = 4096;
+    private static final String CLASS_NAME = Type.getInternalName(BytecodeCompiler.class) + "$Expression";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String EVALUATE = Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(ELContext.class));
+    private static final String UNARY = "(Ljava/lang/Object;Ljakarta/el/ELContext;)Ljava/lang/Object;";
+    private static final String BINARY = "(Ljava/lang/Object;Ljava/lang/Object;Ljakarta/el/ELContext;)Ljava/lang/Object;";
+    private static final int MAXIMUM_CONCAT_SEGMENTS = 200;
+    private static final Handle MAKE_CONCAT = new Handle(H_INVOKESTATIC, Type.getInternalName(StringConcatFactory.class), "makeConcatWithConstants",
+            MethodType.methodType(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, String.class, Object[].class).toMethodDescriptorString(), false);
+    private static final Handle LINK_PROPERTY = new Handle(H_INVOKESTATIC, Type.getInternalName(CompilerSupport.class), "linkProperty",
+            MethodType.methodType(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, String.class).toMethodDescriptorString(), false);
+
+    private final ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+        @Override
+        protected String getCommonSuperClass(String type1, String type2) {
+            // values only meet at the end of conditionals, where they are used as objects
+            return OBJECT;
+        }
+    };
+    private final List<Object> constants = new ArrayList<>();
+    private final List<Class<?>> constantTypes = new ArrayList<>();
+    private final Map<Object, Integer> constantsByValue = new IdentityHashMap<>();
+    private final Queue<Map.Entry<String, Node>> methods = new ArrayDeque<>();
+    private int methodCount;
+
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * Whether {@code node} is compiled rather than left to the interpreter: its root is compiled, and it is not too
+     * large.
+     */
+    public static boolean accepts(Node node) {
+        return CompilerSupport.isCompiled(node) && !CompilerSupport.isLarger(node, MAXIMUM_NODES);
+    }
+
+    /**
+     * Returns {@code node} compiled, or {@code null} when it is left to the interpreter, see {@link #accepts}.
+     */
+    public static CompiledExpression compile(Node node) {
+        if (!accepts(node))
+            return null;
+        try {
+            var compiler = new BytecodeCompiler();
+            var bytes = compiler.generate(node);
+            var lookup = MethodHandles.lookup().defineHiddenClassWithClassData(bytes, List.copyOf(compiler.constants), true);
+            return (CompiledExpression) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (RuntimeException | ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot compile " + node.prettyPrint(), e);
+            return null;
+        }
+    }
+
+    private byte[] generate(Node node) {
+        classWriter.visit(V17, ACC_FINAL | ACC_SUPER, CLASS_NAME, null, OBJECT,
+                new String[]{Type.getInternalName(CompiledExpression.class)});
+        var constructor = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        var evaluate = classWriter.visitMethod(ACC_PUBLIC, "evaluate", EVALUATE, null, null);
+        evaluate.visitCode();
+        evaluate.visitVarInsn(ALOAD, 1);
+        evaluate.visitMethodInsn(INVOKESTATIC, CLASS_NAME, method(node), EVALUATE, false);
+        evaluate.visitInsn(ARETURN);
+        evaluate.visitMaxs(0, 0);
+        evaluate.visitEnd();
+
+        Map.Entry<String, Node> method;
+        while ((method = methods.poll()) != null) {
+            var visitor = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC, method.getKey(), EVALUATE, null, null);
+            visitor.visitCode();
+            if (method.getValue() instanceof MemberNode memberNode)
+                member(visitor, memberNode);
+            else
+                value(visitor, method.getValue());
+            visitor.visitInsn(ARETURN);
+            visitor.visitMaxs(0, 0);
+            visitor.visitEnd();
+        }
+        initializeConstants();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Schedules a static method evaluating {@code node} against the context in its first local, and returns its name.
+     */
+    private String method(Node node) {
+        var name = "node" + methodCount++;
+        methods.add(Map.entry(name, node));
+        return name;
+    }
+
+    /**
+     * Emits the evaluation of {@code node}, leaving its value on the stack.
+     */
+    private void value(MethodVisitor method, Node node) {
+        if (node instanceof StringNode stringNode) {
+            method.visitLdcInsn(stringNode.value());
+        } else if (node instanceof NumberNode numberNode) {
+            constant(method, numberNode.value(), Object.class);
+        } else if (node instanceof ObjectNode objectNode && objectNode.value() != null) {
+            constant(method, objectNode.value(), Object.class);
+        } else if (node instanceof BooleanNode booleanNode) {
+            method.visitFieldInsn(GETSTATIC, Type.getInternalName(Boolean.class), booleanNode == BooleanNode.TRUE ? "TRUE" : "FALSE", "Ljava/lang/Boolean;");
+        } else if (node instanceof NullNode) {
+            method.visitInsn(ACONST_NULL);
+        } else if (node instanceof DynamicExpressionNode || node instanceof DeferredExpressionNode) {
+            value(method, node.children().get(0));
+        } else if (node instanceof SemicolonNode semicolonNode) {
+            value(method, semicolonNode.left());
+            method.visitInsn(POP);
+            value(method, semicolonNode.right());
+        } else if (node instanceof IdentifierNode) {
+            constant(method, node, IdentifierNode.class);
+            method.visitVarInsn(ALOAD, 0);
+            method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(IdentifierNode.class), "getValue", EVALUATE, false);
+        } else if (node instanceof MemberNode) {
+            method.visitVarInsn(ALOAD, 0);
+            method.visitMethodInsn(INVOKESTATIC, CLASS_NAME, method(node), EVALUATE, false);
+        } else if (node instanceof TernaryNode ternaryNode) {
+            var otherwise = new Label();
+            var end = new Label();
+            test(method, ternaryNode.condition());
+            method.visitJumpInsn(IFEQ, otherwise);
+            value(method, ternaryNode.trueExpression());
+            method.visitJumpInsn(GOTO, end);
+            method.visitLabel(otherwise);
+            value(method, ternaryNode.falseExpression());
+            method.visitLabel(end);
+        } else if (node instanceof AndNode andNode) {
+            shortCircuit(method, andNode.left(), andNode.right(), false);
+        } else if (node instanceof OrNode orNode) {
+            shortCircuit(method, orNode.left(), orNode.right(), true);
+        } else if (node instanceof UnaryNotNode || node instanceof UnaryMinusNode) {
+            value(method, node.children().get(0));
+            method.visitVarInsn(ALOAD, 0);
+            method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(node.getClass()), "apply", UNARY, false);
+        } else if (node instanceof UnaryEmptyNode emptyNode) {
+            value(method, emptyNode.node());
+            method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(UnaryEmptyNode.class), "apply", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+        } else if (node instanceof LongKernelNode kernelNode) {
+            constant(method, kernelNode.kernel(), LongKernelNode.Kernel.class);
+            operands(method, kernelNode.left(), kernelNode.right());
+            method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(LongKernelNode.Kernel.class), "evaluate", BINARY, false);
+        } else if (CompilerSupport.operation(node) != null) {
+            constant(method, CompilerSupport.operation(node), Operation.class);
+            operands(method, node.children().get(0), node.children().get(1));
+            method.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(Operation.class), "calculate", BINARY, true);
+        } else if (CompilerSupport.operator(node) != null) {
+            operands(method, node.children().get(0), node.children().get(1));
+            method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CompilerSupport.operator(node)), "apply", BINARY, false);
+        } else if (node instanceof CompositeNode compositeNode) {
+            concat(method, compositeNode.segments());
+        } else {
+            constant(method, node, Node.class);
+            method.visitVarInsn(ALOAD, 0);
+            method.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(Node.class), "getValue", EVALUATE, true);
+        }
+    }
+
+    /**
+     * Emits the concatenation of the segments of a composite expression with {@link StringConcatFactory}: literal text
+     * is part of the recipe, the other segments are evaluated in order and coerced to the arguments. A call site takes
+     * at most {@value #MAXIMUM_CONCAT_SEGMENTS} arguments, so longer templates are cut into parts concatenated by
+     * methods of their own, which also keeps each method small enough for the JIT to compile.
+     */
+    private void concat(MethodVisitor method, List<Node> segments) {
+        if (segments.size() > MAXIMUM_CONCAT_SEGMENTS) {
+            int parts = 0;
+            for (int start = 0; start < segments.size(); start += MAXIMUM_CONCAT_SEGMENTS, parts++) {
+                var part = new CompositeNode(segments.subList(start, Math.min(start + MAXIMUM_CONCAT_SEGMENTS, segments.size())));
+                method.visitVarInsn(ALOAD, 0);
+                method.visitMethodInsn(INVOKESTATIC, CLASS_NAME, method(part), EVALUATE, false);
+                method.visitTypeInsn(CHECKCAST, Type.getInternalName(String.class));
+            }
+            invokeConcat(method, "\1".repeat(parts), parts);
+            return;
+        }
+        var recipe = new StringBuilder();
+        int arguments = 0;
+        for (Node segment : segments) {
+            if (CompilerSupport.isRecipeConstant(segment)) {
+                recipe.append(((StringNode) segment).value());
+                continue;
+            }
+            if (segment instanceof StringNode literal) {
+                method.visitLdcInsn(literal.value());
+            } else {
+                value(method, segment);
+                method.visitVarInsn(ALOAD, 0);
+                method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CompositeNode.class), "coerce",
+                        "(Ljava/lang/Object;Ljakarta/el/ELContext;)Ljava/lang/String;", false);
+            }
+            recipe.append('\1');
+            arguments++;
+        }
+        invokeConcat(method, recipe.toString(), arguments);
+    }
+
+    private static void invokeConcat(MethodVisitor method, String recipe, int arguments) {
+        method.visitInvokeDynamicInsn("concat", "(" + "Ljava/lang/String;".repeat(arguments) + ")Ljava/lang/String;", MAKE_CONCAT, recipe);
+    }
+
+    private void operands(MethodVisitor method, Node left, Node right) {
+        value(method, left);
+        value(method, right);
+        method.visitVarInsn(ALOAD, 0);
+    }
+
+    /**
+     * Emits the coercion of the value of {@code node} to a {@code boolean}, left on the stack as an {@code int}.
+     */
+    private void test(MethodVisitor method, Node node) {
+        value(method, node);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CompilerSupport.class), "test", "(Ljava/lang/Object;Ljakarta/el/ELContext;)Z", false);
+    }
+
+    private void shortCircuit(MethodVisitor method, Node left, Node right, boolean decisive) {
+        var decided = new Label();
+        var end = new Label();
+        test(method, left);
+        method.visitJumpInsn(decisive ? IFNE : IFEQ, decided);
+        value(method, right);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CompilerSupport.class), "toBoolean", UNARY, false);
+        method.visitJumpInsn(GOTO, end);
+        method.visitLabel(decided);
+        method.visitFieldInsn(GETSTATIC, Type.getInternalName(Boolean.class), decisive ? "TRUE" : "FALSE", "Ljava/lang/Boolean;");
+        method.visitLabel(end);
+    }
+
+    /**
+     * Emits the body of the method reading {@code memberNode}, which behaves like {@link MemberNode#getValue}: an
+     * identifier that is not a value names a class, and resolution failures go through {@link MemberNode#recover}.
+     */
+    private void member(MethodVisitor method, MemberNode memberNode) {
+        var start = new Label();
+        var end = new Label();
+        var failed = new Label();
+        var onClass = new Label();
+        method.visitTryCatchBlock(start, end, failed, Type.getInternalName(ELException.class));
+        method.visitLabel(start);
+        if (memberNode.object() instanceof IdentifierNode identifierNode) {
+            constant(method, identifierNode, IdentifierNode.class);
+            method.visitVarInsn(ALOAD, 0);
+            method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(IdentifierNode.class), "resolve", EVALUATE, false);
+            method.visitVarInsn(ASTORE, 1);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitFieldInsn(GETSTATIC, Type.getInternalName(IdentifierNode.class), "UNRESOLVED", "Ljava/lang/Object;");
+            method.visitJumpInsn(IF_ACMPEQ, onClass);
+            method.visitVarInsn(ALOAD, 0);
+            method.visitVarInsn(ALOAD, 1);
+        } else {
+            method.visitVarInsn(ALOAD, 0);
+            value(method, memberNode.object());
+        }
+        if (memberNode.property() instanceof IdentifierNode property) {
+            method.visitInvokeDynamicInsn("read", "(Ljakarta/el/ELContext;Ljava/lang/Object;)Ljava/lang/Object;", LINK_PROPERTY, property.value());
+        } else {
+            value(method, memberNode.property());
+            method.visitMethodInsn(INVOKESTATIC, Type.getInternalName(CompilerSupport.class), "read", "(Ljakarta/el/ELContext;Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", false);
+        }
+        method.visitLabel(end);
+        method.visitInsn(ARETURN);
+        method.visitLabel(failed);
+        method.visitVarInsn(ASTORE, 1);
+        recover(method, memberNode, () -> method.visitVarInsn(ALOAD, 1));
+        if (memberNode.object() instanceof IdentifierNode) {
+            method.visitInsn(ARETURN);
+            method.visitLabel(onClass);
+            recover(method, memberNode, () -> method.visitInsn(ACONST_NULL));
+        }
+    }
+
+    private void recover(MethodVisitor method, MemberNode memberNode, Runnable rootCause) {
+        constant(method, memberNode, MemberNode.class);
+        method.visitVarInsn(ALOAD, 0);
+        rootCause.run();
+        method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(MemberNode.class), "recover",
+                "(Ljakarta/el/ELContext;Ljakarta/el/ELException;)Ljava/lang/Object;", false);
+    }
+
+    /**
+     * Emits a read of the static final field holding {@code value}, which the class initializer reads from the class
+     * data.
+     */
+    private void constant(MethodVisitor method, Object value, Class<?> type) {
+        int index = constantsByValue.computeIfAbsent(value, key -> {
+            constants.add(key);
+            constantTypes.add(type);
+            return constants.size() - 1;
+        });
+        method.visitFieldInsn(GETSTATIC, CLASS_NAME, "constant" + index, Type.getDescriptor(constantTypes.get(index)));
+    }
+
+    private void initializeConstants() {
+        var initializer = classWriter.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+        initializer.visitCode();
+        initializer.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;", false);
+        initializer.visitLdcInsn(ConstantDescs.DEFAULT_NAME);
+        initializer.visitLdcInsn(Type.getType(List.class));
+        initializer.visitMethodInsn(INVOKESTATIC, Type.getInternalName(MethodHandles.class), "classData",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;", false);
+        initializer.visitTypeInsn(CHECKCAST, Type.getInternalName(List.class));
+        initializer.visitVarInsn(ASTORE, 0);
+        for (int i = 0; i < constants.size(); i++) {
+            var descriptor = Type.getDescriptor(constantTypes.get(i));
+            classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "constant" + i, descriptor, null, null).visitEnd();
+            initializer.visitVarInsn(ALOAD, 0);
+            initializer.visitLdcInsn(i);
+            initializer.visitMethodInsn(INVOKEINTERFACE, Type.getInternalName(List.class), "get", "(I)Ljava/lang/Object;", true);
+            initializer.visitTypeInsn(CHECKCAST, Type.getInternalName(constantTypes.get(i)));
+            initializer.visitFieldInsn(PUTSTATIC, CLASS_NAME, "constant" + i, descriptor);
+        }
+        initializer.visitInsn(RETURN);
+        initializer.visitMaxs(0, 0);
+        initializer.visitEnd();
+    }
+}
@@ -0,0 +1,11 @@
+package dev.thihup.joel.impl.compiler;
+
+import jakarta.el.ELContext;
+
+/**
+ * Expression tree compiled to code that evaluates it without walking its nodes.
+ */
+public interface CompiledExpression {
+
+    Object evaluate(ELContext context);
+}
@@ -0,0 +1,162 @@
+package dev.thihup.joel.impl.compiler;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import dev.thihup.joel.impl.node.AddExpressionNode;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.ConcatNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DivExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.EqualNode;
+import dev.thihup.joel.impl.node.GreaterEqualNode;
+import dev.thihup.joel.impl.node.GreaterThanNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LessEqualNode;
+import dev.thihup.joel.impl.node.LessThanNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.ModExpressionNode;
+import dev.thihup.joel.impl.node.MulExpressionNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.NotEqualNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubExpressionNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELContext;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.StringConcatFactory;
+
+/**
+ * Operations the compiled expressions call into, which are not already exposed by the nodes they come from.
+ */
+final class CompilerSupport {
+    private static final MethodHandle READ;
+
+    static {
+        try {
+            READ = MethodHandles.lookup().findStatic(CompilerSupport.class, "read",
+                    MethodType.methodType(Object.class, ELContext.class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private CompilerSupport() {
+    }
+
+    /**
+     * Coerces the value of a condition, like a ternary does.
+     */
+    static boolean test(Object value, ELContext context) {
+        return (boolean) context.convertToType(value, boolean.class);
+    }
+
+    /**
+     * Coerces the value of the right operand of {@code &&} and {@code ||}, which is their result.
+     */
+    static Object toBoolean(Object value, ELContext context) {
+        return context.convertToType(value, boolean.class);
+    }
+
+    static Object read(ELContext context, Object base, Object property) {
+        return context.getELResolver().getValue(context, base, property);
+    }
+
+    /**
+     * Links a read of the named property from the base on the stack to the resolver of the context.
+     */
+    static CallSite linkProperty(MethodHandles.Lookup lookup, String name, MethodType type, String property) {
+        return new ConstantCallSite(MethodHandles.insertArguments(READ, 2, property).asType(type));
+    }
+
+    /**
+     * Links a call site to the handle in the class data of the class it is in.
+     */
+    static CallSite linkClassData(MethodHandles.Lookup lookup, String name, MethodType type) throws IllegalAccessException {
+        return new ConstantCallSite(MethodHandles.classData(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class).asType(type));
+    }
+
+    static boolean isUnresolved(Object value) {
+        return value == IdentifierNode.UNRESOLVED;
+    }
+
+    /**
+     * Whether the compilers know {@code node}, rather than leaving it to the interpreter.
+     */
+    static boolean isCompiled(Node node) {
+        return node instanceof MemberNode || node instanceof IdentifierNode || node instanceof TernaryNode
+                || node instanceof SemicolonNode || node instanceof LongKernelNode || node instanceof DynamicExpressionNode
+                || node instanceof DeferredExpressionNode || node instanceof UnaryNotNode || node instanceof UnaryMinusNode
+                || node instanceof UnaryEmptyNode || operation(node) != null || operator(node) != null
+                || node instanceof AndNode || node instanceof OrNode || node instanceof CompositeNode;
+    }
+
+    /**
+     * Whether {@code segment} is literal text that can be a constant of a {@link StringConcatFactory} recipe, where
+     * {@code \1} and {@code \2} are tags.
+     */
+    static boolean isRecipeConstant(Node segment) {
+        return segment instanceof StringNode literal && literal.value().indexOf('\1') < 0 && literal.value().indexOf('\2') < 0;
+    }
+
+    /**
+     * Whether {@code node} has more than {@code maximum} nodes.
+     */
+    static boolean isLarger(Node node, int maximum) {
+        return size(node, 0, maximum) > maximum;
+    }
+
+    private static int size(Node node, int size, int maximum) {
+        if (node == null || size > maximum)
+            return size;
+        size++;
+        for (Node child : node.children())
+            size = size(child, size, maximum);
+        return size;
+    }
+
+    static Operation operation(Node node) {
+        if (node instanceof AddExpressionNode) return Operation.ADDITION;
+        if (node instanceof SubExpressionNode) return Operation.SUBTRACTION;
+        if (node instanceof MulExpressionNode) return Operation.MULTIPLICATION;
+        if (node instanceof DivExpressionNode) return Operation.DIVISION;
+        if (node instanceof ModExpressionNode) return Operation.MODULO;
+        return null;
+    }
+
+    static Class<?> operator(Node node) {
+        if (node instanceof ConcatNode || node instanceof EqualNode || node instanceof NotEqualNode
+                || node instanceof LessThanNode || node instanceof LessEqualNode
+                || node instanceof GreaterThanNode || node instanceof GreaterEqualNode)
+            return node.getClass();
+        return null;
+    }
+
+    /**
+     * Part of a handle the JIT compiles on its own: the handle it holds is not a constant, since fields of ordinary
+     * classes are not, so it is invoked instead of being inlined into the callers.
+     */
+    static final class Segment {
+        private final MethodHandle handle;
+
+        Segment(MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        Object evaluate(ELContext context) throws Throwable {
+            return (Object) handle.invokeExact(context);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.thihup.joel.impl.compiler;
+
+import dev.thihup.joel.impl.node.Node;
+
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Back ends able to compile an expression tree, see {@link CompiledExpression}. They evaluate like the interpreter.
+ */
+public enum ExpressionCompiler {
+    BYTECODE(BytecodeCompiler::accepts, BytecodeCompiler::compile),
+    METHOD_HANDLES(MethodHandleCompiler::accepts, MethodHandleCompiler::compile);
+
+    private final Predicate<Node> accepts;
+    private final Function<Node, CompiledExpression> compiler;
+
+    ExpressionCompiler(Predicate<Node> accepts, Function<Node, CompiledExpression> compiler) {
+        this.accepts = accepts;
+        this.compiler = compiler;
+    }
+
+    /**
+     * Whether {@code node} is compiled rather than always left to the interpreter. Compiling it can still fail.
+     */
+    public boolean accepts(Node node) {
+        return accepts.test(node);
+    }
+
+    /**
+     * Returns {@code node} compiled, or {@code null} when it is better left to the interpreter.
+     */
+    public CompiledExpression compile(Node node) {
+        return compiler.apply(node);
+    }
+
+    /**
+     * Returns the compiler with the given case-insensitive name, or {@code null} when the name is {@code null} or
+     * unknown.
+     */
+    public static ExpressionCompiler of(String name) {
+        if (name == null)
+            return null;
+        try {
+            return valueOf(name.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException unknownCompiler) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package dev.thihup.joel.impl.compiler;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.ObjectNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.StringConcatException;
+import java.lang.invoke.StringConcatFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static java.lang.invoke.MethodHandles.catchException;
+import static java.lang.invoke.MethodHandles.collectArguments;
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.filterArguments;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.guardWithTest;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodHandles.permuteArguments;
+import static java.lang.invoke.MethodType.methodType;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V17;
+
+/**
+ * Compiles expression trees to a single {@link MethodHandle} of type {@code (ELContext)Object}, composed with the
+ * combinators of {@link MethodHandles} instead of generated code.
+ * <p>
+ * Operands are evaluated with {@link MethodHandles#filterArguments} and {@link MethodHandles#foldArguments},
+ * conditionals and short-circuits become {@link MethodHandles#guardWithTest} and property reads recover from resolution
+ * failures through {@link MethodHandles#catchException}, calling the same operations as the nodes. The handle is then
+ * bound to the {@code invokedynamic} instruction of a small hidden class, through a
+ * {@link java.lang.invoke.ConstantCallSite}, so that the JIT treats the tree as a constant and can inline it into the
+ * caller. Subtrees below a few levels are evaluated out of line, see {@link #segment}. The nodes the compiler does not
+ * know are bound to their own {@link Node#getValue}.
+ */
+public final class MethodHandleCompiler {
+    private static final System.Logger LOGGER = System.getLogger(MethodHandleCompiler.class.getName());
+    private static final int MAXIMUM_NODES = 256;
+    private static final int SEGMENT_DEPTH = 2;
+    private static final String CLASS_NAME = Type.getInternalName(MethodHandleCompiler.class) + "$Expression";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String EVALUATE = Type.getMethodDescriptor(Type.getType(Object.class), Type.getType(ELContext.class));
+    private static final Handle LINK_CLASS_DATA = new Handle(H_INVOKESTATIC, Type.getInternalName(CompilerSupport.class), "linkClassData",
+            methodType(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class).toMethodDescriptorString(), false);
+    private static final MethodType VALUE = methodType(Object.class, ELContext.class);
+    private static final MethodType UNARY = methodType(Object.class, Object.class, ELContext.class);
+    private static final MethodType BINARY = methodType(Object.class, Object.class, Object.class, ELContext.class);
+    private static final MethodHandle NODE_VALUE;
+    private static final MethodHandle IDENTIFIER_VALUE;
+    private static final MethodHandle RESOLVE;
+    private static final MethodHandle RECOVER;
+    private static final MethodHandle CALCULATE;
+    private static final MethodHandle KERNEL;
+    private static final MethodHandle EMPTY;
+    private static final MethodHandle TEST;
+    private static final MethodHandle TO_BOOLEAN;
+    private static final MethodHandle READ;
+    private static final MethodHandle UNRESOLVED;
+    private static final MethodHandle BASE;
+    private static final MethodHandle SEGMENT;
+    private static final MethodHandle COERCE;
+
+    static {
+        try {
+            var lookup = MethodHandles.lookup();
+            NODE_VALUE = lookup.findVirtual(Node.class, "getValue", VALUE);
+            IDENTIFIER_VALUE = lookup.findVirtual(IdentifierNode.class, "getValue", VALUE);
+            RESOLVE = lookup.findVirtual(IdentifierNode.class, "resolve", VALUE);
+            RECOVER = lookup.findVirtual(MemberNode.class, "recover", methodType(Object.class, ELContext.class, ELException.class));
+            CALCULATE = lookup.findVirtual(Operation.class, "calculate", BINARY);
+            KERNEL = lookup.findVirtual(LongKernelNode.Kernel.class, "evaluate", BINARY);
+            EMPTY = lookup.findStatic(UnaryEmptyNode.class, "apply", methodType(Object.class, Object.class));
+            TEST = lookup.findStatic(CompilerSupport.class, "test", methodType(boolean.class, Object.class, ELContext.class));
+            TO_BOOLEAN = lookup.findStatic(CompilerSupport.class, "toBoolean", UNARY);
+            READ = lookup.findStatic(CompilerSupport.class, "read", methodType(Object.class, ELContext.class, Object.class, Object.class));
+            UNRESOLVED = dropArguments(lookup.findStatic(CompilerSupport.class, "isUnresolved", methodType(boolean.class, Object.class)), 1, ELContext.class);
+            BASE = dropArguments(MethodHandles.identity(Object.class), 1, ELContext.class);
+            SEGMENT = lookup.findVirtual(CompilerSupport.Segment.class, "evaluate", VALUE);
+            COERCE = lookup.findStatic(CompositeNode.class, "coerce", methodType(String.class, Object.class, ELContext.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private MethodHandleCompiler() {
+    }
+
+    /**
+     * Whether {@code node} is compiled rather than left to the interpreter: its root is compiled, and it is not too
+     * large.
+     */
+    public static boolean accepts(Node node) {
+        return CompilerSupport.isCompiled(node) && !CompilerSupport.isLarger(node, MAXIMUM_NODES);
+    }
+
+    /**
+     * Returns {@code node} compiled, or {@code null} when it is left to the interpreter, see {@link #accepts}.
+     */
+    public static CompiledExpression compile(Node node) {
+        if (!accepts(node))
+            return null;
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClassWithClassData(generate(), handle(node, 0), true);
+            return (CompiledExpression) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (RuntimeException | ReflectiveOperationException | LinkageError e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot compile " + node.prettyPrint(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Generates a class whose {@code evaluate} invokes the handle in its class data.
+     */
+    private static byte[] generate() {
+        var classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(V17, ACC_FINAL | ACC_SUPER, CLASS_NAME, null, OBJECT,
+                new String[]{Type.getInternalName(CompiledExpression.class)});
+        var constructor = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        var evaluate = classWriter.visitMethod(ACC_PUBLIC, "evaluate", EVALUATE, null, null);
+        evaluate.visitCode();
+        evaluate.visitVarInsn(ALOAD, 1);
+        evaluate.visitInvokeDynamicInsn("evaluate", EVALUATE, LINK_CLASS_DATA);
+        evaluate.visitInsn(ARETURN);
+        evaluate.visitMaxs(0, 0);
+        evaluate.visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Returns a handle evaluating {@code node}, at {@code depth} in the current segment, against the context it is
+     * given.
+     */
+    private static MethodHandle handle(Node node, int depth) {
+        if (depth == SEGMENT_DEPTH && !node.children().isEmpty())
+            return segment(node);
+        if (node instanceof StringNode stringNode)
+            return constant(stringNode.value());
+        if (node instanceof NumberNode numberNode)
+            return constant(numberNode.value());
+        if (node instanceof ObjectNode objectNode && objectNode.value() != null)
+            return constant(objectNode.value());
+        if (node instanceof BooleanNode booleanNode)
+            return constant(booleanNode == BooleanNode.TRUE ? Boolean.TRUE : Boolean.FALSE);
+        if (node instanceof NullNode)
+            return constant(null);
+        if (node instanceof DynamicExpressionNode || node instanceof DeferredExpressionNode)
+            return handle(node.children().get(0), depth);
+        if (node instanceof SemicolonNode semicolonNode)
+            return foldArguments(handle(semicolonNode.right(), depth + 1), handle(semicolonNode.left(), depth + 1).asType(methodType(void.class, ELContext.class)));
+        if (node instanceof IdentifierNode)
+            return IDENTIFIER_VALUE.bindTo(node);
+        if (node instanceof MemberNode memberNode)
+            return member(memberNode, depth);
+        if (node instanceof TernaryNode ternaryNode)
+            return guardWithTest(test(ternaryNode.condition(), depth), handle(ternaryNode.trueExpression(), depth + 1), handle(ternaryNode.falseExpression(), depth + 1));
+        if (node instanceof AndNode andNode)
+            return guardWithTest(test(andNode.left(), depth), foldArguments(TO_BOOLEAN, handle(andNode.right(), depth + 1)), constant(Boolean.FALSE));
+        if (node instanceof OrNode orNode)
+            return guardWithTest(test(orNode.left(), depth), constant(Boolean.TRUE), foldArguments(TO_BOOLEAN, handle(orNode.right(), depth + 1)));
+        if (node instanceof UnaryNotNode || node instanceof UnaryMinusNode)
+            return foldArguments(operator(node.getClass(), UNARY), handle(node.children().get(0), depth + 1));
+        if (node instanceof UnaryEmptyNode emptyNode)
+            return filterArguments(EMPTY, 0, handle(emptyNode.node(), depth + 1));
+        if (node instanceof LongKernelNode kernelNode)
+            return operands(KERNEL.bindTo(kernelNode.kernel()), kernelNode.left(), kernelNode.right(), depth);
+        if (CompilerSupport.operation(node) != null)
+            return operands(CALCULATE.bindTo(CompilerSupport.operation(node)), node.children().get(0), node.children().get(1), depth);
+        if (CompilerSupport.operator(node) != null)
+            return operands(operator(CompilerSupport.operator(node), BINARY), node.children().get(0), node.children().get(1), depth);
+        if (node instanceof CompositeNode compositeNode)
+            return concat(compositeNode, depth);
+        return NODE_VALUE.bindTo(node);
+    }
+
+    private static MethodHandle constant(Object value) {
+        return dropArguments(MethodHandles.constant(Object.class, value), 0, ELContext.class);
+    }
+
+    /**
+     * Filters the first two arguments of {@code operator} through {@code left} and {@code right}, evaluated in that
+     * order, and passes the context to all three.
+     */
+    private static MethodHandle operands(MethodHandle operator, Node left, Node right, int depth) {
+        return permuteArguments(filterArguments(operator, 0, handle(left, depth + 1), handle(right, depth + 1)), VALUE, 0, 0, 0);
+    }
+
+    /**
+     * Returns a {@link StringConcatFactory} concatenation of the segments of {@code compositeNode}, whose literal text
+     * is part of the recipe and whose other segments are evaluated in order, coerced, and passed as arguments.
+     */
+    private static MethodHandle concat(CompositeNode compositeNode, int depth) {
+        var recipe = new StringBuilder();
+        var arguments = new ArrayList<MethodHandle>();
+        for (Node segment : compositeNode.segments()) {
+            if (CompilerSupport.isRecipeConstant(segment)) {
+                recipe.append(((StringNode) segment).value());
+                continue;
+            }
+            recipe.append('\1');
+            arguments.add(segment instanceof StringNode literal
+                    ? dropArguments(MethodHandles.constant(String.class, literal.value()), 0, ELContext.class)
+                    : foldArguments(COERCE, handle(segment, depth + 1)));
+        }
+        MethodHandle concat;
+        try {
+            concat = StringConcatFactory.makeConcatWithConstants(MethodHandles.lookup(), "concat",
+                    methodType(String.class, Collections.nCopies(arguments.size(), String.class)), recipe.toString()).dynamicInvoker();
+        } catch (StringConcatException tooManyArguments) {
+            return NODE_VALUE.bindTo(compositeNode);
+        }
+        // the last filter collected runs first
+        for (int i = arguments.size() - 1; i >= 0; i--)
+            concat = collectArguments(concat, i, arguments.get(i));
+        return permuteArguments(concat, methodType(String.class, ELContext.class), new int[arguments.size()]).asType(VALUE);
+    }
+
+    private static MethodHandle test(Node condition, int depth) {
+        return foldArguments(TEST, handle(condition, depth + 1));
+    }
+
+    /**
+     * Returns a handle evaluating {@code node} out of line. The JIT inlines all the combinators of a constant handle,
+     * and inlining them through deep trees of operators takes it longer than the rest of the application: cutting the
+     * tree into segments bounds the code each compilation sees.
+     */
+    private static MethodHandle segment(Node node) {
+        return SEGMENT.bindTo(new CompilerSupport.Segment(handle(node, 0)));
+    }
+
+    /**
+     * Returns a handle behaving like {@link MemberNode#getValue}: an identifier that is not a value names a class, and
+     * resolution failures go through {@link MemberNode#recover}.
+     */
+    private static MethodHandle member(MemberNode memberNode, int depth) {
+        var recover = RECOVER.bindTo(memberNode);
+        MethodHandle read;
+        if (memberNode.property() instanceof IdentifierNode property) {
+            read = permuteArguments(insertArguments(READ, 2, property.value()), UNARY, 1, 0);
+        } else {
+            var readProperty = permuteArguments(READ, BINARY, 2, 1, 0);
+            read = foldArguments(readProperty, dropArguments(handle(memberNode.property(), depth + 1), 0, Object.class));
+        }
+        if (!(memberNode.object() instanceof IdentifierNode identifierNode)) {
+            var value = foldArguments(read, handle(memberNode.object(), depth + 1));
+            return catchException(value, ELException.class, permuteArguments(recover, methodType(Object.class, ELException.class, ELContext.class), 1, 0));
+        }
+        // an unresolved identifier goes through to the class lookup, outside of the recovery from failed reads
+        var resolved = foldArguments(guardWithTest(UNRESOLVED, BASE, read), RESOLVE.bindTo(identifierNode));
+        var value = catchException(resolved, ELException.class, permuteArguments(recover, methodType(Object.class, ELException.class, ELContext.class), 1, 0));
+        var onClass = dropArguments(insertArguments(recover, 1, (Object) null), 0, Object.class);
+        return foldArguments(guardWithTest(UNRESOLVED, onClass, BASE), value);
+    }
+
+    private static MethodHandle operator(Class<?> type, MethodType methodType) {
+        try {
+            return MethodHandles.lookup().findStatic(type, "apply", methodType);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.thihup.joel.impl.compiler;
+
+import dev.thihup.joel.impl.node.CompiledNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.spi.CompilerStats;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Decides when the expressions of a factory are compiled by an {@link ExpressionCompiler}, and keeps count.
+ * <p>
+ * With a threshold of zero, expressions are compiled when they are parsed. Otherwise they are interpreted until they
+ * have been evaluated that many times, counting all the expressions created from the same cached tree, and are then
+ * compiled on a background thread shared by all factories. The thread evaluating them never waits: it keeps
+ * interpreting until the compiled form is installed, see {@link CompiledNode}.
+ */
+public final class TieredCompiler {
+    private static final System.Logger LOGGER = System.getLogger(TieredCompiler.class.getName());
+
+    private final ExpressionCompiler compiler;
+    private final int threshold;
+    private final LongAdder promotedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder pendingCount = new LongAdder();
+    private final LongAdder totalCompileTime = new LongAdder();
+    private final AtomicLong maxCompileTime = new AtomicLong();
+
+    public TieredCompiler(ExpressionCompiler compiler, int threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Negative compile threshold: " + threshold);
+        this.compiler = compiler;
+        this.threshold = threshold;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the form of {@code node} to cache: compiled now, wrapped to be compiled once it is hot, or {@code node}
+     * itself when it is left to the interpreter.
+     */
+    public Node prepare(Node node) {
+        if (!compiler.accepts(node))
+            return node;
+        if (threshold > 0)
+            return new CompiledNode(node, this);
+        var compiled = compile(node);
+        return compiled != null ? new CompiledNode(node, compiled) : node;
+    }
+
+    /**
+     * Compiles {@code node} in the background and passes the compiled form to {@code install}, or {@code null} when it
+     * cannot be compiled and stays with the interpreter.
+     */
+    public void submit(Node node, Consumer<CompiledExpression> install) {
+        pendingCount.increment();
+        try {
+            Background.EXECUTOR.execute(() -> {
+                try {
+                    install.accept(compile(node));
+                } finally {
+                    pendingCount.decrement();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pendingCount.decrement();
+            LOGGER.log(System.Logger.Level.WARNING, "Cannot compile " + node.prettyPrint(), e);
+            install.accept(null);
+        }
+    }
+
+    private CompiledExpression compile(Node node) {
+        long start = System.nanoTime();
+        var compiled = compiler.compile(node);
+        long time = System.nanoTime() - start;
+        totalCompileTime.add(time);
+        maxCompileTime.accumulateAndGet(time, Math::max);
+        (compiled != null ? promotedCount : failedCount).increment();
+        return compiled;
+    }
+
+    public CompilerStats stats() {
+        return new CompilerStats(promotedCount.sum(), failedCount.sum(), pendingCount.sum(), totalCompileTime.sum(), maxCompileTime.get());
+    }
+
+    /**
+     * Started on the first submission only.
+     */
+    private static final class Background {
+        private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+            var thread = new Thread(task, "joel-compiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -10,8 +10,13 @@ public record AndNode(Node left, Node right) implements RelationalNode {
         return context.convertToType(right.getValue(context), boolean.class);
     }
 
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return left.getBoolean(context) && right.getBoolean(context);
+    }
+
     @Override
     public String prettyPrint() {
-        return "%s && %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s && %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
@@ -38,6 +38,6 @@ public record AssignNode(Node left, Node right) implements InfixExpressionNode {
 
     @Override
     public String prettyPrint() {
-        return "%s = %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s = %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
@@ -10,6 +10,11 @@ public enum BooleanNode implements BooleanExpression {
         return this == TRUE ? Boolean.TRUE : Boolean.FALSE;
     }
 
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return this == TRUE;
+    }
+
     public BooleanNode negate() {
         if (this == TRUE)
             return FALSE;
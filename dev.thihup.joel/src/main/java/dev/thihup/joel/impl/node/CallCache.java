@@ -0,0 +1,121 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.BeanELResolver;
+import jakarta.el.ELClass;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jdk.dynalink.CallSiteDescriptor;
+import jdk.dynalink.DynamicLinker;
+import jdk.dynalink.DynamicLinkerFactory;
+import jdk.dynalink.StandardNamespace;
+import jdk.dynalink.StandardOperation;
+import jdk.dynalink.support.ChainedCallSite;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Inline cache of a {@link CallExpressionNode} invoking a named method: the receiver and argument classes for which it
+ * invokes the method through its own call sites, without going through the resolver of the context.
+ * <p>
+ * It works like the {@link PropertyCache}: methods are only invoked from the cache in contexts whose resolver invokes
+ * them like a {@link BeanELResolver}, see {@link ResolverChain}. The call sites are linked once for the node, with the
+ * name and number of arguments it calls the method with, and select and adapt the method to the classes of the values
+ * the way the call sites the {@code BeanELResolver} links for every call do. Calls with a {@code null} argument, whose
+ * method depends on more than classes, are never cached.
+ */
+final class CallCache {
+    static final CallCache MEGAMORPHIC = new CallCache(new Class<?>[0][], null);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final DynamicLinker LINKER = new DynamicLinkerFactory().createLinker();
+    private static final MethodType METHOD = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?>[][] signatures;
+    private final MethodHandle invoker;
+
+    private CallCache(Class<?>[][] signatures, MethodHandle invoker) {
+        this.signatures = signatures;
+        this.invoker = invoker;
+    }
+
+    /**
+     * Whether the methods of the instances of {@code type} are invoked by the {@code BeanELResolver} of a standard
+     * context rather than by one of the resolvers before it, see {@link ResolverChain}.
+     */
+    static boolean isBean(Class<?> type) {
+        return type != ELClass.class && !Stream.class.isAssignableFrom(type) && !Optional.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Whether the method is invoked directly on {@code base} with {@code arguments}.
+     */
+    boolean covers(Object base, Object[] arguments) {
+        for (var signature : signatures) {
+            if (matches(signature, base, arguments))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean matches(Class<?>[] signature, Object base, Object[] arguments) {
+        if (signature[0] != base.getClass())
+            return false;
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == null || signature[i + 1] != arguments[i].getClass())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Invokes the method {@code name} on {@code base}, reporting it as resolved and failing like the
+     * {@code BeanELResolver} would.
+     */
+    Object invoke(ELContext context, Object base, String name, Object[] arguments) {
+        context.setPropertyResolved(base, name);
+        try {
+            return (Object) invoker.invokeExact(base, arguments);
+        } catch (Throwable e) {
+            throw new ELException(e);
+        }
+    }
+
+    /**
+     * Returns the cache {@code cache}, which may be {@code null}, becomes once the {@code BeanELResolver} has invoked the
+     * method {@code name} of {@code base} with {@code arguments}, holding at most {@code size} signatures.
+     */
+    static CallCache learn(CallCache cache, int size, Object base, String name, Object[] arguments) {
+        PropertyCache.READS.get(base.getClass());
+        var signature = new Class<?>[arguments.length + 1];
+        signature[0] = base.getClass();
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] == null)
+                return cache;
+            signature[i + 1] = arguments[i].getClass();
+        }
+        if (cache == null)
+            return new CallCache(new Class<?>[][]{signature}, invoker(name, arguments.length));
+        if (cache.signatures.length >= size)
+            return MEGAMORPHIC;
+        var signatures = Arrays.copyOf(cache.signatures, cache.signatures.length + 1);
+        signatures[cache.signatures.length] = signature;
+        return new CallCache(signatures, cache.invoker);
+    }
+
+    /**
+     * Returns a handle that takes the receiver and an array of {@code arity} arguments, and calls the method
+     * {@code name} of the receiver with them.
+     */
+    private static MethodHandle invoker(String name, int arity) {
+        var method = LINKER.link(new ChainedCallSite(new CallSiteDescriptor(LOOKUP,
+                StandardOperation.GET.withNamespace(StandardNamespace.METHOD).named(name), METHOD))).dynamicInvoker();
+        var call = LINKER.link(new ChainedCallSite(new CallSiteDescriptor(LOOKUP,
+                StandardOperation.CALL, MethodType.genericMethodType(2 + arity)))).dynamicInvoker();
+        return MethodHandles.foldArguments(call, method).asSpreader(Object[].class, arity);
+    }
+}
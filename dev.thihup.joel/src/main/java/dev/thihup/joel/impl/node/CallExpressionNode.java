@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public final class CallExpressionNode implements Node {
     @Serial
@@ -23,11 +24,22 @@ public final class CallExpressionNode implements Node {
     private final Node callee;
     @SuppressWarnings("serial")
     private final List<? extends Node> arguments;
+    private final int cacheSize;
     private final transient Map<String, MethodHandle> resolvedFunction = new HashMap<>();
+    private transient volatile CallCache cache;
 
     public CallExpressionNode(Node callee, List<? extends Node> arguments) {
+        this(callee, arguments, 0);
+    }
+
+    /**
+     * Creates a node that invokes a named method with up to {@code cacheSize} signatures directly, see
+     * {@link CallCache}, rather than through the resolver of the context every time.
+     */
+    public CallExpressionNode(Node callee, List<? extends Node> arguments, int cacheSize) {
         this.callee = callee;
         this.arguments = arguments;
+        this.cacheSize = cacheSize;
     }
 
     @Override
@@ -46,6 +58,8 @@ public final class CallExpressionNode implements Node {
             return ((LambdaExpression) lambdaNode.getValue(context)).invoke(context, arguments.stream().map(x -> x.getValue(context)).toArray());
         }
         if ((callee instanceof MemberNode memberNode)) {
+            if (cacheSize > 0 && memberNode.property() instanceof IdentifierNode name)
+                return invoke(context, memberNode.object().getValue(context), name.value(), values(context));
             var valueReference = memberNode.valueReference(context);
             var objects = arguments.stream().map(x -> x.getValue(context)).toArray();
             return context.getELResolver()
@@ -60,6 +74,31 @@ public final class CallExpressionNode implements Node {
         throw new UnsupportedOperationException();
     }
 
+    private Object[] values(ELContext context) {
+        var values = new Object[arguments.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = arguments.get(i).getValue(context);
+        return values;
+    }
+
+    /**
+     * Invokes the method {@code name} of {@code base} from the inline cache when it covers the classes of the receiver
+     * and arguments, and through the resolver of the context otherwise, learning the classes when the resolver can be
+     * cached.
+     */
+    private Object invoke(ELContext context, Object base, String name, Object[] values) {
+        var resolver = context.getELResolver();
+        var knownCache = cache;
+        if (base == null || knownCache == CallCache.MEGAMORPHIC || !ResolverChain.reachesBeans(resolver))
+            return resolver.invoke(context, base, name, null, values);
+        if (knownCache != null && knownCache.covers(base, values))
+            return knownCache.invoke(context, base, name, values);
+        var value = resolver.invoke(context, base, name, null, values);
+        if (CallCache.isBean(base.getClass()))
+            cache = CallCache.learn(knownCache, cacheSize, base, name, values);
+        return value;
+    }
+
     private Object resolveQualifiedFunction(ELContext context, IdentifierNode identifierNode) {
         var functionMapper = context.getFunctionMapper();
         if (functionMapper == null || !identifierNode.value().contains(":")) {
@@ -101,7 +140,7 @@ public final class CallExpressionNode implements Node {
 
     @Override
     public String prettyPrint() {
-        return "%s(%s)".formatted(callee.prettyPrint(), arguments.stream().map(Node::prettyPrint).collect(Collectors.joining(",")));
+        return "%s(%s)".formatted(Node.operand(callee), arguments.stream().map(Node::prettyPrint).collect(Collectors.joining(",")));
     }
 
     public Node callee() {
@@ -112,18 +151,28 @@ public final class CallExpressionNode implements Node {
         return arguments;
     }
 
+    public int cacheSize() {
+        return cacheSize;
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return Stream.concat(Stream.of(callee), arguments.stream()).toList();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) return true;
         if (obj == null || obj.getClass() != this.getClass()) return false;
         var that = (CallExpressionNode) obj;
         return Objects.equals(this.callee, that.callee) &&
-                Objects.equals(this.arguments, that.arguments);
+                Objects.equals(this.arguments, that.arguments) &&
+                this.cacheSize == that.cacheSize;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(callee, arguments);
+        return Objects.hash(callee, arguments, cacheSize);
     }
 
     @Override
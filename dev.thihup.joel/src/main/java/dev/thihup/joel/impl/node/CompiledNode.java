@@ -0,0 +1,94 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.compiler.CompiledExpression;
+import dev.thihup.joel.impl.compiler.TieredCompiler;
+import jakarta.el.ELContext;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * Root of a cached expression together with its {@linkplain CompiledExpression compiled} form, which evaluates it.
+ * Expressions created from it see the tree itself for everything but evaluation. Serialization writes the tree.
+ * <p>
+ * When the compiled form is not known yet, the tree is interpreted and its evaluations are counted, roughly since they
+ * are not synchronized: the {@link TieredCompiler} is asked to compile it once they reach its threshold, and the
+ * compiled form is swapped in whenever it is ready. A tree that fails to compile gets the interpreter itself as its
+ * compiled form, so that its evaluations stop being counted.
+ */
+public final class CompiledNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+    @SuppressWarnings("serial")
+    private final Node node;
+    private final transient TieredCompiler compiler;
+    private transient volatile CompiledExpression compiled;
+    private transient int evaluations;
+
+    public CompiledNode(Node node, CompiledExpression compiled) {
+        this.node = node;
+        this.compiler = null;
+        this.compiled = compiled;
+    }
+
+    /**
+     * Creates the root of {@code node}, interpreted until it is hot enough for {@code compiler} to compile it.
+     */
+    public CompiledNode(Node node, TieredCompiler compiler) {
+        this.node = node;
+        this.compiler = compiler;
+    }
+
+    public Node node() {
+        return node;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        var compiledForm = compiled;
+        if (compiledForm != null)
+            return compiledForm.evaluate(context);
+        if (++evaluations == compiler.threshold())
+            compiler.submit(node, this::install);
+        return node.getValue(context);
+    }
+
+    private void install(CompiledExpression compiledForm) {
+        compiled = compiledForm != null ? compiledForm : node::getValue;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return node.getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return node.prettyPrint();
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return node;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CompiledNode that && node.equals(that.node);
+    }
+
+    @Override
+    public int hashCode() {
+        return node.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledNode[" + node + "]";
+    }
+}
@@ -0,0 +1,52 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.parser.TemplateScanner;
+import jakarta.el.ELContext;
+
+import java.util.List;
+
+/**
+ * Composite expression: the concatenation of its segments, literal text and {@code ${...}} or {@code #{...}}
+ * expressions, in order.
+ * <p>
+ * All the segments are evaluated before the result is built at once, instead of one intermediate string per segment.
+ * Literal text is copied as is, the values of the expressions are coerced to strings. The segments are kept in a
+ * single list rather than a chain of {@link ConcatNode}s, so that the depth of the tree does not grow with the length
+ * of the template.
+ */
+public record CompositeNode(List<Node> segments) implements Node {
+    @Override
+    public Class<?> getType(ELContext context) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        var values = new String[segments.size()];
+        for (int i = 0; i < values.length; i++) {
+            var segment = segments.get(i);
+            values[i] = segment instanceof StringNode literal ? literal.value() : coerce(segment.getValue(context), context);
+        }
+        return String.join("", values);
+    }
+
+    /**
+     * Coerces the value of an expression segment to the string it contributes.
+     */
+    public static String coerce(Object value, ELContext context) {
+        return (String) context.convertToType(value, String.class);
+    }
+
+    /**
+     * Returns the template this composite parses from, see {@link TemplateScanner#source}.
+     */
+    @Override
+    public String prettyPrint() {
+        return TemplateScanner.source(this);
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return segments;
+    }
+}
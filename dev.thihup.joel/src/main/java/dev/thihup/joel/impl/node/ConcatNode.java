@@ -10,11 +10,15 @@ public record ConcatNode(Node left, Node right) implements InfixExpressionNode {
 
     @Override
     public Object getValue(ELContext context) {
-        return (String) context.convertToType(left.getValue(context), String.class) + context.convertToType(right.getValue(context), String.class);
+        return apply(left.getValue(context), right.getValue(context), context);
+    }
+
+    public static Object apply(Object leftValue, Object rightValue, ELContext context) {
+        return (String) context.convertToType(leftValue, String.class) + context.convertToType(rightValue, String.class);
     }
 
     @Override
     public String prettyPrint() {
-        return "%s += %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s += %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
@@ -2,6 +2,8 @@ package dev.thihup.joel.impl.node;
 
 import jakarta.el.ELContext;
 
+import java.util.List;
+
 public record DeferredExpressionNode(Node node) implements Node {
     @Override
     public Class<?> getType(ELContext context) {
@@ -17,4 +19,9 @@ public record DeferredExpressionNode(Node node) implements Node {
     public String prettyPrint() {
         return "#{%s}".formatted(node.prettyPrint());
     }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
+    }
 }
@@ -11,8 +11,13 @@ public record DivExpressionNode(Node left, Node right) implements InfixExpressio
         return Operation.DIVISION.calculate(leftValue, rightValue, context);
     }
 
+    @Override
+    public double getDouble(ELContext context) {
+        return LongKernelNode.getDouble(LongKernelNode.Kernel.DIV, left, right, context);
+    }
+
     @Override
     public String prettyPrint() {
-        return "%s / %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s / %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
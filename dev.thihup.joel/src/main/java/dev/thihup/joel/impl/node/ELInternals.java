@@ -0,0 +1,25 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.el.ELAccess;
+import dev.thihup.joel.el.SharedSecrets;
+
+/**
+ * The {@link ELAccess} of the {@code jakarta.el} module of this project, or {@code null} when the {@code jakarta.el}
+ * classes at hand come from another jar, in which case what depends on it is resolved on every evaluation.
+ */
+final class ELInternals {
+    static final ELAccess ACCESS = access();
+
+    private ELInternals() {
+    }
+
+    private static ELAccess access() {
+        try {
+            return SharedSecrets.getELAccess();
+        } catch (LinkageError | RuntimeException e) {
+            System.getLogger(ELInternals.class.getName()).log(System.Logger.Level.WARNING,
+                    "The jakarta.el classes do not come from this implementation, static constants are resolved on every evaluation and only a plain BeanELResolver is served from the inline caches", e);
+            return null;
+        }
+    }
+}
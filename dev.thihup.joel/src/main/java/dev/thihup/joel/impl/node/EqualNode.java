@@ -9,8 +9,15 @@ import java.util.function.BiPredicate;
 public record EqualNode(Node left, Node right) implements RelationalNode {
     @Override
     public Object getValue(ELContext context) {
-        var leftValue = left.getValue(context);
-        var rightValue = right.getValue(context);
+        return apply(left.getValue(context), right.getValue(context), context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return LongKernelNode.getBoolean(LongKernelNode.Kernel.EQUAL, left, right, context);
+    }
+
+    public static Object apply(Object leftValue, Object rightValue, ELContext context) {
         BiPredicate<Object, Object> equalsFunction = Object::equals;
         if (leftValue == rightValue)
             return true;
@@ -47,6 +54,6 @@ public record EqualNode(Node left, Node right) implements RelationalNode {
 
     @Override
     public String prettyPrint() {
-        return "%s == %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s == %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
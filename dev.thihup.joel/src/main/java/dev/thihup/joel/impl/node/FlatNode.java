@@ -0,0 +1,323 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression tree lowered to an {@code int[]} instruction stream and a constant pool, walked directly by
+ * {@link #getValue}.
+ * <p>
+ * Instructions are laid out in prefix order, one {@code int} each: the low byte is the opcode and the upper 24 bits its
+ * operand, either a constant index or the length of the first operand subtree, which locates the second one. A
+ * ternary is followed by an extra word holding the length of its true branch. Literals and property names live in the
+ * constant pool, and the nodes that are not worth encoding, such as identifiers, lambdas, calls and collection
+ * literals, are kept there as records and evaluated as such. The record tree is rebuilt on demand by {@link #tree()}
+ * for the rare operations that need it, like {@link #getType} or the error paths.
+ */
+public final class FlatNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+
+    private static final int MAXIMUM_OPERAND = (1 << 24) - 1;
+
+    private static final int CONSTANT = 0;
+    private static final int NODE = 1;
+    private static final int DYNAMIC = 2;
+    private static final int DEFERRED = 3;
+    private static final int NOT = 4;
+    private static final int EMPTY = 5;
+    private static final int MINUS = 6;
+    private static final int ADD = 7;
+    private static final int SUB = 8;
+    private static final int MUL = 9;
+    private static final int DIV = 10;
+    private static final int MOD = 11;
+    private static final int CONCAT = 12;
+    private static final int EQUAL = 13;
+    private static final int NOT_EQUAL = 14;
+    private static final int LESS_THAN = 15;
+    private static final int LESS_EQUAL = 16;
+    private static final int GREATER_THAN = 17;
+    private static final int GREATER_EQUAL = 18;
+    private static final int AND = 19;
+    private static final int OR = 20;
+    private static final int MEMBER = 21;
+    private static final int MEMBER_NAME = 22;
+    private static final int TERNARY = 23;
+
+    private final int[] code;
+    @SuppressWarnings("serial")
+    private final Object[] constants;
+
+    private FlatNode(int[] code, Object[] constants) {
+        this.code = code;
+        this.constants = constants;
+    }
+
+    /**
+     * Lowers {@code node} to its flat encoding. Trees whose root the expressions inspect, such as members and
+     * identifiers, leaves, and trees too large for 24-bit operands are returned unchanged. The segments of a composite
+     * expression are lowered one by one.
+     */
+    public static Node lower(Node node) {
+        if (node instanceof CompositeNode compositeNode)
+            return new CompositeNode(compositeNode.segments().stream().map(FlatNode::lower).toList());
+        if (node instanceof StringNode || node instanceof NumberNode || node instanceof IdentifierNode
+                || node instanceof MemberNode || node instanceof CallExpressionNode || node instanceof LambdaNode
+                || node instanceof Enum<?> || node instanceof ObjectNode || node instanceof FlatNode)
+            return node;
+        var lowering = new Lowering();
+        try {
+            lowering.emit(node);
+        } catch (IndexOutOfBoundsException tooLarge) {
+            return node;
+        }
+        return new FlatNode(Arrays.copyOf(lowering.code, lowering.length), lowering.constants.toArray());
+    }
+
+    /**
+     * Number of instructions, the equivalent of the node count of the record tree.
+     */
+    public int size() {
+        return code.length;
+    }
+
+    /**
+     * Rebuilds the record tree this node was lowered from.
+     */
+    public Node tree() {
+        return decode(0);
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        return evaluate(context, 0);
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return tree().getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return tree().prettyPrint();
+    }
+
+    private Object evaluate(ELContext context, int pc) {
+        int instruction = code[pc];
+        int operand = instruction >>> 8;
+        return switch (instruction & 0xFF) {
+            case CONSTANT -> constants[operand];
+            case NODE -> ((Node) constants[operand]).getValue(context);
+            case DYNAMIC, DEFERRED -> evaluate(context, pc + 1);
+            case NOT -> UnaryNotNode.apply(evaluate(context, pc + 1), context);
+            case EMPTY -> UnaryEmptyNode.apply(evaluate(context, pc + 1));
+            case MINUS -> UnaryMinusNode.apply(evaluate(context, pc + 1), context);
+            case ADD -> Operation.ADDITION.calculate(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case SUB -> Operation.SUBTRACTION.calculate(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case MUL -> Operation.MULTIPLICATION.calculate(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case DIV -> Operation.DIVISION.calculate(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case MOD -> Operation.MODULO.calculate(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case CONCAT -> ConcatNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case EQUAL -> EqualNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case NOT_EQUAL -> NotEqualNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case LESS_THAN -> LessThanNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case LESS_EQUAL -> LessEqualNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case GREATER_THAN -> GreaterThanNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case GREATER_EQUAL -> GreaterEqualNode.apply(evaluate(context, pc + 1), evaluate(context, pc + 1 + operand), context);
+            case AND -> (boolean) context.convertToType(evaluate(context, pc + 1), boolean.class)
+                    ? context.convertToType(evaluate(context, pc + 1 + operand), boolean.class)
+                    : Boolean.FALSE;
+            case OR -> (boolean) context.convertToType(evaluate(context, pc + 1), boolean.class)
+                    ? Boolean.TRUE
+                    : context.convertToType(evaluate(context, pc + 1 + operand), boolean.class);
+            case MEMBER -> {
+                try {
+                    yield context.getELResolver().getValue(context, evaluate(context, pc + 1), evaluate(context, pc + 1 + operand));
+                } catch (ELException rootCause) {
+                    yield ((MemberNode) decode(pc)).recover(context, rootCause);
+                }
+            }
+            case MEMBER_NAME -> {
+                try {
+                    yield context.getELResolver().getValue(context, evaluate(context, pc + 1), constants[operand]);
+                } catch (ELException rootCause) {
+                    yield ((MemberNode) decode(pc)).recover(context, rootCause);
+                }
+            }
+            case TERNARY -> (boolean) context.convertToType(evaluate(context, pc + 2), boolean.class)
+                    ? evaluate(context, pc + 2 + operand)
+                    : evaluate(context, pc + 2 + operand + code[pc + 1]);
+            default -> throw new IllegalStateException("Unknown opcode " + (instruction & 0xFF));
+        };
+    }
+
+    private Node decode(int pc) {
+        int instruction = code[pc];
+        int operand = instruction >>> 8;
+        int right = pc + 1 + operand;
+        return switch (instruction & 0xFF) {
+            case CONSTANT -> constant(constants[operand]);
+            case NODE -> (Node) constants[operand];
+            case DYNAMIC -> new DynamicExpressionNode(decode(pc + 1));
+            case DEFERRED -> new DeferredExpressionNode(decode(pc + 1));
+            case NOT -> new UnaryNotNode(decode(pc + 1));
+            case EMPTY -> new UnaryEmptyNode(decode(pc + 1));
+            case MINUS -> new UnaryMinusNode(decode(pc + 1));
+            case ADD -> new AddExpressionNode(decode(pc + 1), decode(right));
+            case SUB -> new SubExpressionNode(decode(pc + 1), decode(right));
+            case MUL -> new MulExpressionNode(decode(pc + 1), decode(right));
+            case DIV -> new DivExpressionNode(decode(pc + 1), decode(right));
+            case MOD -> new ModExpressionNode(decode(pc + 1), decode(right));
+            case CONCAT -> new ConcatNode(decode(pc + 1), decode(right));
+            case EQUAL -> new EqualNode(decode(pc + 1), decode(right));
+            case NOT_EQUAL -> new NotEqualNode(decode(pc + 1), decode(right));
+            case LESS_THAN -> new LessThanNode(decode(pc + 1), decode(right));
+            case LESS_EQUAL -> new LessEqualNode(decode(pc + 1), decode(right));
+            case GREATER_THAN -> new GreaterThanNode(decode(pc + 1), decode(right));
+            case GREATER_EQUAL -> new GreaterEqualNode(decode(pc + 1), decode(right));
+            case AND -> new AndNode(decode(pc + 1), decode(right));
+            case OR -> new OrNode(decode(pc + 1), decode(right));
+            case MEMBER -> new MemberNode(decode(pc + 1), decode(right));
+            case MEMBER_NAME -> new MemberNode(decode(pc + 1), new IdentifierNode((String) constants[operand]));
+            case TERNARY -> new TernaryNode(decode(pc + 2), decode(pc + 2 + operand), decode(pc + 2 + operand + code[pc + 1]));
+            default -> throw new IllegalStateException("Unknown opcode " + (instruction & 0xFF));
+        };
+    }
+
+    private static Node constant(Object value) {
+        if (value == null)
+            return NullNode.INSTANCE;
+        if (value instanceof Boolean booleanValue)
+            return booleanValue ? BooleanNode.TRUE : BooleanNode.FALSE;
+        if (value instanceof Number number)
+            return new NumberNode(number);
+        return new StringNode((String) value);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof FlatNode that)) return false;
+        return Arrays.equals(code, that.code) && Arrays.equals(constants, that.constants);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(code) + Arrays.hashCode(constants);
+    }
+
+    @Override
+    public String toString() {
+        return "FlatNode[" + tree() + "]";
+    }
+
+    private static final class Lowering {
+        private int[] code = new int[16];
+        private int length;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndexes = new HashMap<>();
+
+        void emit(Node node) {
+            if (node == NullNode.INSTANCE) {
+                emit(CONSTANT, constant(null));
+            } else if (node instanceof BooleanNode booleanNode) {
+                emit(CONSTANT, constant(booleanNode == BooleanNode.TRUE));
+            } else if (node instanceof StringNode stringNode) {
+                emit(CONSTANT, constant(stringNode.value()));
+            } else if (node instanceof NumberNode numberNode) {
+                emit(CONSTANT, constant(numberNode.value()));
+            } else if (node instanceof DynamicExpressionNode dynamicExpression) {
+                emitUnary(DYNAMIC, dynamicExpression.node());
+            } else if (node instanceof DeferredExpressionNode deferredExpression) {
+                emitUnary(DEFERRED, deferredExpression.node());
+            } else if (node instanceof UnaryNotNode notNode) {
+                emitUnary(NOT, notNode.node());
+            } else if (node instanceof UnaryEmptyNode emptyNode) {
+                emitUnary(EMPTY, emptyNode.node());
+            } else if (node instanceof UnaryMinusNode minusNode) {
+                emitUnary(MINUS, minusNode.node());
+            } else if (node instanceof MemberNode memberNode && memberNode.property() instanceof IdentifierNode name) {
+                emit(MEMBER_NAME, constant(name.value()));
+                emit(memberNode.object());
+            } else if (node instanceof MemberNode memberNode) {
+                emitBinary(MEMBER, memberNode.object(), memberNode.property());
+            } else if (node instanceof TernaryNode ternaryNode) {
+                int start = length;
+                emit(TERNARY, 0);
+                emit(0, 0);
+                emit(ternaryNode.condition());
+                int trueStart = length;
+                emit(ternaryNode.trueExpression());
+                code[start] = instruction(TERNARY, trueStart - start - 2);
+                code[start + 1] = length - trueStart;
+                emit(ternaryNode.falseExpression());
+            } else if (node instanceof InfixExpressionNode infix && opcode(infix) >= 0) {
+                emitBinary(opcode(infix), infix.left(), infix.right());
+            } else if (node instanceof RelationalNode relational) {
+                emitBinary(opcode(relational), relational.left(), relational.right());
+            } else {
+                emit(NODE, constant(node));
+            }
+        }
+
+        private static int opcode(Node node) {
+            if (node instanceof AddExpressionNode) return ADD;
+            if (node instanceof SubExpressionNode) return SUB;
+            if (node instanceof MulExpressionNode) return MUL;
+            if (node instanceof DivExpressionNode) return DIV;
+            if (node instanceof ModExpressionNode) return MOD;
+            if (node instanceof ConcatNode) return CONCAT;
+            if (node instanceof EqualNode) return EQUAL;
+            if (node instanceof NotEqualNode) return NOT_EQUAL;
+            if (node instanceof LessThanNode) return LESS_THAN;
+            if (node instanceof LessEqualNode) return LESS_EQUAL;
+            if (node instanceof GreaterThanNode) return GREATER_THAN;
+            if (node instanceof GreaterEqualNode) return GREATER_EQUAL;
+            if (node instanceof AndNode) return AND;
+            if (node instanceof OrNode) return OR;
+            return -1;
+        }
+
+        private void emitUnary(int opcode, Node operand) {
+            emit(opcode, 0);
+            emit(operand);
+        }
+
+        private void emitBinary(int opcode, Node left, Node right) {
+            int start = length;
+            emit(opcode, 0);
+            emit(left);
+            code[start] = instruction(opcode, length - start - 1);
+            emit(right);
+        }
+
+        private int constant(Object value) {
+            return constantIndexes.computeIfAbsent(value, key -> {
+                constants.add(key);
+                return constants.size() - 1;
+            });
+        }
+
+        private void emit(int opcode, int operand) {
+            if (length == code.length)
+                code = Arrays.copyOf(code, length * 2);
+            code[length++] = instruction(opcode, operand);
+        }
+
+        private static int instruction(int opcode, int operand) {
+            if (operand > MAXIMUM_OPERAND)
+                throw new IndexOutOfBoundsException("Operand does not fit in 24 bits: " + operand);
+            return operand << 8 | opcode;
+        }
+    }
+}
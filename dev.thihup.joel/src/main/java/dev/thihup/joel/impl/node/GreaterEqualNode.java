@@ -8,10 +8,17 @@ import java.math.BigInteger;
 
 public record GreaterEqualNode(Node left, Node right) implements RelationalNode {
     @Override
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public Object getValue(ELContext context) {
-        var leftValue = left.getValue(context);
-        var rightValue = right.getValue(context);
+        return apply(left.getValue(context), right.getValue(context), context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return LongKernelNode.getBoolean(LongKernelNode.Kernel.GREATER_EQUAL, left, right, context);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Object apply(Object leftValue, Object rightValue, ELContext context) {
         if (leftValue == rightValue)
             return true;
         if (leftValue == null || rightValue == null) {
@@ -45,6 +52,6 @@ public record GreaterEqualNode(Node left, Node right) implements RelationalNode
 
     @Override
     public String prettyPrint() {
-        return "%s >= %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s >= %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
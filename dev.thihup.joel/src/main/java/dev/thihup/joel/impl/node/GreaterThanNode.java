@@ -8,10 +8,17 @@ import java.math.BigInteger;
 
 public record GreaterThanNode(Node left, Node right) implements RelationalNode {
     @Override
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public Object getValue(ELContext context) {
-        var leftValue = left.getValue(context);
-        var rightValue = right.getValue(context);
+        return apply(left.getValue(context), right.getValue(context), context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return LongKernelNode.getBoolean(LongKernelNode.Kernel.GREATER_THAN, left, right, context);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Object apply(Object leftValue, Object rightValue, ELContext context) {
         if (leftValue == null || rightValue == null) {
             return false;
         }
@@ -41,6 +48,6 @@ public record GreaterThanNode(Node left, Node right) implements RelationalNode {
 
     @Override
     public String prettyPrint() {
-        return "%s > %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s > %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
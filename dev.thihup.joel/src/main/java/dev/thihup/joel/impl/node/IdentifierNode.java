@@ -4,7 +4,29 @@ import jakarta.el.ELClass;
 import jakarta.el.ELContext;
 import jakarta.el.PropertyNotFoundException;
 
-public record IdentifierNode(String value) implements Node {
+import java.io.Serial;
+import java.util.Objects;
+
+public final class IdentifierNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Returned by {@link #resolve(ELContext)} for an identifier that nothing defines.
+     */
+    public static final Object UNRESOLVED = new Object();
+
+    private final String value;
+    private transient volatile StaticBinding binding;
+
+    public IdentifierNode(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
     @Override
     public Class<?> getType(ELContext context) {
         var variableMapper = context.getVariableMapper();
@@ -27,6 +49,17 @@ public record IdentifierNode(String value) implements Node {
 
     @Override
     public Object getValue(ELContext context) {
+        var result = resolve(context);
+        if (result == UNRESOLVED)
+            throw notFound();
+        return result;
+    }
+
+    /**
+     * Returns the value of this identifier, or {@link #UNRESOLVED} instead of throwing when nothing defines it. A
+     * statically imported constant is bound to this node the first time it is resolved.
+     */
+    public Object resolve(ELContext context) {
         if (context.isLambdaArgument(value))
             return context.getLambdaArgument(value);
         var variableMapper = context.getVariableMapper();
@@ -41,16 +74,49 @@ public record IdentifierNode(String value) implements Node {
         if (context.isPropertyResolved()) {
             return result;
         }
-        Class<?> aClass = context.getImportHandler().resolveStatic(value);
-        if (aClass != null) {
-            context.getELResolver().getValue(context, new ELClass(aClass), value);
+        var importHandler = context.getImportHandler();
+        var staticBinding = binding;
+        if (staticBinding != null && staticBinding.isBoundTo(importHandler))
+            return staticBinding.value(context);
+        Class<?> aClass = importHandler.resolveStatic(value);
+        if (aClass == null)
+            return UNRESOLVED;
+        if (staticBinding != null && staticBinding.type() == aClass) {
+            binding = staticBinding.rebind(importHandler);
+            return staticBinding.value(context);
         }
+        result = context.getELResolver().getValue(context, new ELClass(aClass), value);
+        if (!context.isPropertyResolved())
+            return UNRESOLVED;
+        binding = StaticBinding.of(importHandler, aClass, value, result);
+        return result;
+    }
 
-        throw new PropertyNotFoundException("Property %s not found".formatted(value));
+    public PropertyNotFoundException notFound() {
+        return new PropertyNotFoundException("Property %s not found".formatted(value));
     }
 
     @Override
     public String prettyPrint() {
         return value;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != this.getClass()) return false;
+        var that = (IdentifierNode) obj;
+        return Objects.equals(this.value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return "IdentifierNode[" +
+                "value=" + value + ']';
+    }
 }
@@ -2,6 +2,8 @@ package dev.thihup.joel.impl.node;
 
 import jakarta.el.ELContext;
 
+import java.util.List;
+
 public sealed interface InfixExpressionNode extends Node permits
         AddExpressionNode,
         AssignNode,
@@ -14,6 +16,11 @@ public sealed interface InfixExpressionNode extends Node permits
 
     Node right();
 
+    @Override
+    default List<? extends Node> children() {
+        return List.of(left(), right());
+    }
+
     @Override
     default Class<?> getType(ELContext context) {
         return Number.class;
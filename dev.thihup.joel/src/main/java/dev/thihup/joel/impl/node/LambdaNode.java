@@ -14,6 +14,11 @@ public record LambdaNode(List<String> parameters, Node expression) implements No
 
     @Override
     public String prettyPrint() {
-        return "(%s) -> %s".formatted(String.join(",", parameters), expression.prettyPrint());
+        return "(%s) -> %s".formatted(String.join(",", parameters), Node.operand(expression));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(expression);
     }
 }
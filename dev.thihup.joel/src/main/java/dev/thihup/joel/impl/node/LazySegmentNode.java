@@ -0,0 +1,94 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELContext;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@code ${...}} or {@code #{...}} segment of a composite expression whose source is only parsed the first time it is
+ * evaluated. The parsed segment is memoized, a segment that does not parse fails each of its evaluations instead of
+ * the creation of the expression. Serialization writes the parsed segment.
+ */
+public final class LazySegmentNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+    private final String source;
+    private final transient Function<String, Node> parser;
+    private transient volatile Node node;
+
+    /**
+     * @param source the whole segment, delimiters included
+     * @param parser turns {@code source} into its {@link DynamicExpressionNode} or {@link DeferredExpressionNode}
+     */
+    public LazySegmentNode(String source, Function<String, Node> parser) {
+        this.source = source;
+        this.parser = parser;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public boolean deferred() {
+        return source.charAt(0) == '#';
+    }
+
+    /**
+     * Returns the parsed segment, parsing it on the first call.
+     */
+    public Node node() {
+        var result = node;
+        if (result == null) {
+            synchronized (this) {
+                result = node;
+                if (result == null) {
+                    result = parser.apply(source);
+                    node = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        return node().getValue(context);
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return node().getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return node().prettyPrint();
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of();
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return node();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof LazySegmentNode that && source.equals(that.source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LazySegmentNode[" + source + "]";
+    }
+}
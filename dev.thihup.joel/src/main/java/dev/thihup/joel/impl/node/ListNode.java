@@ -23,4 +23,9 @@ public record ListNode(List<Node> values) implements Node {
     public String prettyPrint() {
         return values.stream().map(Node::prettyPrint).collect(Collectors.joining(",", "[", "]"));
     }
+
+    @Override
+    public List<? extends Node> children() {
+        return values;
+    }
 }
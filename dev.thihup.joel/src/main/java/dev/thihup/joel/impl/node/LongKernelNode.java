@@ -0,0 +1,398 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import jakarta.el.ELContext;
+
+import java.io.Serial;
+import java.util.List;
+
+/**
+ * Arithmetic or comparison with an operand known to be a {@link Long}, see
+ * {@link dev.thihup.joel.impl.optimizer.TypeInference}. When both values are integers no wider than a {@code long}, it
+ * computes the result directly, without the conversions of the generic operator, which it falls back to otherwise.
+ */
+public record LongKernelNode(Kernel kernel, Node left, Node right) implements Node {
+    @Override
+    public Object getValue(ELContext context) {
+        return kernel.evaluate(left.getValue(context), right.getValue(context), context);
+    }
+
+    @Override
+    public long getLong(ELContext context) {
+        return kernel.isIntegerArithmetic() ? getLong(kernel, left, right, context) : Node.super.getLong(context);
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        return kernel.type == Number.class ? getDouble(kernel, left, right, context) : Node.super.getDouble(context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return kernel.type == Boolean.class ? getBoolean(kernel, left, right, context) : Node.super.getBoolean(context);
+    }
+
+    /**
+     * Evaluates the integer arithmetic {@code kernel} of {@code left} and {@code right} coerced to a {@code long},
+     * without boxing the intermediate results of the integer arithmetic its operands are made of.
+     */
+    static long getLong(Kernel kernel, Node left, Node right, ELContext context) {
+        try {
+            return longValue(kernel, left, right, context);
+        } catch (NotIntegral notIntegral) {
+            return (long) context.convertToType(notIntegral.value, long.class);
+        }
+    }
+
+    /**
+     * Evaluates the arithmetic {@code kernel} of {@code left} and {@code right} coerced to a {@code double}, see
+     * {@link #getLong(Kernel, Node, Node, ELContext)}.
+     */
+    static double getDouble(Kernel kernel, Node left, Node right, ELContext context) {
+        if (kernel == Kernel.DIV) {
+            var leftValue = left.getValue(context);
+            var rightValue = right.getValue(context);
+            if (isIntegral(leftValue) && isIntegral(rightValue))
+                return ((Number) leftValue).doubleValue() / ((Number) rightValue).doubleValue();
+            return (double) context.convertToType(kernel.fallback(leftValue, rightValue, context), double.class);
+        }
+        try {
+            return longValue(kernel, left, right, context);
+        } catch (NotIntegral notIntegral) {
+            return (double) context.convertToType(notIntegral.value, double.class);
+        }
+    }
+
+    /**
+     * Evaluates the comparison {@code kernel} of {@code left} and {@code right}, see
+     * {@link #getLong(Kernel, Node, Node, ELContext)}.
+     */
+    static boolean getBoolean(Kernel kernel, Node left, Node right, ELContext context) {
+        long leftValue = 0;
+        Object leftObject = null;
+        boolean leftIntegral = true;
+        try {
+            leftValue = operand(left, context);
+        } catch (NotIntegral notIntegral) {
+            leftObject = notIntegral.value;
+            leftIntegral = false;
+        }
+        long rightValue = 0;
+        Object rightObject = null;
+        boolean rightIntegral = true;
+        try {
+            rightValue = operand(right, context);
+        } catch (NotIntegral notIntegral) {
+            rightObject = notIntegral.value;
+            rightIntegral = false;
+        }
+        if (leftIntegral && rightIntegral) {
+            return switch (kernel) {
+                case EQUAL -> leftValue == rightValue;
+                case NOT_EQUAL -> leftValue != rightValue;
+                case LESS_THAN -> leftValue < rightValue;
+                case LESS_EQUAL -> leftValue <= rightValue;
+                case GREATER_THAN -> leftValue > rightValue;
+                case GREATER_EQUAL -> leftValue >= rightValue;
+                default -> throw new IllegalStateException(kernel.toString());
+            };
+        }
+        var result = kernel.fallback(leftIntegral ? leftValue : leftObject, rightIntegral ? rightValue : rightObject, context);
+        return (boolean) context.convertToType(result, boolean.class);
+    }
+
+    /**
+     * Computes the integer arithmetic {@code kernel} of {@code left} and {@code right}. Operands that are not integers
+     * make it fall back to the generic operator, whose result it throws unless it is an integer.
+     */
+    private static long longValue(Kernel kernel, Node left, Node right, ELContext context) {
+        long leftValue = 0;
+        Object leftObject = null;
+        boolean leftIntegral = true;
+        try {
+            leftValue = operand(left, context);
+        } catch (NotIntegral notIntegral) {
+            leftObject = notIntegral.value;
+            leftIntegral = false;
+        }
+        long rightValue = 0;
+        Object rightObject = null;
+        boolean rightIntegral = true;
+        try {
+            rightValue = operand(right, context);
+        } catch (NotIntegral notIntegral) {
+            rightObject = notIntegral.value;
+            rightIntegral = false;
+        }
+        if (leftIntegral && rightIntegral) {
+            return switch (kernel) {
+                case ADD -> leftValue + rightValue;
+                case SUB -> leftValue - rightValue;
+                case MUL -> leftValue * rightValue;
+                case MOD -> leftValue % rightValue;
+                default -> throw new IllegalStateException(kernel.toString());
+            };
+        }
+        var result = kernel.fallback(leftIntegral ? leftValue : leftObject, rightIntegral ? rightValue : rightObject, context);
+        if (isIntegral(result))
+            return ((Number) result).longValue();
+        throw new NotIntegral(result);
+    }
+
+    /**
+     * Returns the value of {@code operand} when it is an integer no wider than a {@code long}, and throws it otherwise.
+     * Integer arithmetic, generic or specialized, is computed without boxing its result.
+     */
+    private static long operand(Node operand, ELContext context) {
+        if (operand instanceof LongKernelNode kernelNode && kernelNode.kernel.isIntegerArithmetic())
+            return longValue(kernelNode.kernel, kernelNode.left, kernelNode.right, context);
+        if (operand instanceof InfixExpressionNode infixNode) {
+            var kernel = Kernel.of(operand);
+            if (kernel != null && kernel.isIntegerArithmetic())
+                return longValue(kernel, infixNode.left(), infixNode.right(), context);
+        }
+        var value = operand.getValue(context);
+        if (isIntegral(value))
+            return ((Number) value).longValue();
+        throw new NotIntegral(value);
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return kernel.type;
+    }
+
+    @Override
+    public String prettyPrint() {
+        return "%s %s %s".formatted(Node.operand(left), kernel.operator, Node.operand(right));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(left, right);
+    }
+
+    public enum Kernel {
+        ADD("+", Number.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left + right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return Operation.ADDITION.calculate(left, right, context);
+            }
+        },
+        SUB("-", Number.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left - right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return Operation.SUBTRACTION.calculate(left, right, context);
+            }
+        },
+        MUL("*", Number.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left * right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return Operation.MULTIPLICATION.calculate(left, right, context);
+            }
+        },
+        DIV("/", Number.class) {
+            @Override
+            Object apply(long left, long right) {
+                return (double) left / (double) right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return Operation.DIVISION.calculate(left, right, context);
+            }
+        },
+        MOD("%", Number.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left % right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return Operation.MODULO.calculate(left, right, context);
+            }
+        },
+        EQUAL("==", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left == right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return EqualNode.apply(left, right, context);
+            }
+        },
+        NOT_EQUAL("!=", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left != right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return NotEqualNode.apply(left, right, context);
+            }
+        },
+        LESS_THAN("<", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left < right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return LessThanNode.apply(left, right, context);
+            }
+        },
+        LESS_EQUAL("<=", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left <= right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return LessEqualNode.apply(left, right, context);
+            }
+        },
+        GREATER_THAN(">", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left > right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return GreaterThanNode.apply(left, right, context);
+            }
+        },
+        GREATER_EQUAL(">=", Boolean.class) {
+            @Override
+            Object apply(long left, long right) {
+                return left >= right;
+            }
+
+            @Override
+            Object fallback(Object left, Object right, ELContext context) {
+                return GreaterEqualNode.apply(left, right, context);
+            }
+        };
+
+        private final String operator;
+        private final Class<?> type;
+
+        Kernel(String operator, Class<?> type) {
+            this.operator = operator;
+            this.type = type;
+        }
+
+        String operator() {
+            return operator;
+        }
+
+        Class<?> type() {
+            return type;
+        }
+
+        abstract Object apply(long left, long right);
+
+        /**
+         * Whether two integers give an integer, which is the case of all the arithmetic but the division.
+         */
+        boolean isIntegerArithmetic() {
+            return this == ADD || this == SUB || this == MUL || this == MOD;
+        }
+
+        /**
+         * Applies the kernel to the values of the operands, falling back to the generic operator for non-integers.
+         */
+        public Object evaluate(Object left, Object right, ELContext context) {
+            if (isIntegral(left) && isIntegral(right))
+                return apply(((Number) left).longValue(), ((Number) right).longValue());
+            return fallback(left, right, context);
+        }
+
+        abstract Object fallback(Object left, Object right, ELContext context);
+
+        /**
+         * Returns the kernel of the generic operator {@code node}, or {@code null} when there is none.
+         */
+        public static Kernel of(Node node) {
+            if (node instanceof AddExpressionNode) return ADD;
+            if (node instanceof SubExpressionNode) return SUB;
+            if (node instanceof MulExpressionNode) return MUL;
+            if (node instanceof DivExpressionNode) return DIV;
+            if (node instanceof ModExpressionNode) return MOD;
+            if (node instanceof EqualNode) return EQUAL;
+            if (node instanceof NotEqualNode) return NOT_EQUAL;
+            if (node instanceof LessThanNode) return LESS_THAN;
+            if (node instanceof LessEqualNode) return LESS_EQUAL;
+            if (node instanceof GreaterThanNode) return GREATER_THAN;
+            if (node instanceof GreaterEqualNode) return GREATER_EQUAL;
+            return null;
+        }
+
+        /**
+         * Returns the generic node of this operation on {@code left} and {@code right}, the inverse of {@link #of}.
+         */
+        public Node generic(Node left, Node right) {
+            return switch (this) {
+                case ADD -> new AddExpressionNode(left, right);
+                case SUB -> new SubExpressionNode(left, right);
+                case MUL -> new MulExpressionNode(left, right);
+                case DIV -> new DivExpressionNode(left, right);
+                case MOD -> new ModExpressionNode(left, right);
+                case EQUAL -> new EqualNode(left, right);
+                case NOT_EQUAL -> new NotEqualNode(left, right);
+                case LESS_THAN -> new LessThanNode(left, right);
+                case LESS_EQUAL -> new LessEqualNode(left, right);
+                case GREATER_THAN -> new GreaterThanNode(left, right);
+                case GREATER_EQUAL -> new GreaterEqualNode(left, right);
+            };
+        }
+
+        /**
+         * Static type of the result for two {@link Long} operands.
+         */
+        public Class<?> resultType() {
+            return this == DIV ? Double.class : type == Boolean.class ? Boolean.class : Long.class;
+        }
+    }
+
+    /**
+     * Value of an operand, or of an arithmetic, that is not an integer no wider than a {@code long}. It is thrown
+     * without a stack trace, and only once the evaluation has left the integer fast path.
+     */
+    private static final class NotIntegral extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 0L;
+
+        private final transient Object value;
+
+        NotIntegral(Object value) {
+            super(null, null, false, false);
+            this.value = value;
+        }
+    }
+}
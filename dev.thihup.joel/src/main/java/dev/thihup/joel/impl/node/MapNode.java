@@ -0,0 +1,37 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELContext;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public record MapNode(List<Node> keys, List<Node> values) implements Node {
+    @Override
+    public Class<?> getType(ELContext context) {
+        return Map.class;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        var map = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++)
+            map.put(keys.get(i).getValue(context), values.get(i).getValue(context));
+        return map;
+    }
+
+    @Override
+    public String prettyPrint() {
+        return IntStream.range(0, keys.size())
+                .mapToObj(i -> "%s:%s".formatted(keys.get(i).prettyPrint(), values.get(i).prettyPrint()))
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return Stream.concat(keys.stream(), values.stream()).toList();
+    }
+}
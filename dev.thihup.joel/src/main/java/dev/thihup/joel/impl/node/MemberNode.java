@@ -7,7 +7,47 @@ import jakarta.el.ImportHandler;
 import jakarta.el.PropertyNotFoundException;
 import jakarta.el.ValueReference;
 
-public record MemberNode(Node object, Node property) implements Node {
+import java.io.Serial;
+import java.util.List;
+import java.util.Objects;
+
+public final class MemberNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+    @SuppressWarnings("serial")
+    private final Node object;
+    @SuppressWarnings("serial")
+    private final Node property;
+    private final int cacheSize;
+    private transient volatile StaticBinding binding;
+    private transient volatile PropertyCache cache;
+
+    public MemberNode(Node object, Node property) {
+        this(object, property, 0);
+    }
+
+    /**
+     * Creates a node that reads a named property of up to {@code cacheSize} bean classes directly, see
+     * {@link PropertyCache}, rather than through the resolver of the context every time.
+     */
+    public MemberNode(Node object, Node property, int cacheSize) {
+        this.object = object;
+        this.property = property;
+        this.cacheSize = cacheSize;
+    }
+
+    public Node object() {
+        return object;
+    }
+
+    public Node property() {
+        return property;
+    }
+
+    public int cacheSize() {
+        return cacheSize;
+    }
+
     @Override
     public Class<?> getType(ELContext context) {
         if (property instanceof IdentifierNode node)
@@ -19,18 +59,70 @@ public record MemberNode(Node object, Node property) implements Node {
     @Override
     public Object getValue(ELContext context) {
         try {
-            return context.getELResolver().getValue(context, object.getValue(context), property instanceof IdentifierNode node ? node.value() : property.getValue(context));
+            var base = object instanceof IdentifierNode identifier ? identifier.resolve(context) : object.getValue(context);
+            if (base != IdentifierNode.UNRESOLVED) {
+                if (cacheSize > 0 && base != null && property instanceof IdentifierNode node)
+                    return read(context, base, node.value());
+                return context.getELResolver().getValue(context, base, property instanceof IdentifierNode node ? node.value() : property.getValue(context));
+            }
         } catch (ELException rootCause) {
-            if (object instanceof IdentifierNode node) {
-                ImportHandler importHandler = context.getImportHandler();
-                if (importHandler != null) {
-                    Class<?> aClass = importHandler.resolveClass(node.value());
-                    if (aClass != null)
-                        return context.getELResolver().getValue(context, new ELClass(aClass), property instanceof IdentifierNode identifier ? identifier.value() : property.getValue(context));
+            return recover(context, rootCause);
+        }
+        return onClass(context, (IdentifierNode) object, null);
+    }
+
+    /**
+     * Reads the property {@code name} of {@code base} from the inline cache when it covers the class of {@code base},
+     * and through the resolver of the context otherwise, learning the class when the resolver can be cached.
+     */
+    private Object read(ELContext context, Object base, String name) {
+        var resolver = context.getELResolver();
+        if (!ResolverChain.reachesBeans(resolver))
+            return resolver.getValue(context, base, name);
+        var knownCache = cache;
+        if (knownCache != null && knownCache.covers(base.getClass()))
+            return knownCache.read(context, base, name);
+        var value = resolver.getValue(context, base, name);
+        if (knownCache != PropertyCache.MEGAMORPHIC && PropertyCache.isBean(base.getClass()))
+            cache = PropertyCache.learn(knownCache, cacheSize, base.getClass(), name);
+        return value;
+    }
+
+    /**
+     * Resolves the property on the class named by the object when the object could not be resolved as a value.
+     */
+    public Object recover(ELContext context, ELException rootCause) {
+        if (object instanceof IdentifierNode node)
+            return onClass(context, node, rootCause);
+        throw new PropertyNotFoundException(prettyPrint(), rootCause);
+    }
+
+    /**
+     * Resolves the property on the class the import handler finds for {@code className}. A {@code static final}
+     * constant is bound to this node the first time it is resolved, and read from the binding as long as the import
+     * handler is the same and has imported nothing since, or resolves the same class.
+     */
+    private Object onClass(ELContext context, IdentifierNode className, ELException rootCause) {
+        ImportHandler importHandler = context.getImportHandler();
+        if (importHandler != null) {
+            var staticBinding = binding;
+            if (staticBinding != null && staticBinding.isBoundTo(importHandler))
+                return staticBinding.value(context);
+            Class<?> aClass = importHandler.resolveClass(className.value());
+            if (aClass != null) {
+                if (staticBinding != null && staticBinding.type() == aClass) {
+                    binding = staticBinding.rebind(importHandler);
+                    return staticBinding.value(context);
                 }
+                if (!(property instanceof IdentifierNode identifier))
+                    return context.getELResolver().getValue(context, new ELClass(aClass), property.getValue(context));
+                var value = context.getELResolver().getValue(context, new ELClass(aClass), identifier.value());
+                if (context.isPropertyResolved())
+                    binding = StaticBinding.of(importHandler, aClass, identifier.value(), value);
+                return value;
             }
-            throw new PropertyNotFoundException(prettyPrint(), rootCause);
         }
+        throw new PropertyNotFoundException(prettyPrint(), rootCause != null ? rootCause : className.notFound());
     }
 
     public ValueReference valueReference(ELContext context) {
@@ -39,6 +131,35 @@ public record MemberNode(Node object, Node property) implements Node {
 
     @Override
     public String prettyPrint() {
-        return "%s.%s".formatted(object.prettyPrint(), property.prettyPrint());
+        return property instanceof IdentifierNode
+                ? "%s.%s".formatted(Node.operand(object), property.prettyPrint())
+                : "%s[%s]".formatted(Node.operand(object), property.prettyPrint());
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(object, property);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != this.getClass()) return false;
+        var that = (MemberNode) obj;
+        return Objects.equals(this.object, that.object) &&
+                Objects.equals(this.property, that.property) &&
+                this.cacheSize == that.cacheSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(object, property, cacheSize);
+    }
+
+    @Override
+    public String toString() {
+        return "MemberNode[" +
+                "object=" + object + ", " +
+                "property=" + property + ']';
     }
 }
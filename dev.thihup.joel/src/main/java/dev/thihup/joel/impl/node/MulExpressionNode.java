@@ -11,8 +11,18 @@ public record MulExpressionNode(Node left, Node right) implements InfixExpressio
         return Operation.MULTIPLICATION.calculate(leftValue, rightValue, context);
     }
 
+    @Override
+    public long getLong(ELContext context) {
+        return LongKernelNode.getLong(LongKernelNode.Kernel.MUL, left, right, context);
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        return LongKernelNode.getDouble(LongKernelNode.Kernel.MUL, left, right, context);
+    }
+
     @Override
     public String prettyPrint() {
-        return "%s * %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s * %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
@@ -3,22 +3,34 @@ package dev.thihup.joel.impl.node;
 import jakarta.el.ELContext;
 
 import java.io.Serializable;
+import java.util.List;
 
 public sealed interface Node extends Serializable
         permits CallExpressionNode,
+        CompiledNode,
+        CompositeNode,
+        FlatNode,
         BooleanExpression,
         InfixExpressionNode,
         DeferredExpressionNode,
         DynamicExpressionNode,
         IdentifierNode,
         LambdaNode,
+        LazySegmentNode,
+        LongKernelNode,
         ListNode,
+        MapNode,
         MemberNode,
         NullNode,
         NumberNode,
+        RegisterNode,
         SemicolonNode,
         SetNode,
+        SideEffectNode,
+        SpecializingNode,
         StringNode,
+        SubexpressionNode,
+        SubexpressionScopeNode,
         TernaryNode,
         UnaryEmptyNode,
         UnaryMinusNode,
@@ -29,11 +41,52 @@ public sealed interface Node extends Serializable
         throw new UnsupportedOperationException(this.toString());
     }
 
+    /**
+     * Evaluates this node coerced to a {@code long}. Nodes that can compute the result without boxing it override this.
+     */
+    default long getLong(ELContext context) {
+        return (long) context.convertToType(getValue(context), long.class);
+    }
+
+    /**
+     * Evaluates this node coerced to a {@code double}, see {@link #getLong}.
+     */
+    default double getDouble(ELContext context) {
+        return (double) context.convertToType(getValue(context), double.class);
+    }
+
+    /**
+     * Evaluates this node coerced to a {@code boolean}, see {@link #getLong}.
+     */
+    default boolean getBoolean(ELContext context) {
+        return (boolean) context.convertToType(getValue(context), boolean.class);
+    }
+
     default Class<?> getType(ELContext context) {
         throw new UnsupportedOperationException(this.toString());
     }
 
+    /**
+     * Returns the source of this node, which parses back to an equivalent tree.
+     */
     default String prettyPrint() {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Returns the {@linkplain #prettyPrint() source} of {@code node} as the operand of an operator, parenthesized unless
+     * it cannot be split by the operators around it.
+     */
+    static String operand(Node node) {
+        var source = node.prettyPrint();
+        boolean atomic = node instanceof IdentifierNode || node instanceof StringNode || node instanceof BooleanNode
+                || node instanceof NullNode || node instanceof MemberNode || node instanceof CallExpressionNode
+                || node instanceof ListNode || node instanceof MapNode || node instanceof SetNode
+                || node instanceof NumberNode && !source.startsWith("-") && !source.contains("/");
+        return atomic ? source : "(" + source + ")";
+    }
+
+    default List<? extends Node> children() {
+        return List.of();
+    }
 }
@@ -0,0 +1,69 @@
+package dev.thihup.joel.impl.node;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Helpers for passes that rewrite trees.
+ */
+public final class Nodes {
+    private Nodes() {
+    }
+
+    /**
+     * Returns a node of the same kind as {@code node} whose {@linkplain Node#children() children} are {@code children},
+     * in the same order.
+     */
+    public static Node withChildren(Node node, List<Node> children) {
+        if (node instanceof LambdaNode lambdaNode)
+            return new LambdaNode(lambdaNode.parameters(), children.get(0));
+        if (node instanceof CallExpressionNode callNode)
+            return new CallExpressionNode(children.get(0), List.copyOf(children.subList(1, children.size())), callNode.cacheSize());
+        if (node instanceof ListNode)
+            return new ListNode(Collections.unmodifiableList(children));
+        if (node instanceof CompositeNode)
+            return new CompositeNode(Collections.unmodifiableList(children));
+        if (node instanceof SetNode)
+            return new SetNode(Collections.unmodifiableList(children));
+        if (node instanceof MapNode mapNode) {
+            int size = mapNode.keys().size();
+            return new MapNode(List.copyOf(children.subList(0, size)), List.copyOf(children.subList(size, children.size())));
+        }
+        if (node instanceof TernaryNode)
+            return new TernaryNode(children.get(0), children.get(1), children.get(2));
+        if (node instanceof UnaryMinusNode) return new UnaryMinusNode(children.get(0));
+        if (node instanceof UnaryNotNode) return new UnaryNotNode(children.get(0));
+        if (node instanceof UnaryEmptyNode) return new UnaryEmptyNode(children.get(0));
+        if (node instanceof DynamicExpressionNode) return new DynamicExpressionNode(children.get(0));
+        if (node instanceof DeferredExpressionNode) return new DeferredExpressionNode(children.get(0));
+        if (node instanceof LongKernelNode kernelNode) return new LongKernelNode(kernelNode.kernel(), children.get(0), children.get(1));
+        if (node instanceof MemberNode memberNode)
+            return new MemberNode(children.get(0), children.get(1), memberNode.cacheSize());
+        if (node instanceof SpecializingNode specializingNode)
+            return new SpecializingNode(specializingNode.kernel(), children.get(0), children.get(1), specializingNode.limit());
+        if (node instanceof SubexpressionScopeNode scopeNode) return new SubexpressionScopeNode(children.get(0), scopeNode.slots());
+        if (node instanceof SubexpressionNode subexpressionNode) return new SubexpressionNode(subexpressionNode.slot(), children.get(0));
+        if (node instanceof SideEffectNode) return new SideEffectNode(children.get(0));
+        return rebuildBinary(node, children.get(0), children.get(1));
+    }
+
+    private static Node rebuildBinary(Node node, Node left, Node right) {
+        if (node instanceof AddExpressionNode) return new AddExpressionNode(left, right);
+        if (node instanceof SubExpressionNode) return new SubExpressionNode(left, right);
+        if (node instanceof MulExpressionNode) return new MulExpressionNode(left, right);
+        if (node instanceof DivExpressionNode) return new DivExpressionNode(left, right);
+        if (node instanceof ModExpressionNode) return new ModExpressionNode(left, right);
+        if (node instanceof ConcatNode) return new ConcatNode(left, right);
+        if (node instanceof AssignNode) return new AssignNode(left, right);
+        if (node instanceof AndNode) return new AndNode(left, right);
+        if (node instanceof OrNode) return new OrNode(left, right);
+        if (node instanceof EqualNode) return new EqualNode(left, right);
+        if (node instanceof NotEqualNode) return new NotEqualNode(left, right);
+        if (node instanceof GreaterThanNode) return new GreaterThanNode(left, right);
+        if (node instanceof GreaterEqualNode) return new GreaterEqualNode(left, right);
+        if (node instanceof LessThanNode) return new LessThanNode(left, right);
+        if (node instanceof LessEqualNode) return new LessEqualNode(left, right);
+        if (node instanceof SemicolonNode) return new SemicolonNode(left, right);
+        throw new IllegalArgumentException("Cannot rebuild " + node);
+    }
+}
@@ -5,11 +5,20 @@ import jakarta.el.ELContext;
 public record NotEqualNode(Node left, Node right) implements RelationalNode {
     @Override
     public Object getValue(ELContext context) {
-        return !(Boolean) new EqualNode(left, right).getValue(context);
+        return apply(left.getValue(context), right.getValue(context), context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return LongKernelNode.getBoolean(LongKernelNode.Kernel.NOT_EQUAL, left, right, context);
+    }
+
+    public static Object apply(Object leftValue, Object rightValue, ELContext context) {
+        return !(Boolean) EqualNode.apply(leftValue, rightValue, context);
     }
 
     @Override
     public String prettyPrint() {
-        return "%s != %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s != %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
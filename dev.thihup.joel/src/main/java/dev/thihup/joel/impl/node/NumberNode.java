@@ -13,8 +13,20 @@ public record NumberNode(Number value) implements Node {
         return value;
     }
 
+    @Override
+    public long getLong(ELContext context) {
+        return value instanceof Long longValue ? longValue : Node.super.getLong(context);
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        return value instanceof Double doubleValue ? doubleValue : Node.super.getDouble(context);
+    }
+
     @Override
     public String prettyPrint() {
+        if (value instanceof Double doubleValue && !Double.isFinite(doubleValue))
+            return doubleValue.isNaN() ? "0.0 / 0" : doubleValue > 0 ? "1.0 / 0" : "-1.0 / 0";
         return value.toString();
     }
 }
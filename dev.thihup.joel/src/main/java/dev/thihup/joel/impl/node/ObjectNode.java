@@ -12,4 +12,12 @@ public record ObjectNode(Object value) implements Node {
     public Object getValue(ELContext context) {
         return value;
     }
+
+    /**
+     * A value bound to an expression has no syntax of its own, so it prints as its string form.
+     */
+    @Override
+    public String prettyPrint() {
+        return String.valueOf(value);
+    }
 }
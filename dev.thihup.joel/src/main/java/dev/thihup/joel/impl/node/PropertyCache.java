@@ -0,0 +1,115 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.BeanELResolver;
+import jakarta.el.ELClass;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jdk.dynalink.CallSiteDescriptor;
+import jdk.dynalink.DynamicLinker;
+import jdk.dynalink.DynamicLinkerFactory;
+import jdk.dynalink.StandardNamespace;
+import jdk.dynalink.StandardOperation;
+import jdk.dynalink.support.ChainedCallSite;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Inline cache of a {@link MemberNode} reading a named property: the bean classes whose property it reads through its
+ * own getter call site, without going through the resolver of the context.
+ * <p>
+ * Properties are only read from the cache in contexts whose resolver reads them like a {@link BeanELResolver}, see
+ * {@link ResolverChain}, which reads any property of an instance of a class with the getter cached here. A node that
+ * sees more classes than its cache holds stops caching and always goes through the resolver.
+ * <p>
+ * Caches are immutable and replaced on every change, so that threads sharing the node through the parse cache always
+ * see a consistent one; a class lost to a concurrent change is added again the next time it is read.
+ */
+final class PropertyCache {
+    static final PropertyCache MEGAMORPHIC = new PropertyCache(new Class<?>[0], null);
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final DynamicLinker LINKER = new DynamicLinkerFactory().createLinker();
+    private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+    /**
+     * Makes the classes whose members are linked here readable, like the {@code BeanELResolver} does.
+     */
+    static final ClassValue<Void> READS = new ClassValue<>() {
+        @Override
+        protected Void computeValue(Class<?> type) {
+            var module = PropertyCache.class.getModule();
+            if (!module.canRead(type.getModule()))
+                module.addReads(type.getModule());
+            return null;
+        }
+    };
+
+    private final Class<?>[] types;
+    private final MethodHandle getter;
+
+    private PropertyCache(Class<?>[] types, MethodHandle getter) {
+        this.types = types;
+        this.getter = getter;
+    }
+
+    /**
+     * Whether the properties of the instances of {@code type} are read by the {@code BeanELResolver} of a standard
+     * context rather than by one of the resolvers before it, see {@link ResolverChain}.
+     */
+    static boolean isBean(Class<?> type) {
+        return !type.isArray() && type != ELClass.class && !Map.class.isAssignableFrom(type)
+                && !List.class.isAssignableFrom(type) && !ResourceBundle.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Whether the property of {@code type} is read directly.
+     */
+    boolean covers(Class<?> type) {
+        for (var cached : types) {
+            if (cached == type)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Reads the property {@code name} of {@code base}, reporting it as resolved and failing like the
+     * {@code BeanELResolver} would.
+     */
+    Object read(ELContext context, Object base, String name) {
+        Object value;
+        try {
+            value = (Object) getter.invokeExact(base);
+        } catch (Throwable throwable) {
+            throw new ELException("Error getting property %s.%s".formatted(base.getClass(), name), throwable);
+        }
+        context.setPropertyResolved(base, name);
+        return value;
+    }
+
+    /**
+     * Returns the cache {@code cache}, which may be {@code null}, becomes once the {@code BeanELResolver} has read the
+     * property {@code name} of {@code type}, holding at most {@code size} classes.
+     */
+    static PropertyCache learn(PropertyCache cache, int size, Class<?> type, String name) {
+        READS.get(type);
+        if (cache == null)
+            return new PropertyCache(new Class<?>[]{type}, getter(name));
+        if (cache.types.length >= size)
+            return MEGAMORPHIC;
+        var types = Arrays.copyOf(cache.types, cache.types.length + 1);
+        types[cache.types.length] = type;
+        return new PropertyCache(types, cache.getter);
+    }
+
+    private static MethodHandle getter(String name) {
+        var descriptor = new CallSiteDescriptor(LOOKUP,
+                StandardOperation.GET.withNamespace(StandardNamespace.PROPERTY).named(name), GETTER);
+        return LINKER.link(new ChainedCallSite(descriptor)).dynamicInvoker();
+    }
+}
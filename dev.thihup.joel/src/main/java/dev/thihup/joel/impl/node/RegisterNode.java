@@ -0,0 +1,393 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.calculator.Operation;
+import dev.thihup.joel.impl.node.LongKernelNode.Kernel;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expression tree lowered to a program for a register machine, run by a single loop in {@link #getValue} instead of
+ * the recursive walk of the tree.
+ * <p>
+ * Instructions are four {@code int}s each: the opcode, the register the result goes to, and two operands, which are
+ * registers, constant indexes or jump targets depending on the opcode. Operands are evaluated into consecutive
+ * registers, so that a binary operator or a call only names the first one, and the value of the expression ends up in
+ * register 0. {@code &&}, {@code ||} and the ternary operator jump over the code of the operands they do not evaluate.
+ * Literals, identifiers, lambdas and the nodes that are not worth encoding live in the constant pool.
+ * <p>
+ * A property read recovers from the failures of its base like {@link MemberNode} does: the code that evaluates the
+ * base is covered by a handler, which the loop looks up when an {@link ELException} escapes an instruction, the
+ * innermost first. The tree is kept for everything but evaluation, such as {@link #getType}, and is all that is
+ * serialized: the program is lowered again when it is read back.
+ */
+public final class RegisterNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+
+    private static final int WIDTH = 4;
+
+    private static final int CONSTANT = 0;
+    private static final int NODE = 1;
+    private static final int LOAD = 2;
+    private static final int RESOLVE = 3;
+    private static final int LAMBDA = 4;
+    private static final int NOT = 5;
+    private static final int EMPTY = 6;
+    private static final int MINUS = 7;
+    private static final int ADD = 8;
+    private static final int SUB = 9;
+    private static final int MUL = 10;
+    private static final int DIV = 11;
+    private static final int MOD = 12;
+    private static final int KERNEL = 13;
+    private static final int CONCAT = 14;
+    private static final int EQUAL = 15;
+    private static final int NOT_EQUAL = 16;
+    private static final int LESS_THAN = 17;
+    private static final int LESS_EQUAL = 18;
+    private static final int GREATER_THAN = 19;
+    private static final int GREATER_EQUAL = 20;
+    private static final int TO_BOOLEAN = 21;
+    private static final int JUMP = 22;
+    private static final int JUMP_IF_TRUE = 23;
+    private static final int JUMP_IF_FALSE = 24;
+    private static final int GET_MEMBER = 25;
+    private static final int GET_PROPERTY = 26;
+    private static final int CALL = 27;
+
+    @SuppressWarnings("serial")
+    private final Node tree;
+    private final transient int[] code;
+    private final transient Object[] constants;
+    private final transient int[] handlers;
+    private final transient int registers;
+
+    private RegisterNode(Node tree, int[] code, Object[] constants, int[] handlers, int registers) {
+        this.tree = tree;
+        this.code = code;
+        this.constants = constants;
+        this.handlers = handlers;
+        this.registers = registers;
+    }
+
+    /**
+     * Lowers {@code node} to a register program. Trees whose root the expressions inspect, such as members and
+     * identifiers, and leaves are returned unchanged, as are the bodies of the lambdas they define. The segments of a
+     * composite expression are lowered one by one.
+     */
+    public static Node lower(Node node) {
+        if (node instanceof CompositeNode compositeNode)
+            return new CompositeNode(compositeNode.segments().stream().map(RegisterNode::lower).toList());
+        if (node instanceof StringNode || node instanceof NumberNode || node instanceof IdentifierNode
+                || node instanceof MemberNode || node instanceof CallExpressionNode || node instanceof LambdaNode
+                || node instanceof Enum<?> || node instanceof ObjectNode || node instanceof RegisterNode
+                || node instanceof FlatNode || node instanceof LazySegmentNode)
+            return node;
+        var assembler = new Assembler();
+        assembler.emit(node, 0);
+        return new RegisterNode(node, Arrays.copyOf(assembler.code, assembler.length), assembler.constants.toArray(),
+                Arrays.copyOf(assembler.handlers, assembler.handlerLength), assembler.registers);
+    }
+
+    /**
+     * Number of instructions of the program.
+     */
+    public int size() {
+        return code.length / WIDTH;
+    }
+
+    /**
+     * Returns the tree this node was lowered from.
+     */
+    public Node tree() {
+        return tree;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        var registers = new Object[this.registers];
+        int pc = 0;
+        while (pc < code.length) {
+            int target = code[pc + 1];
+            int a = code[pc + 2];
+            int b = code[pc + 3];
+            try {
+                switch (code[pc]) {
+                    case CONSTANT -> registers[target] = constants[a];
+                    case NODE, LOAD, LAMBDA -> registers[target] = ((Node) constants[a]).getValue(context);
+                    case RESOLVE -> registers[target] = ((IdentifierNode) constants[a]).resolve(context);
+                    case NOT -> registers[target] = UnaryNotNode.apply(registers[a], context);
+                    case EMPTY -> registers[target] = UnaryEmptyNode.apply(registers[a]);
+                    case MINUS -> registers[target] = UnaryMinusNode.apply(registers[a], context);
+                    case ADD -> registers[target] = Operation.ADDITION.calculate(registers[a], registers[b], context);
+                    case SUB -> registers[target] = Operation.SUBTRACTION.calculate(registers[a], registers[b], context);
+                    case MUL -> registers[target] = Operation.MULTIPLICATION.calculate(registers[a], registers[b], context);
+                    case DIV -> registers[target] = Operation.DIVISION.calculate(registers[a], registers[b], context);
+                    case MOD -> registers[target] = Operation.MODULO.calculate(registers[a], registers[b], context);
+                    case KERNEL -> registers[target] = ((Kernel) constants[b]).evaluate(registers[a], registers[a + 1], context);
+                    case CONCAT -> registers[target] = ConcatNode.apply(registers[a], registers[b], context);
+                    case EQUAL -> registers[target] = EqualNode.apply(registers[a], registers[b], context);
+                    case NOT_EQUAL -> registers[target] = NotEqualNode.apply(registers[a], registers[b], context);
+                    case LESS_THAN -> registers[target] = LessThanNode.apply(registers[a], registers[b], context);
+                    case LESS_EQUAL -> registers[target] = LessEqualNode.apply(registers[a], registers[b], context);
+                    case GREATER_THAN -> registers[target] = GreaterThanNode.apply(registers[a], registers[b], context);
+                    case GREATER_EQUAL -> registers[target] = GreaterEqualNode.apply(registers[a], registers[b], context);
+                    case TO_BOOLEAN -> registers[target] = context.convertToType(registers[a], boolean.class);
+                    case JUMP -> {
+                        pc = b;
+                        continue;
+                    }
+                    case JUMP_IF_TRUE -> {
+                        if ((boolean) registers[a]) {
+                            pc = b;
+                            continue;
+                        }
+                    }
+                    case JUMP_IF_FALSE -> {
+                        if (!(boolean) registers[a]) {
+                            pc = b;
+                            continue;
+                        }
+                    }
+                    case GET_MEMBER -> registers[target] = read(context, registers[a], ((Member) constants[b]).name(), (Member) constants[b]);
+                    case GET_PROPERTY -> registers[target] = read(context, registers[a], registers[a + 1], (Member) constants[b]);
+                    case CALL -> {
+                        var call = (Call) constants[b];
+                        var arguments = Arrays.copyOfRange(registers, a + 1, a + 1 + call.arity());
+                        registers[target] = context.getELResolver().invoke(context, registers[a], call.name(), null, arguments);
+                    }
+                    default -> throw new IllegalStateException("Unknown opcode " + code[pc]);
+                }
+            } catch (ELException failure) {
+                pc = recover(context, registers, pc, failure);
+                continue;
+            }
+            pc += WIDTH;
+        }
+        return registers[0];
+    }
+
+    /**
+     * Reads {@code property} of {@code base} like the {@code member} node would once it has evaluated them.
+     */
+    private static Object read(ELContext context, Object base, Object property, Member member) {
+        if (base == IdentifierNode.UNRESOLVED)
+            return member.node().recover(context, null);
+        try {
+            return context.getELResolver().getValue(context, base, property);
+        } catch (ELException rootCause) {
+            return member.node().recover(context, rootCause);
+        }
+    }
+
+    /**
+     * Recovers from {@code failure}, raised by the instruction at {@code pc}, with the innermost handler covering it,
+     * and returns where to resume. A handler that fails in turn hands over to the one around it.
+     */
+    private int recover(ELContext context, Object[] registers, int pc, ELException failure) {
+        for (int i = 0; i < handlers.length; i += 3) {
+            int start = handlers[i];
+            int end = handlers[i + 1];
+            if (start <= pc && pc < end) {
+                try {
+                    registers[code[end + 1]] = ((Member) constants[handlers[i + 2]]).node().recover(context, failure);
+                    return end + WIDTH;
+                } catch (ELException rethrown) {
+                    failure = rethrown;
+                    pc = end;
+                }
+            }
+        }
+        throw failure;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return tree.getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return tree.prettyPrint();
+    }
+
+    @Serial
+    private Object readResolve() {
+        return lower(tree);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof RegisterNode that && tree.equals(that.tree);
+    }
+
+    @Override
+    public int hashCode() {
+        return tree.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "RegisterNode[" + tree + "]";
+    }
+
+    /**
+     * Read of a property, by name when {@code name} is not {@code null}.
+     */
+    private record Member(String name, MemberNode node) {
+    }
+
+    private record Call(String name, int arity) {
+    }
+
+    private static final class Assembler {
+        private int[] code = new int[16 * WIDTH];
+        private int length;
+        private int[] handlers = new int[3];
+        private int handlerLength;
+        private int registers = 1;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> constantIndexes = new HashMap<>();
+
+        /**
+         * Emits the code that evaluates {@code node} into {@code target}, using the registers above it as scratch.
+         */
+        void emit(Node node, int target) {
+            registers = Math.max(registers, target + 1);
+            if (node == NullNode.INSTANCE) {
+                emit(CONSTANT, target, constant(null), 0);
+            } else if (node instanceof BooleanNode booleanNode) {
+                emit(CONSTANT, target, constant(booleanNode == BooleanNode.TRUE), 0);
+            } else if (node instanceof StringNode stringNode) {
+                emit(CONSTANT, target, constant(stringNode.value()), 0);
+            } else if (node instanceof NumberNode numberNode) {
+                emit(CONSTANT, target, constant(numberNode.value()), 0);
+            } else if (node instanceof IdentifierNode) {
+                emit(LOAD, target, constant(node), 0);
+            } else if (node instanceof LambdaNode lambdaNode) {
+                emit(LAMBDA, target, constant(new LambdaNode(lambdaNode.parameters(), lower(lambdaNode.expression()))), 0);
+            } else if (node instanceof DynamicExpressionNode || node instanceof DeferredExpressionNode) {
+                emit(node.children().get(0), target);
+            } else if (node instanceof SemicolonNode semicolonNode) {
+                emit(semicolonNode.left(), target);
+                emit(semicolonNode.right(), target);
+            } else if (node instanceof UnaryNotNode notNode) {
+                emitUnary(NOT, notNode.node(), target);
+            } else if (node instanceof UnaryEmptyNode emptyNode) {
+                emitUnary(EMPTY, emptyNode.node(), target);
+            } else if (node instanceof UnaryMinusNode minusNode) {
+                emitUnary(MINUS, minusNode.node(), target);
+            } else if (node instanceof AndNode andNode) {
+                emitShortCircuit(JUMP_IF_FALSE, andNode.left(), andNode.right(), target);
+            } else if (node instanceof OrNode orNode) {
+                emitShortCircuit(JUMP_IF_TRUE, orNode.left(), orNode.right(), target);
+            } else if (node instanceof TernaryNode ternaryNode) {
+                emit(ternaryNode.condition(), target);
+                emit(TO_BOOLEAN, target, target, 0);
+                int toFalse = emit(JUMP_IF_FALSE, target, target, 0);
+                emit(ternaryNode.trueExpression(), target);
+                int toEnd = emit(JUMP, target, 0, 0);
+                code[toFalse + 3] = length;
+                emit(ternaryNode.falseExpression(), target);
+                code[toEnd + 3] = length;
+            } else if (node instanceof LongKernelNode kernelNode) {
+                emit(kernelNode.left(), target);
+                emit(kernelNode.right(), target + 1);
+                emit(KERNEL, target, target, constant(kernelNode.kernel()));
+            } else if (node instanceof MemberNode memberNode && memberNode.cacheSize() == 0) {
+                emitMember(memberNode, target);
+            } else if (node instanceof CallExpressionNode callNode && callNode.cacheSize() == 0
+                    && callNode.callee() instanceof MemberNode memberNode && memberNode.property() instanceof IdentifierNode name) {
+                emit(memberNode.object(), target);
+                var arguments = callNode.arguments();
+                for (int i = 0; i < arguments.size(); i++)
+                    emit(arguments.get(i), target + 1 + i);
+                emit(CALL, target, target, constant(new Call(name.value(), arguments.size())));
+            } else if (opcode(node) >= 0) {
+                var operands = node.children();
+                emit(operands.get(0), target);
+                emit(operands.get(1), target + 1);
+                emit(opcode(node), target, target, target + 1);
+            } else {
+                emit(NODE, target, constant(node), 0);
+            }
+        }
+
+        private static int opcode(Node node) {
+            if (node instanceof AddExpressionNode) return ADD;
+            if (node instanceof SubExpressionNode) return SUB;
+            if (node instanceof MulExpressionNode) return MUL;
+            if (node instanceof DivExpressionNode) return DIV;
+            if (node instanceof ModExpressionNode) return MOD;
+            if (node instanceof ConcatNode) return CONCAT;
+            if (node instanceof EqualNode) return EQUAL;
+            if (node instanceof NotEqualNode) return NOT_EQUAL;
+            if (node instanceof LessThanNode) return LESS_THAN;
+            if (node instanceof LessEqualNode) return LESS_EQUAL;
+            if (node instanceof GreaterThanNode) return GREATER_THAN;
+            if (node instanceof GreaterEqualNode) return GREATER_EQUAL;
+            return -1;
+        }
+
+        private void emitUnary(int opcode, Node operand, int target) {
+            emit(operand, target);
+            emit(opcode, target, target, 0);
+        }
+
+        private void emitShortCircuit(int jump, Node left, Node right, int target) {
+            emit(left, target);
+            emit(TO_BOOLEAN, target, target, 0);
+            int toEnd = emit(jump, target, target, 0);
+            emit(right, target);
+            emit(TO_BOOLEAN, target, target, 0);
+            code[toEnd + 3] = length;
+        }
+
+        private void emitMember(MemberNode memberNode, int target) {
+            int start = length;
+            if (memberNode.object() instanceof IdentifierNode identifier)
+                emit(RESOLVE, target, constant(identifier), 0);
+            else
+                emit(memberNode.object(), target);
+            int member;
+            if (memberNode.property() instanceof IdentifierNode name) {
+                member = constant(new Member(name.value(), memberNode));
+                emit(GET_MEMBER, target, target, member);
+            } else {
+                emit(memberNode.property(), target + 1);
+                member = constant(new Member(null, memberNode));
+                emit(GET_PROPERTY, target, target, member);
+            }
+            if (handlerLength == handlers.length)
+                handlers = Arrays.copyOf(handlers, handlerLength * 2);
+            handlers[handlerLength++] = start;
+            handlers[handlerLength++] = length - WIDTH;
+            handlers[handlerLength++] = member;
+        }
+
+        private int constant(Object value) {
+            return constantIndexes.computeIfAbsent(value, key -> {
+                constants.add(key);
+                return constants.size() - 1;
+            });
+        }
+
+        private int emit(int opcode, int target, int a, int b) {
+            if (length == code.length)
+                code = Arrays.copyOf(code, length * 2);
+            int pc = length;
+            code[length++] = opcode;
+            code[length++] = target;
+            code[length++] = a;
+            code[length++] = b;
+            return pc;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.thihup.joel.impl.node;
 
+import java.util.List;
+
 public sealed interface RelationalNode extends BooleanExpression permits
         AndNode,
         EqualNode,
@@ -13,4 +15,9 @@ public sealed interface RelationalNode extends BooleanExpression permits
 
     Node right();
 
+    @Override
+    default List<? extends Node> children() {
+        return List.of(left(), right());
+    }
+
 }
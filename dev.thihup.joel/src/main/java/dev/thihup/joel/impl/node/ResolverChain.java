@@ -0,0 +1,76 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.StreamELResolver;
+import jakarta.el.ArrayELResolver;
+import jakarta.el.BeanELResolver;
+import jakarta.el.BeanNameELResolver;
+import jakarta.el.CompositeELResolver;
+import jakarta.el.ELResolver;
+import jakarta.el.ListELResolver;
+import jakarta.el.MapELResolver;
+import jakarta.el.ResourceBundleELResolver;
+import jakarta.el.StaticFieldELResolver;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tells whether the resolver of a context reads and invokes the members of beans like a plain {@link BeanELResolver},
+ * so that the {@link PropertyCache} and {@link CallCache} may go around it.
+ * <p>
+ * That is the case of the {@code BeanELResolver} itself, and of a {@link CompositeELResolver} whose components before
+ * one that is the case all leave beans alone: the standard resolvers of a {@link jakarta.el.StandardELContext}, which
+ * only handle top-level names, static members, maps, resource bundles, lists, arrays, streams and optionals, and
+ * composites made of them only, such as the composite of the custom resolvers of a context none were added to. The
+ * caches never learn the classes those standard resolvers handle. Any other resolver can take over the members of a
+ * bean, so a chain with one before the {@code BeanELResolver} is never cached, and since the components of a composite
+ * are read again on every evaluation, a resolver added to a context in use takes over from the next evaluation.
+ * <p>
+ * The components are read through {@link dev.thihup.joel.el.ELAccess#components}. Without it, when the
+ * {@code jakarta.el} classes come from another jar, only the plain {@code BeanELResolver} is cached.
+ */
+final class ResolverChain {
+    private static final Set<Class<?>> STANDARD = Set.of(BeanNameELResolver.class, StaticFieldELResolver.class,
+            MapELResolver.class, ResourceBundleELResolver.class, ListELResolver.class, ArrayELResolver.class,
+            StreamELResolver.class);
+
+    private ResolverChain() {
+    }
+
+    /**
+     * Whether {@code resolver} reads and invokes the members of beans like a plain {@code BeanELResolver}.
+     */
+    static boolean reachesBeans(ELResolver resolver) {
+        if (resolver.getClass() == BeanELResolver.class)
+            return true;
+        var components = components(resolver);
+        if (components == null)
+            return false;
+        for (var component : components) {
+            if (reachesBeans(component))
+                return true;
+            if (!leavesBeansAlone(component))
+                return false;
+        }
+        return false;
+    }
+
+    private static boolean leavesBeansAlone(ELResolver resolver) {
+        if (STANDARD.contains(resolver.getClass()))
+            return true;
+        var components = components(resolver);
+        if (components == null)
+            return false;
+        for (var component : components) {
+            if (!leavesBeansAlone(component))
+                return false;
+        }
+        return true;
+    }
+
+    private static List<ELResolver> components(ELResolver resolver) {
+        return ELInternals.ACCESS != null && resolver.getClass() == CompositeELResolver.class
+                ? ELInternals.ACCESS.components((CompositeELResolver) resolver)
+                : null;
+    }
+}
@@ -2,6 +2,8 @@ package dev.thihup.joel.impl.node;
 
 import jakarta.el.ELContext;
 
+import java.util.List;
+
 public record SemicolonNode(Node left, Node right) implements Node {
     @Override
     public Class<?> getType(ELContext context) {
@@ -16,6 +18,11 @@ public record SemicolonNode(Node left, Node right) implements Node {
 
     @Override
     public String prettyPrint() {
-        return "%s; %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s; %s".formatted(Node.operand(left), Node.operand(right));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(left, right);
     }
 }
@@ -24,4 +24,9 @@ public record SetNode(List<Node> values) implements Node {
     public String prettyPrint() {
         return values.stream().map(Node::prettyPrint).collect(Collectors.joining(",", "{", "}"));
     }
+
+    @Override
+    public List<? extends Node> children() {
+        return values;
+    }
 }
@@ -0,0 +1,34 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELContext;
+
+import java.util.List;
+
+/**
+ * Call or assignment inside a {@link SubexpressionScopeNode}: once it has run, the values of the subexpressions
+ * evaluated so far may be stale, so they are evaluated again the next time they are needed.
+ */
+public record SideEffectNode(Node node) implements Node {
+    @Override
+    public Object getValue(ELContext context) {
+        var value = node.getValue(context);
+        if (context.getContext(SubexpressionScopeNode.Frame.class) instanceof SubexpressionScopeNode.Frame frame)
+            frame.clear();
+        return value;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return node.getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return node.prettyPrint();
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
+    }
+}
@@ -0,0 +1,192 @@
+package dev.thihup.joel.impl.node;
+
+import dev.thihup.joel.impl.node.LongKernelNode.Kernel;
+import jakarta.el.ELContext;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Arithmetic or comparison that specializes itself to the classes of the values it is actually applied to, see
+ * {@link dev.thihup.joel.impl.optimizer.TypeFeedback}.
+ * <p>
+ * Each pair of operand classes seen so far is a case, checked before anything else: integers no wider than a
+ * {@code long} are computed on {@code long}s, doubles mixed with such integers on {@code double}s, and other classes go
+ * to the generic operator without being looked at again. Once more pairs than the limit have been seen, the node drops
+ * its cases and stays generic. Cases are kept in an immutable array replaced on every change, so that threads sharing
+ * the node through the parse cache always see a consistent set; a case lost to a concurrent change is added again the
+ * next time its classes are seen.
+ */
+public final class SpecializingNode implements Node {
+    @Serial
+    private static final long serialVersionUID = 0L;
+    private static final Case[] MEGAMORPHIC = {};
+
+    private final Kernel kernel;
+    @SuppressWarnings("serial")
+    private final Node left;
+    @SuppressWarnings("serial")
+    private final Node right;
+    private final int limit;
+    private transient volatile Case[] cases;
+
+    public SpecializingNode(Kernel kernel, Node left, Node right, int limit) {
+        this.kernel = kernel;
+        this.left = left;
+        this.right = right;
+        this.limit = limit;
+    }
+
+    public Kernel kernel() {
+        return kernel;
+    }
+
+    public Node left() {
+        return left;
+    }
+
+    public Node right() {
+        return right;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public Object getValue(ELContext context) {
+        var leftValue = left.getValue(context);
+        var rightValue = right.getValue(context);
+        var knownCases = cases;
+        if (knownCases == MEGAMORPHIC || leftValue == null || rightValue == null)
+            return kernel.fallback(leftValue, rightValue, context);
+        var leftType = leftValue.getClass();
+        var rightType = rightValue.getClass();
+        if (knownCases != null) {
+            for (var knownCase : knownCases) {
+                if (knownCase.left == leftType && knownCase.right == rightType)
+                    return knownCase.path.apply(kernel, leftValue, rightValue, context);
+            }
+        }
+        return specialize(knownCases, new Case(leftType, rightType), leftValue, rightValue, context);
+    }
+
+    private Object specialize(Case[] knownCases, Case newCase, Object leftValue, Object rightValue, ELContext context) {
+        if (knownCases == null)
+            cases = new Case[]{newCase};
+        else if (knownCases.length >= limit)
+            cases = MEGAMORPHIC;
+        else {
+            var grown = Arrays.copyOf(knownCases, knownCases.length + 1);
+            grown[knownCases.length] = newCase;
+            cases = grown;
+        }
+        return newCase.path.apply(kernel, leftValue, rightValue, context);
+    }
+
+    /**
+     * Returns the number of cases the node has specialized to, or {@code -1} once it has stopped specializing.
+     */
+    public int specializations() {
+        var knownCases = cases;
+        return knownCases == MEGAMORPHIC ? -1 : knownCases == null ? 0 : knownCases.length;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return kernel.type();
+    }
+
+    @Override
+    public String prettyPrint() {
+        return "%s %s %s".formatted(Node.operand(left), kernel.operator(), Node.operand(right));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(left, right);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (obj == null || obj.getClass() != this.getClass()) return false;
+        var that = (SpecializingNode) obj;
+        return this.kernel == that.kernel &&
+                this.limit == that.limit &&
+                Objects.equals(this.left, that.left) &&
+                Objects.equals(this.right, that.right);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kernel, left, right, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "SpecializingNode[" +
+                "kernel=" + kernel + ", " +
+                "left=" + left + ", " +
+                "right=" + right + ", " +
+                "limit=" + limit + ']';
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+
+    private record Case(Class<?> left, Class<?> right, Path path) {
+        Case(Class<?> left, Class<?> right) {
+            this(left, right, Path.of(left, right));
+        }
+    }
+
+    private enum Path {
+        LONG {
+            @Override
+            Object apply(Kernel kernel, Object left, Object right, ELContext context) {
+                return kernel.apply(((Number) left).longValue(), ((Number) right).longValue());
+            }
+        },
+        DOUBLE {
+            @Override
+            Object apply(Kernel kernel, Object left, Object right, ELContext context) {
+                double leftValue = ((Number) left).doubleValue();
+                double rightValue = ((Number) right).doubleValue();
+                // comparisons go through Double.compare, like the Double.equals and Double.compareTo of the generic ones
+                return switch (kernel) {
+                    case ADD -> leftValue + rightValue;
+                    case SUB -> leftValue - rightValue;
+                    case MUL -> leftValue * rightValue;
+                    case DIV -> leftValue / rightValue;
+                    case MOD -> leftValue % rightValue;
+                    case EQUAL -> Double.compare(leftValue, rightValue) == 0;
+                    case NOT_EQUAL -> Double.compare(leftValue, rightValue) != 0;
+                    case LESS_THAN -> Double.compare(leftValue, rightValue) < 0;
+                    case LESS_EQUAL -> Double.compare(leftValue, rightValue) <= 0;
+                    case GREATER_THAN -> Double.compare(leftValue, rightValue) > 0;
+                    case GREATER_EQUAL -> Double.compare(leftValue, rightValue) >= 0;
+                };
+            }
+        },
+        GENERIC {
+            @Override
+            Object apply(Kernel kernel, Object left, Object right, ELContext context) {
+                return kernel.fallback(left, right, context);
+            }
+        };
+
+        abstract Object apply(Kernel kernel, Object left, Object right, ELContext context);
+
+        static Path of(Class<?> left, Class<?> right) {
+            if (isIntegral(left) && isIntegral(right))
+                return LONG;
+            if ((left == Double.class || isIntegral(left)) && (right == Double.class || isIntegral(right)))
+                return DOUBLE;
+            return GENERIC;
+        }
+    }
+}
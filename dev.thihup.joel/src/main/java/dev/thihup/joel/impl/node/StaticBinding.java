@@ -0,0 +1,85 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELClass;
+import jakarta.el.ELContext;
+import jakarta.el.ImportHandler;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Value of a {@code static final} field of primitive, {@link String} or enum type, bound to the import handler that
+ * resolved its class.
+ * <p>
+ * Such a value never changes, but the class a name resolves to does when an import adds a package with a class of the
+ * same name: the import handler resolves such a name to whichever class it finds first. The binding therefore holds
+ * for as long as it is evaluated with the same import handler, and that handler has not imported anything since, see
+ * {@link dev.thihup.joel.el.ELAccess#modifications}. Otherwise the name is resolved again, and the binding is only
+ * reused when it finds the same class. Subclasses of the {@link ImportHandler}, whose imports are not known, always
+ * resolve the name again.
+ */
+final class StaticBinding {
+    private final WeakReference<ImportHandler> importHandler;
+    private final int modifications;
+    private final Class<?> type;
+    private final String name;
+    private final Object value;
+
+    private StaticBinding(ImportHandler importHandler, Class<?> type, String name, Object value) {
+        this.importHandler = new WeakReference<>(importHandler);
+        this.modifications = modifications(importHandler);
+        this.type = type;
+        this.name = name;
+        this.value = value;
+    }
+
+    /**
+     * Returns the binding of the field {@code name} of {@code type}, just resolved to {@code value}, or {@code null} when
+     * it is not a constant.
+     */
+    static StaticBinding of(ImportHandler importHandler, Class<?> type, String name, Object value) {
+        Field field;
+        try {
+            field = type.getField(name);
+        } catch (NoSuchFieldException | SecurityException notAField) {
+            return null;
+        }
+        int modifiers = field.getModifiers();
+        var fieldType = field.getType();
+        if (!Modifier.isStatic(modifiers) || !Modifier.isFinal(modifiers)
+                || !(fieldType.isPrimitive() || fieldType == String.class || fieldType.isEnum()))
+            return null;
+        return new StaticBinding(importHandler, type, name, value);
+    }
+
+    boolean isBoundTo(ImportHandler importHandler) {
+        return this.importHandler.get() == importHandler && modifications >= 0
+                && modifications == modifications(importHandler);
+    }
+
+    /**
+     * Returns the number of imports that changed {@code importHandler}, or -1 when it cannot tell.
+     */
+    private static int modifications(ImportHandler importHandler) {
+        return ELInternals.ACCESS != null && importHandler != null && importHandler.getClass() == ImportHandler.class
+                ? ELInternals.ACCESS.modifications(importHandler)
+                : -1;
+    }
+
+    Class<?> type() {
+        return type;
+    }
+
+    StaticBinding rebind(ImportHandler importHandler) {
+        return new StaticBinding(importHandler, type, name, value);
+    }
+
+    /**
+     * Returns the bound value, reporting the field as resolved like the resolver would.
+     */
+    Object value(ELContext context) {
+        context.setPropertyResolved(new ELClass(type), name);
+        return value;
+    }
+}
@@ -15,6 +15,6 @@ public record StringNode(String value) implements Node {
 
     @Override
     public String prettyPrint() {
-        return "'%s'".formatted(value);
+        return "'%s'".formatted(value.replace("\\", "\\\\").replace("'", "\\'"));
     }
 }
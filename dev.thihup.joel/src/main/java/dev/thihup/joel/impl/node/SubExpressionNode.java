@@ -11,8 +11,18 @@ public record SubExpressionNode(Node left, Node right) implements InfixExpressio
         return Operation.SUBTRACTION.calculate(leftValue, rightValue, context);
     }
 
+    @Override
+    public long getLong(ELContext context) {
+        return LongKernelNode.getLong(LongKernelNode.Kernel.SUB, left, right, context);
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        return LongKernelNode.getDouble(LongKernelNode.Kernel.SUB, left, right, context);
+    }
+
     @Override
     public String prettyPrint() {
-        return "%s - %s".formatted(left.prettyPrint(), right.prettyPrint());
+        return "%s - %s".formatted(Node.operand(left), Node.operand(right));
     }
 }
@@ -0,0 +1,34 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELContext;
+
+import java.util.List;
+
+/**
+ * Side-effect-free subexpression that occurs more than once in an expression: it is evaluated the first time the
+ * enclosing {@link SubexpressionScopeNode} needs it, and the value is reused by its other occurrences until a
+ * {@link SideEffectNode} runs.
+ */
+public record SubexpressionNode(int slot, Node expression) implements Node {
+    @Override
+    public Object getValue(ELContext context) {
+        if (context.getContext(SubexpressionScopeNode.Frame.class) instanceof SubexpressionScopeNode.Frame frame && frame.covers(slot))
+            return frame.get(slot, expression, context);
+        return expression.getValue(context);
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return expression.getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return expression.prettyPrint();
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(expression);
+    }
+}
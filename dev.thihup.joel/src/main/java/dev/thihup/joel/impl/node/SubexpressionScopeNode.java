@@ -0,0 +1,74 @@
+package dev.thihup.joel.impl.node;
+
+import jakarta.el.ELContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluation of an expression whose repeated subexpressions are {@link SubexpressionNode}s, see
+ * {@link dev.thihup.joel.impl.optimizer.CommonSubexpressions}. Every evaluation gets a fresh {@link Frame} of
+ * {@code slots} values, registered on the context for as long as the body is evaluated.
+ */
+public record SubexpressionScopeNode(Node body, int slots) implements Node {
+    @Override
+    public Object getValue(ELContext context) {
+        var outer = context.getContext(Frame.class);
+        context.putContext(Frame.class, new Frame(slots));
+        try {
+            return body.getValue(context);
+        } finally {
+            context.putContext(Frame.class, outer != null ? outer : Frame.EMPTY);
+        }
+    }
+
+    @Override
+    public Class<?> getType(ELContext context) {
+        return body.getType(context);
+    }
+
+    @Override
+    public String prettyPrint() {
+        return body.prettyPrint();
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(body);
+    }
+
+    /**
+     * Values of the subexpressions evaluated so far by the current evaluation.
+     */
+    static final class Frame {
+        static final Frame EMPTY = new Frame(0);
+        private static final Object UNSET = new Object();
+
+        private final Object[] values;
+
+        private Frame(int slots) {
+            values = new Object[slots];
+            Arrays.fill(values, UNSET);
+        }
+
+        /**
+         * Returns the value of {@code slot}, evaluating {@code expression} the first time.
+         */
+        Object get(int slot, Node expression, ELContext context) {
+            var value = values[slot];
+            if (value == UNSET) {
+                value = expression.getValue(context);
+                values[slot] = value;
+            }
+            return value;
+        }
+
+        boolean covers(int slot) {
+            return slot < values.length;
+        }
+
+        void clear() {
+            Arrays.fill(values, UNSET);
+        }
+    }
+}
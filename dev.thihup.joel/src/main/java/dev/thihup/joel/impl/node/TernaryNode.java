@@ -2,6 +2,8 @@ package dev.thihup.joel.impl.node;
 
 import jakarta.el.ELContext;
 
+import java.util.List;
+
 public record TernaryNode(Node condition, Node trueExpression,
                           Node falseExpression) implements Node {
     @Override
@@ -20,8 +22,29 @@ public record TernaryNode(Node condition, Node trueExpression,
         return falseExpression.getValue(context);
     }
 
+    @Override
+    public long getLong(ELContext context) {
+        return condition.getBoolean(context) ? trueExpression.getLong(context) : falseExpression.getLong(context);
+    }
+
+    @Override
+    public double getDouble(ELContext context) {
+        return condition.getBoolean(context) ? trueExpression.getDouble(context) : falseExpression.getDouble(context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return condition.getBoolean(context) ? trueExpression.getBoolean(context) : falseExpression.getBoolean(context);
+    }
+
     @Override
     public String prettyPrint() {
-        return "%s ? %s : %s".formatted(condition.prettyPrint(), trueExpression.prettyPrint(), falseExpression.prettyPrint());
+        return "%s ? %s : %s".formatted(Node.operand(condition), Node.operand(trueExpression),
+                Node.operand(falseExpression));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(condition, trueExpression, falseExpression);
     }
 }
@@ -4,6 +4,7 @@ import jakarta.el.ELContext;
 
 import java.lang.reflect.Array;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public record UnaryEmptyNode(Node node) implements Node {
@@ -14,7 +15,10 @@ public record UnaryEmptyNode(Node node) implements Node {
 
     @Override
     public Object getValue(ELContext context) {
-        Object value = node.getValue(context);
+        return apply(node.getValue(context));
+    }
+
+    public static Object apply(Object value) {
         if (value == null)
             return true;
         if (value instanceof String newValue && newValue.isEmpty())
@@ -28,6 +32,11 @@ public record UnaryEmptyNode(Node node) implements Node {
 
     @Override
     public String prettyPrint() {
-        return "empty %s".formatted(node.prettyPrint());
+        return "empty %s".formatted(Node.operand(node));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
     }
 }
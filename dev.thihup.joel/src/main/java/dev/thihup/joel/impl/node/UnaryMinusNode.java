@@ -6,6 +6,7 @@ import jakarta.el.ELException;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.List;
 
 public record UnaryMinusNode(Node node) implements Node {
     @Override
@@ -15,7 +16,10 @@ public record UnaryMinusNode(Node node) implements Node {
 
     @Override
     public Object getValue(ELContext context) {
-        Object value = node.getValue(context);
+        return apply(node.getValue(context), context);
+    }
+
+    public static Object apply(Object value, ELContext context) {
         if (value == null)
             return 0L;
         if (value instanceof BigDecimal bigDecimal) {
@@ -53,6 +57,11 @@ public record UnaryMinusNode(Node node) implements Node {
 
     @Override
     public String prettyPrint() {
-        return "-%s".formatted(node.prettyPrint());
+        return "-%s".formatted(Node.operand(node));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
     }
 }
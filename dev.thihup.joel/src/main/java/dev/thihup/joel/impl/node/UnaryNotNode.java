@@ -2,6 +2,8 @@ package dev.thihup.joel.impl.node;
 
 import jakarta.el.ELContext;
 
+import java.util.List;
+
 public record UnaryNotNode(Node node) implements Node {
     @Override
     public Class<?> getType(ELContext context) {
@@ -10,11 +12,25 @@ public record UnaryNotNode(Node node) implements Node {
 
     @Override
     public Object getValue(ELContext context) {
-        return !(boolean) context.convertToType(node.getValue(context), boolean.class);
+        return apply(node.getValue(context), context);
+    }
+
+    @Override
+    public boolean getBoolean(ELContext context) {
+        return !node.getBoolean(context);
+    }
+
+    public static Object apply(Object value, ELContext context) {
+        return !(boolean) context.convertToType(value, boolean.class);
     }
 
     @Override
     public String prettyPrint() {
-        return "! %s".formatted(node.prettyPrint());
+        return "! %s".formatted(Node.operand(node));
+    }
+
+    @Override
+    public List<? extends Node> children() {
+        return List.of(node);
     }
 }
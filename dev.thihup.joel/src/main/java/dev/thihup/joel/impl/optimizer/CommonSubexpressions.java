@@ -0,0 +1,180 @@
+package dev.thihup.joel.impl.optimizer;
+
+import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.SideEffectNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubexpressionNode;
+import dev.thihup.joel.impl.node.SubexpressionScopeNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates the property paths that occur more than once in an expression, like {@code order.customer.address} in
+ * {@code order.customer.address.city != null ? order.customer.address.city : order.customer.address.zip}, once per
+ * evaluation.
+ * <p>
+ * Only paths made of identifiers, literals and property reads are shared, reading a property being assumed to have no
+ * side effect. Calls and assignments may change what a path evaluates to, so the values read before one of them are
+ * not reused after it. Lambda bodies are evaluated once per invocation, with other parameters, and are left alone, as
+ * are expressions whose root is a property, an identifier or a call, which stand for a reference rather than a value.
+ */
+public final class CommonSubexpressions {
+    private final Map<Node, Integer> occurrences = new HashMap<>();
+    private final Map<Node, SubexpressionNode> shared = new HashMap<>();
+    private final Set<Node> sharedPaths = new HashSet<>();
+    private boolean chainedCalls;
+
+    private CommonSubexpressions() {
+    }
+
+    /**
+     * Returns {@code node} with the paths it evaluates more than once shared, or {@code node} itself when there are none.
+     */
+    public static Node eliminate(Node node) {
+        if (node == null || node instanceof StringNode || node instanceof MemberNode || node instanceof IdentifierNode
+                || node instanceof CallExpressionNode || node instanceof LambdaNode || node instanceof LazySegmentNode)
+            return node;
+        return new CommonSubexpressions().rewriteRoot(node);
+    }
+
+    private Node rewriteRoot(Node root) {
+        visit(root, path -> occurrences.merge(path, 1, Integer::sum), false);
+        if (chainedCalls)
+            return root;
+        // a path evaluated as part of a longer shared one is only evaluated once with it
+        var candidates = new HashMap<Node, Integer>();
+        occurrences.forEach((path, count) -> {
+            if (count > 1)
+                candidates.put(path, 0);
+        });
+        if (candidates.isEmpty())
+            return root;
+        visit(root, path -> candidates.computeIfPresent(path, (key, count) -> count + 1), true, candidates);
+        candidates.forEach((path, count) -> {
+            if (count > 1)
+                sharedPaths.add(path);
+        });
+        if (sharedPaths.isEmpty())
+            return root;
+        var body = rewrite(root);
+        return new SubexpressionScopeNode(body, shared.size());
+    }
+
+    private void visit(Node node, Consumer<Node> onPath, boolean stopAtCandidates) {
+        visit(node, onPath, stopAtCandidates, Map.of());
+    }
+
+    /**
+     * Walks the operands {@code node} evaluates as values, reporting every path. With {@code stopAtCandidates}, the
+     * operands of a candidate are only walked the first time it is met.
+     */
+    private void visit(Node node, Consumer<Node> onPath, boolean stopAtCandidates, Map<Node, Integer> candidates) {
+        if (node == null || node instanceof LambdaNode || node instanceof LazySegmentNode)
+            return;
+        if (isPath(node)) {
+            boolean seen = stopAtCandidates && candidates.getOrDefault(node, 0) > 0;
+            onPath.accept(node);
+            if (seen)
+                return;
+        }
+        if (node instanceof MemberNode memberNode) {
+            visitReference(memberNode, onPath, stopAtCandidates, candidates);
+        } else if (node instanceof AssignNode assignNode) {
+            if (assignNode.left() instanceof MemberNode target)
+                visitReference(target, onPath, stopAtCandidates, candidates);
+            visit(assignNode.right(), onPath, stopAtCandidates, candidates);
+        } else if (node instanceof CallExpressionNode callNode) {
+            if (callNode.callee() instanceof MemberNode method)
+                visitReference(method, onPath, stopAtCandidates, candidates);
+            chainedCalls |= callNode.callee() instanceof CallExpressionNode;
+            for (Node argument : callNode.arguments())
+                visit(argument, onPath, stopAtCandidates, candidates);
+        } else {
+            for (Node child : node.children())
+                visit(child, onPath, stopAtCandidates, candidates);
+        }
+    }
+
+    private void visitReference(MemberNode memberNode, Consumer<Node> onPath, boolean stopAtCandidates, Map<Node, Integer> candidates) {
+        visit(memberNode.object(), onPath, stopAtCandidates, candidates);
+        if (!(memberNode.property() instanceof IdentifierNode))
+            visit(memberNode.property(), onPath, stopAtCandidates, candidates);
+    }
+
+    private Node rewrite(Node node) {
+        if (node == null || node instanceof LambdaNode || node instanceof LazySegmentNode)
+            return node;
+        if (node instanceof MemberNode memberNode) {
+            if (!sharedPaths.contains(node))
+                return rewriteReference(memberNode);
+            var subexpression = shared.get(node);
+            if (subexpression == null) {
+                var expression = rewriteReference(memberNode);
+                subexpression = new SubexpressionNode(shared.size(), expression);
+                shared.put(node, subexpression);
+            }
+            return subexpression;
+        }
+        if (node instanceof AssignNode assignNode) {
+            var target = assignNode.left() instanceof MemberNode memberNode ? rewriteReference(memberNode) : assignNode.left();
+            return new SideEffectNode(new AssignNode(target, rewrite(assignNode.right())));
+        }
+        if (node instanceof CallExpressionNode callNode) {
+            var callee = callNode.callee() instanceof MemberNode memberNode ? rewriteReference(memberNode) : callNode.callee();
+            var arguments = callNode.arguments().stream().map(this::rewrite).toList();
+            return new SideEffectNode(new CallExpressionNode(callee, arguments));
+        }
+        return rewriteChildren(node);
+    }
+
+    private Node rewriteReference(MemberNode memberNode) {
+        var property = memberNode.property() instanceof IdentifierNode ? memberNode.property() : rewrite(memberNode.property());
+        return rewriteChildren(memberNode, List.of(rewrite(memberNode.object()), property));
+    }
+
+    private Node rewriteChildren(Node node) {
+        var children = node.children();
+        var rewritten = new ArrayList<Node>(children.size());
+        for (Node child : children)
+            rewritten.add(rewrite(child));
+        return rewriteChildren(node, rewritten);
+    }
+
+    private static Node rewriteChildren(Node node, List<Node> rewritten) {
+        var children = node.children();
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) != rewritten.get(i))
+                return Nodes.withChildren(node, rewritten);
+        }
+        return node;
+    }
+
+    /**
+     * Whether {@code node} is a property read whose object and property are themselves identifiers, literals or
+     * property reads.
+     */
+    private static boolean isPath(Node node) {
+        return node instanceof MemberNode memberNode && isPathOperand(memberNode.object()) && isPathOperand(memberNode.property());
+    }
+
+    private static boolean isPathOperand(Node node) {
+        return node instanceof IdentifierNode || node instanceof StringNode || node instanceof NumberNode
+                || node instanceof BooleanNode || node instanceof NullNode || isPath(node);
+    }
+}
@@ -0,0 +1,204 @@
+package dev.thihup.joel.impl.optimizer;
+
+import dev.thihup.joel.impl.TypeConverter;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.BooleanExpression;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.InfixExpressionNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.RelationalNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jakarta.el.ELResolver;
+import jakarta.el.FunctionMapper;
+import jakarta.el.VariableMapper;
+
+import java.util.ArrayList;
+
+/**
+ * Folds the subtrees of an expression that only depend on literals into the literal they evaluate to, and prunes the
+ * branches of conditionals whose condition is a literal.
+ * <p>
+ * Folding evaluates the operators themselves, with the standard coercions of {@link TypeConverter}. An operation that
+ * fails, like {@code 1 % 0}, is left in the tree so that it keeps failing on evaluation. The root of an expression, and
+ * of a lambda body, decides what {@code isLiteralText}, {@code isReadOnly} and {@code getType} report, so it is only
+ * replaced by a number, boolean or {@code null} of the same type; otherwise only its operands are folded.
+ */
+public final class ConstantFolder {
+    private static final ELContext FOLDING_CONTEXT = new FoldingContext();
+
+    private ConstantFolder() {
+    }
+
+    /**
+     * Returns {@code node} with its constant subtrees folded.
+     */
+    public static Node fold(Node node) {
+        var folded = foldOperands(node);
+        var constant = constant(folded);
+        if (!isLiteral(constant) || constant instanceof StringNode)
+            return folded;
+        try {
+            var type = folded.getType(FOLDING_CONTEXT);
+            return type == constant.getType(FOLDING_CONTEXT) ? constant : folded;
+        } catch (RuntimeException unknownType) {
+            return folded;
+        }
+    }
+
+    private static Node foldNested(Node node) {
+        var folded = foldOperands(node);
+        var constant = constant(folded);
+        return constant != null ? constant : folded;
+    }
+
+    private static Node foldOperands(Node node) {
+        if (node == null || node instanceof LazySegmentNode)
+            return node;
+        if (node instanceof LambdaNode lambdaNode) {
+            var body = fold(lambdaNode.expression());
+            return body == lambdaNode.expression() ? node : new LambdaNode(lambdaNode.parameters(), body);
+        }
+        return foldChildren(node);
+    }
+
+    private static Node foldChildren(Node node) {
+        var children = node.children();
+        if (children.isEmpty())
+            return node;
+        var folded = new ArrayList<Node>(children.size());
+        boolean changed = false;
+        for (Node child : children) {
+            var foldedChild = foldNested(child);
+            folded.add(foldedChild);
+            changed |= foldedChild != child;
+        }
+        return changed ? Nodes.withChildren(node, folded) : node;
+    }
+
+    /**
+     * Returns the literal, or the simpler node, {@code node} reduces to once its operands are folded, or {@code null}.
+     */
+    private static Node constant(Node node) {
+        if (node instanceof TernaryNode ternaryNode)
+            return branch(ternaryNode);
+        if (node instanceof SemicolonNode semicolonNode)
+            return isLiteral(semicolonNode.left()) ? semicolonNode.right() : null;
+        if (node instanceof AndNode andNode)
+            return shortCircuit(andNode.left(), andNode.right(), false);
+        if (node instanceof OrNode orNode)
+            return shortCircuit(orNode.left(), orNode.right(), true);
+        if (node instanceof RelationalNode relationalNode)
+            return isLiteral(relationalNode.left(), relationalNode.right()) ? evaluate(node) : null;
+        if (node instanceof InfixExpressionNode infixNode && !(node instanceof AssignNode))
+            return isLiteral(infixNode.left(), infixNode.right()) ? evaluate(node) : null;
+        if (node instanceof UnaryMinusNode || node instanceof UnaryNotNode || node instanceof UnaryEmptyNode)
+            return isLiteral(node.children().get(0)) ? evaluate(node) : null;
+        if (node instanceof CompositeNode compositeNode)
+            return compositeNode.segments().stream().allMatch(ConstantFolder::isLiteral) ? evaluate(node) : null;
+        return null;
+    }
+
+    private static Node branch(TernaryNode ternaryNode) {
+        if (!isLiteral(ternaryNode.condition()))
+            return null;
+        try {
+            return (boolean) FOLDING_CONTEXT.convertToType(ternaryNode.condition().getValue(FOLDING_CONTEXT), boolean.class)
+                    ? ternaryNode.trueExpression()
+                    : ternaryNode.falseExpression();
+        } catch (RuntimeException invalidCondition) {
+            return null;
+        }
+    }
+
+    /**
+     * {@code false && x} and {@code true || x} are decided by their left operand, while {@code true && x} and
+     * {@code false || x} are {@code x} as long as it already evaluates to a {@link Boolean}.
+     */
+    private static Node shortCircuit(Node left, Node right, boolean decisive) {
+        if (!isLiteral(left))
+            return null;
+        boolean value;
+        try {
+            value = (boolean) FOLDING_CONTEXT.convertToType(left.getValue(FOLDING_CONTEXT), boolean.class);
+        } catch (RuntimeException invalidOperand) {
+            return null;
+        }
+        if (value == decisive)
+            return decisive ? BooleanNode.TRUE : BooleanNode.FALSE;
+        if (right instanceof BooleanExpression)
+            return right;
+        return isLiteral(right) ? evaluate(new AndNode(BooleanNode.TRUE, right)) : null;
+    }
+
+    private static Node evaluate(Node node) {
+        try {
+            return literal(node.getValue(FOLDING_CONTEXT));
+        } catch (RuntimeException failure) {
+            return null;
+        }
+    }
+
+    private static Node literal(Object value) {
+        if (value == null)
+            return NullNode.INSTANCE;
+        if (value instanceof Boolean booleanValue)
+            return booleanValue ? BooleanNode.TRUE : BooleanNode.FALSE;
+        if (value instanceof String string)
+            return new StringNode(string);
+        if (value instanceof Number number)
+            return new NumberNode(number);
+        return null;
+    }
+
+    private static boolean isLiteral(Node node) {
+        return node instanceof NumberNode || node instanceof StringNode || node instanceof BooleanNode || node instanceof NullNode;
+    }
+
+    private static boolean isLiteral(Node left, Node right) {
+        return isLiteral(left) && isLiteral(right);
+    }
+
+    /**
+     * Context literals are evaluated against: it has nothing to resolve and only applies the standard coercions.
+     */
+    private static final class FoldingContext extends ELContext {
+        @Override
+        public Object convertToType(Object object, Class<?> targetType) {
+            try {
+                return TypeConverter.coerce(object, targetType);
+            } catch (Exception rootCause) {
+                throw new ELException(rootCause);
+            }
+        }
+
+        @Override
+        public ELResolver getELResolver() {
+            return null;
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return null;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package dev.thihup.joel.impl.optimizer;
+
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.CompiledNode;
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.FlatNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.InfixExpressionNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.ObjectNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.RegisterNode;
+import dev.thihup.joel.impl.node.RelationalNode;
+import dev.thihup.joel.impl.node.SpecializingNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubexpressionNode;
+import dev.thihup.joel.impl.node.SubexpressionScopeNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Specializes an expression to known values of some of its identifiers, leaving a residual expression that only
+ * depends on the others.
+ * <p>
+ * The known identifiers are replaced by their values, then the property reads, operators and conditionals whose
+ * operands are all known are evaluated against a context and replaced by their result, which prunes the branches a
+ * known condition rules out. Method calls are never evaluated, since they may have side effects, but their receivers
+ * and arguments are. An evaluation that fails is left in the tree so that it keeps failing on evaluation. Like for the
+ * {@link ConstantFolder}, the root of the expression decides whether it can be assigned, so a property read there is
+ * kept with its known base. Identifiers the expression assigns to, and lambda parameters in the lambda defining them,
+ * are not replaced.
+ * <p>
+ * The tree may be the one an expression was optimized to: its compiled, flat, register and shared forms and its
+ * specialized operators are first turned back into the nodes they were made of, and its lazy segments are parsed, so
+ * that the residual is specialized and optimized again from those. A lazy segment that does not parse is left as is,
+ * to fail when it is evaluated.
+ */
+public final class PartialEvaluator {
+    private final ELContext context;
+
+    private PartialEvaluator(ELContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns {@code node} with the identifiers named in {@code bindings} bound to their values, and the subtrees that
+     * only depend on them evaluated in {@code context}.
+     */
+    public static Node specialize(Node node, Map<String, ?> bindings, ELContext context) {
+        var parsed = parsed(node);
+        var known = new HashMap<String, Object>(bindings);
+        removeAssigned(parsed, known);
+        return new PartialEvaluator(context).root(parsed, known);
+    }
+
+    private static Node parsed(Node node) {
+        if (node == null)
+            return null;
+        if (node instanceof LazySegmentNode lazySegment) {
+            try {
+                return parsed(lazySegment.node());
+            } catch (ELException invalidSegment) {
+                return node;
+            }
+        }
+        if (node instanceof CompiledNode compiledNode)
+            return parsed(compiledNode.node());
+        if (node instanceof FlatNode flatNode)
+            return parsed(flatNode.tree());
+        if (node instanceof RegisterNode registerNode)
+            return parsed(registerNode.tree());
+        if (node instanceof SubexpressionScopeNode scopeNode)
+            return parsed(scopeNode.body());
+        if (node instanceof SubexpressionNode subexpressionNode)
+            return parsed(subexpressionNode.expression());
+        if (node instanceof LongKernelNode kernelNode)
+            return kernelNode.kernel().generic(parsed(kernelNode.left()), parsed(kernelNode.right()));
+        if (node instanceof SpecializingNode specializingNode)
+            return specializingNode.kernel().generic(parsed(specializingNode.left()), parsed(specializingNode.right()));
+        var children = node.children();
+        var rewritten = new ArrayList<Node>(children.size());
+        for (var child : children)
+            rewritten.add(parsed(child));
+        return withChildren(node, rewritten);
+    }
+
+    private static void removeAssigned(Node node, Map<String, Object> known) {
+        if (node == null || node instanceof LazySegmentNode)
+            return;
+        if (node instanceof AssignNode assignNode && assignNode.left() instanceof IdentifierNode identifierNode)
+            known.remove(identifierNode.value());
+        for (Node child : node.children())
+            removeAssigned(child, known);
+    }
+
+    private Node root(Node node, Map<String, Object> known) {
+        var specialized = operands(node, known);
+        while (specialized instanceof TernaryNode ternaryNode && isKnown(ternaryNode.condition())) {
+            var branch = branch(ternaryNode);
+            if (branch == null)
+                break;
+            specialized = branch;
+        }
+        return specialized;
+    }
+
+    private Node specialize(Node node, Map<String, Object> known) {
+        var specialized = operands(node, known);
+        var reduced = reduce(specialized);
+        return reduced != null ? reduced : specialized;
+    }
+
+    private Node operands(Node node, Map<String, Object> known) {
+        if (node == null || node instanceof LazySegmentNode)
+            return node;
+        if (node instanceof IdentifierNode identifierNode)
+            return known.containsKey(identifierNode.value()) ? value(known.get(identifierNode.value())) : node;
+        if (node instanceof LambdaNode lambdaNode) {
+            var inner = new HashMap<>(known);
+            lambdaNode.parameters().forEach(inner::remove);
+            var body = specialize(lambdaNode.expression(), inner);
+            return body == lambdaNode.expression() ? node : new LambdaNode(lambdaNode.parameters(), body);
+        }
+        if (node instanceof MemberNode memberNode) {
+            var property = memberNode.property() instanceof IdentifierNode
+                    ? memberNode.property()
+                    : specialize(memberNode.property(), known);
+            return withChildren(node, List.of(specialize(memberNode.object(), known), property));
+        }
+        if (node instanceof AssignNode assignNode) {
+            var target = assignNode.left() instanceof IdentifierNode
+                    ? assignNode.left()
+                    : operands(assignNode.left(), known);
+            return withChildren(node, List.of(target, specialize(assignNode.right(), known)));
+        }
+        var children = node.children();
+        var specialized = new ArrayList<Node>(children.size());
+        for (int i = 0; i < children.size(); i++) {
+            var child = children.get(i);
+            if (i == 0 && node instanceof CallExpressionNode)
+                specialized.add(child instanceof IdentifierNode ? child : operands(child, known));
+            else
+                specialized.add(specialize(child, known));
+        }
+        return withChildren(node, specialized);
+    }
+
+    private static Node withChildren(Node node, List<Node> children) {
+        var current = node.children();
+        for (int i = 0; i < children.size(); i++) {
+            if (children.get(i) != current.get(i))
+                return Nodes.withChildren(node, children);
+        }
+        return node;
+    }
+
+    /**
+     * Returns what {@code node} reduces to now that its operands are specialized, or {@code null}.
+     */
+    private Node reduce(Node node) {
+        if (node instanceof TernaryNode ternaryNode)
+            return isKnown(ternaryNode.condition()) ? branch(ternaryNode) : null;
+        if (node instanceof AndNode andNode)
+            return decide(andNode.left(), false);
+        if (node instanceof OrNode orNode)
+            return decide(orNode.left(), true);
+        if (node instanceof MemberNode memberNode)
+            return isKnown(memberNode.object()) && (memberNode.property() instanceof IdentifierNode || isKnown(memberNode.property()))
+                    ? evaluate(node)
+                    : null;
+        if (node instanceof RelationalNode relationalNode)
+            return isKnown(relationalNode.left()) && isKnown(relationalNode.right()) ? evaluate(node) : null;
+        if (node instanceof InfixExpressionNode infixNode && !(node instanceof AssignNode))
+            return isKnown(infixNode.left()) && isKnown(infixNode.right()) ? evaluate(node) : null;
+        if (node instanceof UnaryMinusNode || node instanceof UnaryNotNode || node instanceof UnaryEmptyNode)
+            return isKnown(node.children().get(0)) ? evaluate(node) : null;
+        if (node instanceof CompositeNode compositeNode)
+            return compositeNode.segments().stream().allMatch(PartialEvaluator::isKnown) ? evaluate(node) : null;
+        return null;
+    }
+
+    private Node branch(TernaryNode ternaryNode) {
+        try {
+            return (boolean) context.convertToType(ternaryNode.condition().getValue(context), boolean.class)
+                    ? ternaryNode.trueExpression()
+                    : ternaryNode.falseExpression();
+        } catch (RuntimeException invalidCondition) {
+            return null;
+        }
+    }
+
+    /**
+     * A known left operand that decides {@code &&} or {@code ||} replaces it; otherwise the right operand is still
+     * evaluated, and the node is left for the {@link ConstantFolder}.
+     */
+    private Node decide(Node left, boolean decisive) {
+        if (!isKnown(left))
+            return null;
+        try {
+            boolean value = (boolean) context.convertToType(left.getValue(context), boolean.class);
+            return value == decisive ? (decisive ? BooleanNode.TRUE : BooleanNode.FALSE) : null;
+        } catch (RuntimeException invalidOperand) {
+            return null;
+        }
+    }
+
+    private Node evaluate(Node node) {
+        try {
+            return value(node.getValue(context));
+        } catch (RuntimeException failure) {
+            return null;
+        }
+    }
+
+    private static Node value(Object value) {
+        if (value == null)
+            return NullNode.INSTANCE;
+        if (value instanceof Boolean booleanValue)
+            return booleanValue ? BooleanNode.TRUE : BooleanNode.FALSE;
+        if (value instanceof String string)
+            return new StringNode(string);
+        if (value instanceof Number number)
+            return new NumberNode(number);
+        return new ObjectNode(value);
+    }
+
+    private static boolean isKnown(Node node) {
+        return node instanceof NumberNode || node instanceof StringNode || node instanceof BooleanNode
+                || node instanceof NullNode || node instanceof ObjectNode;
+    }
+}
@@ -0,0 +1,59 @@
+package dev.thihup.joel.impl.optimizer;
+
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.SpecializingNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the generic arithmetic and comparisons by {@link SpecializingNode}s, which specialize themselves to the
+ * values they see when the expression is evaluated, and gives the reads of named properties an inline cache of the bean
+ * classes they see, see {@link MemberNode#MemberNode(Node, Node, int)}, as well as the calls of named methods, see
+ * {@link CallExpressionNode#CallExpressionNode(Node, List, int)}.
+ * <p>
+ * Operators already specialized by {@link TypeInference} are left alone: their operand types are known statically,
+ * so there is nothing left to learn at run time.
+ */
+public final class TypeFeedback {
+    private TypeFeedback() {
+    }
+
+    /**
+     * Returns {@code node} with its generic operators specializing themselves to at most {@code limit} pairs of operand
+     * classes, and its property reads and method calls caching at most {@code limit} bean classes or signatures.
+     */
+    public static Node install(Node node, int limit) {
+        if (node == null || node instanceof LazySegmentNode)
+            return node;
+        var children = node.children();
+        var rewritten = node;
+        if (!children.isEmpty()) {
+            var rewrittenChildren = new ArrayList<Node>(children.size());
+            boolean changed = false;
+            for (Node child : children) {
+                var rewrittenChild = install(child, limit);
+                rewrittenChildren.add(rewrittenChild);
+                changed |= rewrittenChild != child;
+            }
+            if (changed)
+                rewritten = Nodes.withChildren(node, rewrittenChildren);
+        }
+        if (rewritten instanceof MemberNode memberNode && memberNode.property() instanceof IdentifierNode)
+            return new MemberNode(memberNode.object(), memberNode.property(), limit);
+        if (rewritten instanceof CallExpressionNode callNode && callNode.callee() instanceof MemberNode memberNode
+                && memberNode.property() instanceof IdentifierNode)
+            return new CallExpressionNode(callNode.callee(), callNode.arguments(), limit);
+        var kernel = LongKernelNode.Kernel.of(rewritten);
+        if (kernel == null)
+            return rewritten;
+        var operands = rewritten.children();
+        return new SpecializingNode(kernel, operands.get(0), operands.get(1), limit);
+    }
+}
@@ -0,0 +1,101 @@
+package dev.thihup.joel.impl.optimizer;
+
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.LongKernelNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.Nodes;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.RelationalNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Infers the types subtrees are known to evaluate to, from literals and the operators applied to them, and replaces the
+ * arithmetic and comparisons with a {@link Long} operand by a {@link LongKernelNode}.
+ * <p>
+ * Identifiers, properties and calls have no static type: what they evaluate to depends on the context. An operation is
+ * therefore specialized as soon as one operand is known to be a {@code Long} and the other is not known to be anything
+ * else, the kernel checking the actual values before taking its shortcut.
+ */
+public final class TypeInference {
+    private final Map<Node, Class<?>> types = new IdentityHashMap<>();
+
+    private TypeInference() {
+    }
+
+    /**
+     * Returns {@code node} with its arithmetic and comparisons on known {@link Long}s specialized.
+     */
+    public static Node specialize(Node node) {
+        return new TypeInference().rewrite(node);
+    }
+
+    private Node rewrite(Node node) {
+        if (node == null || node instanceof LazySegmentNode)
+            return node;
+        var children = node.children();
+        var rewritten = node;
+        if (!children.isEmpty()) {
+            var rewrittenChildren = new ArrayList<Node>(children.size());
+            boolean changed = false;
+            for (Node child : children) {
+                var rewrittenChild = rewrite(child);
+                rewrittenChildren.add(rewrittenChild);
+                changed |= rewrittenChild != child;
+            }
+            if (changed)
+                rewritten = Nodes.withChildren(node, rewrittenChildren);
+        }
+        var kernel = LongKernelNode.Kernel.of(rewritten);
+        if (kernel != null) {
+            var left = rewritten.children().get(0);
+            var right = rewritten.children().get(1);
+            var leftType = types.get(left);
+            var rightType = types.get(right);
+            if ((leftType == Long.class || rightType == Long.class)
+                    && (leftType == null || leftType == Long.class) && (rightType == null || rightType == Long.class)) {
+                var specialized = new LongKernelNode(kernel, left, right);
+                if (leftType == Long.class && rightType == Long.class)
+                    types.put(specialized, kernel.resultType());
+                else if (kernel.resultType() == Boolean.class)
+                    types.put(specialized, Boolean.class);
+                return specialized;
+            }
+        }
+        var type = typeOf(rewritten);
+        if (type != null)
+            types.put(rewritten, type);
+        return rewritten;
+    }
+
+    private Class<?> typeOf(Node node) {
+        if (node instanceof NumberNode numberNode)
+            return numberNode.value().getClass();
+        if (node instanceof StringNode)
+            return String.class;
+        if (node instanceof BooleanNode || node instanceof RelationalNode || node instanceof UnaryNotNode || node instanceof UnaryEmptyNode)
+            return Boolean.class;
+        if (node instanceof UnaryMinusNode minusNode && types.get(minusNode.node()) == Long.class)
+            return Long.class;
+        if (node instanceof DynamicExpressionNode || node instanceof DeferredExpressionNode)
+            return types.get(node.children().get(0));
+        if (node instanceof SemicolonNode semicolonNode)
+            return types.get(semicolonNode.right());
+        if (node instanceof TernaryNode ternaryNode) {
+            var type = types.get(ternaryNode.trueExpression());
+            return type == types.get(ternaryNode.falseExpression()) ? type : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,282 @@
+package dev.thihup.joel.impl.parser;
+
+import jakarta.el.ELException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written equivalent of the {@code IN_EXPRESSION} mode of {@code ExpressionLanguageLexer}.
+ * <p>
+ * It tokenizes the body of a single {@code ${...}} or {@code #{...}} expression, starting right after the opening
+ * delimiter and stopping at the matching closing brace, which is reported as an {@link TokenType#END} token.
+ */
+final class ExpressionLexer {
+    private static final Map<String, TokenType> KEYWORDS = Map.ofEntries(
+            Map.entry("true", TokenType.BOOL_LITERAL),
+            Map.entry("false", TokenType.BOOL_LITERAL),
+            Map.entry("null", TokenType.NULL),
+            Map.entry("gt", TokenType.GT),
+            Map.entry("lt", TokenType.LT),
+            Map.entry("ge", TokenType.GE),
+            Map.entry("le", TokenType.LE),
+            Map.entry("eq", TokenType.EQ),
+            Map.entry("ne", TokenType.NE),
+            Map.entry("not", TokenType.NOT),
+            Map.entry("and", TokenType.AND),
+            Map.entry("or", TokenType.OR),
+            Map.entry("empty", TokenType.EMPTY),
+            Map.entry("instanceof", TokenType.INSTANCEOF),
+            Map.entry("div", TokenType.DIV),
+            Map.entry("mod", TokenType.MOD)
+    );
+
+    private final CharSequence input;
+    private int position;
+    private int depth;
+    private boolean truncated;
+
+    ExpressionLexer(CharSequence input, int start) {
+        this.input = input;
+        this.position = start;
+    }
+
+    int position() {
+        return position;
+    }
+
+    /**
+     * Whether the last error was caused by the input ending, rather than by a character that no input following it
+     * could make valid.
+     */
+    boolean truncated() {
+        return truncated;
+    }
+
+    List<Token> tokenize() {
+        var tokens = new ArrayList<Token>();
+        while (true) {
+            var token = next();
+            tokens.add(token);
+            if (token.type() == TokenType.END)
+                return tokens;
+        }
+    }
+
+    /**
+     * Advances past the matching closing brace without keeping the tokens and returns the index right after it.
+     */
+    int skip() {
+        while (next().type() != TokenType.END) {
+        }
+        return position;
+    }
+
+    private Token next() {
+        skipWhitespace();
+        if (position >= input.length())
+            throw truncatedError("Unterminated expression");
+        int start = position;
+        char current = input.charAt(position);
+        if (isLetter(current))
+            return identifier(start);
+        if (isAsciiDigit(current) || (current == '.' && isAsciiDigit(peek(1))))
+            return number(start);
+        return switch (current) {
+            case '\'', '"' -> string(start, current);
+            case '{' -> {
+                depth++;
+                yield single(TokenType.LCURL, start);
+            }
+            case '}' -> {
+                if (depth-- == 0) {
+                    position++;
+                    yield new Token(TokenType.END, "}", start);
+                }
+                yield single(TokenType.RCURL, start);
+            }
+            case '.' -> single(TokenType.DOT, start);
+            case '(' -> single(TokenType.LPAREN, start);
+            case ')' -> single(TokenType.RPAREN, start);
+            case '[' -> single(TokenType.LBRACK, start);
+            case ']' -> single(TokenType.RBRACK, start);
+            case ':' -> single(TokenType.COLON, start);
+            case ',' -> single(TokenType.COMMA, start);
+            case ';' -> single(TokenType.SEMICOLON, start);
+            case '?' -> single(TokenType.QUESTIONMARK, start);
+            case '*' -> single(TokenType.MULT, start);
+            case '/' -> single(TokenType.DIV, start);
+            case '%' -> single(TokenType.MOD, start);
+            case '#' -> single(TokenType.HASH, start);
+            case '>' -> peek(1) == '=' ? pair(TokenType.GE, start) : single(TokenType.GT, start);
+            case '<' -> peek(1) == '=' ? pair(TokenType.LE, start) : single(TokenType.LT, start);
+            case '=' -> peek(1) == '=' ? pair(TokenType.EQ, start) : single(TokenType.ASSIGN, start);
+            case '!' -> peek(1) == '=' ? pair(TokenType.NE, start) : single(TokenType.NOT, start);
+            case '+' -> peek(1) == '=' ? pair(TokenType.CONCAT, start) : single(TokenType.PLUS, start);
+            case '-' -> peek(1) == '>' ? pair(TokenType.ARROW, start) : single(TokenType.MINUS, start);
+            case '&' -> peek(1) == '&' ? pair(TokenType.AND, start) : unexpected(start);
+            case '|' -> peek(1) == '|' ? pair(TokenType.OR, start) : unexpected(start);
+            default -> unexpected(start);
+        };
+    }
+
+    private Token identifier(int start) {
+        position = identifierEnd(start);
+        if (peek(0) == ':' && isLetter(peek(1))) {
+            position = identifierEnd(position + 1);
+            return new Token(TokenType.QUALIFIED_FUNCTION, text(start), start);
+        }
+        var text = text(start);
+        if (text.equals("$"))
+            return new Token(TokenType.DOLLAR, text, start);
+        return new Token(KEYWORDS.getOrDefault(text, TokenType.IDENTIFIER), text, start);
+    }
+
+    private int identifierEnd(int start) {
+        int index = start + 1;
+        while (index < input.length() && (isLetter(input.charAt(index)) || isDigit(input.charAt(index))))
+            index++;
+        return index;
+    }
+
+    private Token number(int start) {
+        boolean floatingPoint = false;
+        position = digitsEnd(position);
+        if (peek(0) == '.') {
+            floatingPoint = true;
+            position = digitsEnd(position + 1);
+        }
+        int exponentEnd = exponentEnd(position);
+        if (exponentEnd != position) {
+            floatingPoint = true;
+            position = exponentEnd;
+        }
+        return new Token(floatingPoint ? TokenType.FLOATING_POINT_LITERAL : TokenType.INTEGER_LITERAL, text(start), start);
+    }
+
+    private int digitsEnd(int start) {
+        int index = start;
+        while (index < input.length() && isAsciiDigit(input.charAt(index)))
+            index++;
+        return index;
+    }
+
+    private int exponentEnd(int start) {
+        int index = start;
+        if (index >= input.length() || (input.charAt(index) != 'e' && input.charAt(index) != 'E'))
+            return start;
+        index++;
+        if (index < input.length() && (input.charAt(index) == '+' || input.charAt(index) == '-'))
+            index++;
+        int digitsEnd = digitsEnd(index);
+        return digitsEnd == index ? start : digitsEnd;
+    }
+
+    private Token string(int start, char quote) {
+        int index = start + 1;
+        while (index < input.length()) {
+            char current = input.charAt(index);
+            if (current == quote)
+                break;
+            if (current == '\\') {
+                if (index + 1 >= input.length())
+                    break;
+                char escaped = input.charAt(index + 1);
+                if (escaped != quote && escaped != '\\')
+                    throw error("Invalid escape sequence at position %d".formatted(index));
+                index++;
+            }
+            index++;
+        }
+        if (index >= input.length())
+            throw truncatedError("Unterminated string literal at position %d".formatted(start));
+        position = index + 1;
+        return new Token(TokenType.STRING_LITERAL, text(start), start);
+    }
+
+    private Token single(TokenType type, int start) {
+        position = start + 1;
+        return new Token(type, text(start), start);
+    }
+
+    private Token pair(TokenType type, int start) {
+        position = start + 2;
+        return new Token(type, text(start), start);
+    }
+
+    private Token unexpected(int start) {
+        // a lone & or | may be the first half of && or ||
+        if (start + 1 >= input.length() && (input.charAt(start) == '&' || input.charAt(start) == '|'))
+            throw truncatedError("Unexpected character '%s' at position %d".formatted(input.charAt(start), start));
+        throw error("Unexpected character '%s' at position %d".formatted(input.charAt(start), start));
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length()) {
+            char current = input.charAt(position);
+            if (current != ' ' && current != '\t' && current != '\r' && current != '\n')
+                return;
+            position++;
+        }
+    }
+
+    private char peek(int offset) {
+        int index = position + offset;
+        return index < input.length() ? input.charAt(index) : 0;
+    }
+
+    private String text(int start) {
+        return input.subSequence(start, position).toString();
+    }
+
+    private ELException error(String message) {
+        return new ELException(message);
+    }
+
+    private ELException truncatedError(String message) {
+        truncated = true;
+        return error(message);
+    }
+
+    private static boolean isAsciiDigit(char value) {
+        return value >= '0' && value <= '9';
+    }
+
+    /**
+     * Mirrors the grammar's {@code DIGIT}, which identifiers accept after their first letter.
+     */
+    static boolean isDigit(char value) {
+        return isAsciiDigit(value)
+                || (value >= '\u0660' && value <= '\u0669')
+                || (value >= '\u06f0' && value <= '\u06f9')
+                || (value >= '\u0966' && value <= '\u096f')
+                || (value >= '\u09e6' && value <= '\u09ef')
+                || (value >= '\u0a66' && value <= '\u0a6f')
+                || (value >= '\u0ae6' && value <= '\u0aef')
+                || (value >= '\u0b66' && value <= '\u0b6f')
+                || (value >= '\u0be7' && value <= '\u0bef')
+                || (value >= '\u0c66' && value <= '\u0c6f')
+                || (value >= '\u0ce6' && value <= '\u0cef')
+                || (value >= '\u0d66' && value <= '\u0d6f')
+                || (value >= '\u0e50' && value <= '\u0e59')
+                || (value >= '\u0ed0' && value <= '\u0ed9')
+                || (value >= '\u1040' && value <= '\u1049');
+    }
+
+    static boolean isLetter(char value) {
+        return value == '$'
+                || (value >= 'A' && value <= 'Z')
+                || value == '_'
+                || (value >= 'a' && value <= 'z')
+                || (value >= '\u00c0' && value <= '\u00d6')
+                || (value >= '\u00d8' && value <= '\u00f6')
+                || (value >= '\u00f8' && value <= '\u00ff')
+                || (value >= '\u0100' && value <= '\u1fff')
+                || (value >= '\u3040' && value <= '\u318f')
+                || (value >= '\u3300' && value <= '\u337f')
+                || (value >= '\u3400' && value <= '\u3d2d')
+                || (value >= '\u4e00' && value <= '\u9fff')
+                || (value >= '\uf900' && value <= '\ufaff');
+    }
+}
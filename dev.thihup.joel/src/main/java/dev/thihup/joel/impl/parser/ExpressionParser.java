@@ -0,0 +1,54 @@
+package dev.thihup.joel.impl.parser;
+
+import dev.thihup.joel.impl.antlr.JoelExpressionParser;
+import dev.thihup.joel.impl.node.Node;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Front ends able to turn an expression string into a tree of {@link Node}s. Both produce identical trees.
+ */
+public enum ExpressionParser {
+    ANTLR(JoelExpressionParser::segment),
+    PRATT(PrattExpressionParser::segment);
+
+    private final TemplateScanner.SegmentParser segmentParser;
+
+    ExpressionParser(TemplateScanner.SegmentParser segmentParser) {
+        this.segmentParser = segmentParser;
+    }
+
+    public Node parse(CharSequence template) {
+        return TemplateScanner.parse(template, segmentParser);
+    }
+
+    /**
+     * Parses {@code template} leaving the segments of a composite to be parsed on their first evaluation.
+     */
+    public Node parseLazily(CharSequence template) {
+        return TemplateScanner.parseLazily(template, segmentParser);
+    }
+
+    /**
+     * Parses the template read from {@code reader} without holding all of it in memory.
+     */
+    public Node parse(Reader reader) throws IOException {
+        return new StreamingTemplateParser(reader, segmentParser).parse();
+    }
+
+    /**
+     * Returns the parser with the given case-insensitive name, or {@code defaultValue} when the name is {@code null}
+     * or unknown.
+     */
+    public static ExpressionParser of(String name, ExpressionParser defaultValue) {
+        if (name == null)
+            return defaultValue;
+        try {
+            return valueOf(name.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException unknownParser) {
+            return defaultValue;
+        }
+    }
+}
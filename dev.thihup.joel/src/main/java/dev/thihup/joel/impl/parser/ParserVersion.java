@@ -0,0 +1,39 @@
+package dev.thihup.joel.impl.parser;
+
+import dev.thihup.joel.impl.antlr.ExpressionLanguageLexer;
+import dev.thihup.joel.impl.antlr.ExpressionLanguageParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Version of the trees built by the parsers, stamped on every stored or precompiled tree so that trees built by
+ * another version are never read back.
+ * <p>
+ * The serialized ATNs are compile-time constants, so computing the version loads neither ANTLR nor the generated
+ * parser.
+ */
+public final class ParserVersion {
+    /**
+     * Bump whenever the trees built from the same text change without the grammar changing, for instance when
+     * {@code ExpressionVisitor}, {@link PrattExpressionParser}, {@link TemplateScanner} or {@code NodeCodec} change
+     * what they build or how they read it.
+     */
+    private static final int REVISION = 1;
+
+    /**
+     * Checksum of {@link #REVISION} and of the serialized lexer and parser ATNs.
+     */
+    public static final long VALUE = version();
+
+    private ParserVersion() {
+    }
+
+    private static long version() {
+        var checksum = new CRC32();
+        checksum.update(REVISION);
+        checksum.update(ExpressionLanguageLexer._serializedATN.getBytes(StandardCharsets.UTF_8));
+        checksum.update(ExpressionLanguageParser._serializedATN.getBytes(StandardCharsets.UTF_8));
+        return checksum.getValue();
+    }
+}
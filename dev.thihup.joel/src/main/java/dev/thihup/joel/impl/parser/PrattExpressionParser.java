@@ -0,0 +1,386 @@
+package dev.thihup.joel.impl.parser;
+
+import dev.thihup.joel.impl.node.AddExpressionNode;
+import dev.thihup.joel.impl.node.AndNode;
+import dev.thihup.joel.impl.node.AssignNode;
+import dev.thihup.joel.impl.node.BooleanNode;
+import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.ConcatNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DivExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.EqualNode;
+import dev.thihup.joel.impl.node.GreaterEqualNode;
+import dev.thihup.joel.impl.node.GreaterThanNode;
+import dev.thihup.joel.impl.node.IdentifierNode;
+import dev.thihup.joel.impl.node.LambdaNode;
+import dev.thihup.joel.impl.node.LessEqualNode;
+import dev.thihup.joel.impl.node.LessThanNode;
+import dev.thihup.joel.impl.node.ListNode;
+import dev.thihup.joel.impl.node.MapNode;
+import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.ModExpressionNode;
+import dev.thihup.joel.impl.node.MulExpressionNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.NotEqualNode;
+import dev.thihup.joel.impl.node.NullNode;
+import dev.thihup.joel.impl.node.NumberNode;
+import dev.thihup.joel.impl.node.OrNode;
+import dev.thihup.joel.impl.node.SemicolonNode;
+import dev.thihup.joel.impl.node.SetNode;
+import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.node.SubExpressionNode;
+import dev.thihup.joel.impl.node.TernaryNode;
+import dev.thihup.joel.impl.node.UnaryEmptyNode;
+import dev.thihup.joel.impl.node.UnaryMinusNode;
+import dev.thihup.joel.impl.node.UnaryNotNode;
+import jakarta.el.ELException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hand-written precedence-climbing parser for the expression language.
+ * <p>
+ * It accepts the same language as the ANTLR grammar and builds the same trees as {@code ExpressionVisitor}, so both
+ * front ends can be used interchangeably. Binding powers follow the alternative order of the {@code expression} rule
+ * of {@code ExpressionLanguageParser.g4}, where earlier alternatives bind tighter.
+ */
+public final class PrattExpressionParser {
+    private static final int MEMBER_INDEX = 23;
+    private static final int MEMBER_DOT = 22;
+    private static final int CALL = 20;
+    private static final int UNARY = 19;
+    private static final int MULTIPLICATIVE = 18;
+    private static final int ADDITIVE = 17;
+    private static final int RELATIONAL = 16;
+    private static final int INSTANCEOF = 15;
+    private static final int EQUALITY = 14;
+    private static final int AND = 13;
+    private static final int OR = 12;
+    private static final int TERNARY = 10;
+    private static final int ASSIGN = 9;
+    private static final int LAMBDA = 8;
+    private static final int SEMICOLON = 7;
+
+    private final List<Token> tokens;
+    private int index;
+
+    private PrattExpressionParser(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    public static Node parse(String expression) {
+        return TemplateScanner.parse(expression, PrattExpressionParser::segment);
+    }
+
+    public static TemplateScanner.Segment segment(CharSequence template, int start) {
+        var lexer = new ExpressionLexer(template, start + 2);
+        var body = new PrattExpressionParser(lexer.tokenize()).body();
+        var node = template.charAt(start) == '#' ? new DeferredExpressionNode(body) : new DynamicExpressionNode(body);
+        return new TemplateScanner.Segment(node, lexer.position());
+    }
+
+    private Node body() {
+        var node = expression(0);
+        expect(TokenType.END);
+        return node;
+    }
+
+    private Node expression(int precedence) {
+        return infix(prefix(), precedence);
+    }
+
+    private Node infix(Node left, int precedence) {
+        while (true) {
+            var token = peek();
+            switch (token.type()) {
+                case LBRACK -> {
+                    if (MEMBER_INDEX < precedence)
+                        return left;
+                    next();
+                    var property = expression(0);
+                    expect(TokenType.RBRACK);
+                    left = new MemberNode(left, property);
+                }
+                case DOT -> {
+                    if (MEMBER_DOT < precedence)
+                        return left;
+                    next();
+                    left = new MemberNode(left, new IdentifierNode(expect(TokenType.IDENTIFIER).text()));
+                }
+                case LPAREN -> {
+                    if (CALL < precedence)
+                        return left;
+                    left = new CallExpressionNode(left, arguments());
+                }
+                case MULT, DIV, MOD -> {
+                    if (MULTIPLICATIVE < precedence)
+                        return left;
+                    next();
+                    var right = expression(MULTIPLICATIVE + 1);
+                    left = switch (token.type()) {
+                        case MULT -> new MulExpressionNode(left, right);
+                        case DIV -> new DivExpressionNode(left, right);
+                        default -> new ModExpressionNode(left, right);
+                    };
+                }
+                case PLUS, MINUS -> {
+                    if (ADDITIVE < precedence)
+                        return left;
+                    next();
+                    var right = expression(ADDITIVE + 1);
+                    left = token.type() == TokenType.PLUS ? new AddExpressionNode(left, right) : new SubExpressionNode(left, right);
+                }
+                case LE, GE, LT, GT -> {
+                    if (RELATIONAL < precedence)
+                        return left;
+                    next();
+                    var right = expression(RELATIONAL + 1);
+                    left = switch (token.type()) {
+                        case LE -> new LessEqualNode(left, right);
+                        case GE -> new GreaterEqualNode(left, right);
+                        case LT -> new LessThanNode(left, right);
+                        default -> new GreaterThanNode(left, right);
+                    };
+                }
+                case INSTANCEOF -> {
+                    if (INSTANCEOF < precedence)
+                        return left;
+                    next();
+                    expect(TokenType.IDENTIFIER);
+                    throw new IllegalStateException("%s %s %s".formatted(left, token.text(), null));
+                }
+                case EQ, NE -> {
+                    if (EQUALITY < precedence)
+                        return left;
+                    next();
+                    var right = expression(EQUALITY + 1);
+                    left = token.type() == TokenType.EQ ? new EqualNode(left, right) : new NotEqualNode(left, right);
+                }
+                case AND -> {
+                    if (AND < precedence)
+                        return left;
+                    next();
+                    left = new AndNode(left, expression(AND + 1));
+                }
+                case OR -> {
+                    if (OR < precedence)
+                        return left;
+                    next();
+                    left = new OrNode(left, expression(OR + 1));
+                }
+                case QUESTIONMARK -> {
+                    if (TERNARY < precedence)
+                        return left;
+                    next();
+                    Node trueExpression;
+                    if (peek().type() == TokenType.QUALIFIED_FUNCTION) {
+                        var function = qualifiedFunction();
+                        if (peek().type() != TokenType.COLON)
+                            throw new ELException();
+                        trueExpression = infix(function, 0);
+                    } else {
+                        trueExpression = expression(0);
+                    }
+                    expect(TokenType.COLON);
+                    left = new TernaryNode(left, trueExpression, expression(TERNARY));
+                }
+                case ASSIGN, CONCAT -> {
+                    if (ASSIGN < precedence)
+                        return left;
+                    next();
+                    var right = expression(ASSIGN);
+                    left = token.type() == TokenType.ASSIGN ? new AssignNode(left, right) : new ConcatNode(left, right);
+                }
+                case SEMICOLON -> {
+                    if (SEMICOLON < precedence)
+                        return left;
+                    next();
+                    left = new SemicolonNode(left, expression(SEMICOLON + 1));
+                }
+                default -> {
+                    return left;
+                }
+            }
+        }
+    }
+
+    private Node prefix() {
+        var token = peek();
+        return switch (token.type()) {
+            case QUALIFIED_FUNCTION -> qualifiedFunction();
+            case MINUS -> {
+                next();
+                yield new UnaryMinusNode(expression(UNARY));
+            }
+            case NOT -> {
+                next();
+                yield new UnaryNotNode(expression(UNARY));
+            }
+            case EMPTY -> {
+                next();
+                yield new UnaryEmptyNode(expression(UNARY));
+            }
+            case IDENTIFIER -> {
+                next();
+                if (peek().type() != TokenType.ARROW)
+                    yield new IdentifierNode(token.text());
+                next();
+                yield new LambdaNode(List.of(token.text()), expression(LAMBDA));
+            }
+            case LPAREN -> {
+                if (isLambdaParameters()) {
+                    var parameters = lambdaParameters();
+                    expect(TokenType.ARROW);
+                    yield new LambdaNode(parameters, expression(LAMBDA));
+                }
+                next();
+                var node = expression(0);
+                expect(TokenType.RPAREN);
+                yield node;
+            }
+            case BOOL_LITERAL -> {
+                next();
+                yield token.text().equals("true") ? BooleanNode.TRUE : BooleanNode.FALSE;
+            }
+            case NULL -> {
+                next();
+                yield NullNode.INSTANCE;
+            }
+            case INTEGER_LITERAL -> {
+                next();
+                yield new NumberNode(Long.valueOf(token.text()));
+            }
+            case FLOATING_POINT_LITERAL -> {
+                next();
+                yield new NumberNode(Double.valueOf(token.text()));
+            }
+            case STRING_LITERAL -> {
+                next();
+                String text = token.text().translateEscapes();
+                yield new StringNode(text.substring(1, text.length() - 1));
+            }
+            case LBRACK -> {
+                next();
+                if (peek().type() == TokenType.RBRACK) {
+                    next();
+                    yield new ListNode(Collections.emptyList());
+                }
+                var values = expressionList();
+                expect(TokenType.RBRACK);
+                yield new ListNode(values);
+            }
+            case LCURL -> setOrMap();
+            default -> throw unexpected(token);
+        };
+    }
+
+    private Node setOrMap() {
+        next();
+        if (peek().type() == TokenType.RCURL) {
+            next();
+            return new SetNode(Collections.emptyList());
+        }
+        var first = expression(0);
+        if (peek().type() != TokenType.COLON) {
+            var values = new ArrayList<Node>();
+            values.add(first);
+            while (peek().type() == TokenType.COMMA) {
+                next();
+                values.add(expression(0));
+            }
+            expect(TokenType.RCURL);
+            return new SetNode(List.copyOf(values));
+        }
+        var keys = new ArrayList<Node>();
+        var values = new ArrayList<Node>();
+        keys.add(first);
+        expect(TokenType.COLON);
+        values.add(expression(0));
+        while (peek().type() == TokenType.COMMA) {
+            next();
+            keys.add(expression(0));
+            expect(TokenType.COLON);
+            values.add(expression(0));
+        }
+        expect(TokenType.RCURL);
+        return new MapNode(List.copyOf(keys), List.copyOf(values));
+    }
+
+    private Node qualifiedFunction() {
+        var function = expect(TokenType.QUALIFIED_FUNCTION);
+        return new CallExpressionNode(new IdentifierNode(function.text()), arguments());
+    }
+
+    private List<Node> arguments() {
+        expect(TokenType.LPAREN);
+        if (peek().type() == TokenType.RPAREN) {
+            next();
+            return List.of();
+        }
+        var arguments = expressionList();
+        expect(TokenType.RPAREN);
+        return arguments;
+    }
+
+    private List<Node> expressionList() {
+        var values = new ArrayList<Node>();
+        values.add(expression(0));
+        while (peek().type() == TokenType.COMMA) {
+            next();
+            values.add(expression(0));
+        }
+        return List.copyOf(values);
+    }
+
+    private boolean isLambdaParameters() {
+        int lookahead = index + 1;
+        if (tokens.get(lookahead).type() != TokenType.RPAREN) {
+            while (true) {
+                if (tokens.get(lookahead++).type() != TokenType.IDENTIFIER)
+                    return false;
+                if (tokens.get(lookahead).type() != TokenType.COMMA)
+                    break;
+                lookahead++;
+            }
+            if (tokens.get(lookahead).type() != TokenType.RPAREN)
+                return false;
+        }
+        return tokens.get(lookahead + 1).type() == TokenType.ARROW;
+    }
+
+    private List<String> lambdaParameters() {
+        expect(TokenType.LPAREN);
+        var parameters = new ArrayList<String>();
+        if (peek().type() != TokenType.RPAREN) {
+            parameters.add(expect(TokenType.IDENTIFIER).text());
+            while (peek().type() == TokenType.COMMA) {
+                next();
+                parameters.add(expect(TokenType.IDENTIFIER).text());
+            }
+        }
+        expect(TokenType.RPAREN);
+        return List.copyOf(parameters);
+    }
+
+    private Token peek() {
+        return tokens.get(index);
+    }
+
+    private Token next() {
+        return tokens.get(index++);
+    }
+
+    private Token expect(TokenType type) {
+        var token = peek();
+        if (token.type() != type)
+            throw new ELException("Expected %s but found '%s' at position %d".formatted(type, token.text(), token.position()));
+        return next();
+    }
+
+    private static ELException unexpected(Token token) {
+        return new ELException("Unexpected '%s' at position %d".formatted(token.text(), token.position()));
+    }
+}
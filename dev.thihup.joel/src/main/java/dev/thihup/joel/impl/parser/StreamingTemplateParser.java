@@ -0,0 +1,95 @@
+package dev.thihup.joel.impl.parser;
+
+import dev.thihup.joel.impl.node.Node;
+import jakarta.el.ELException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Parses a template read from a {@link Reader}, building its tree segment by segment.
+ * <p>
+ * Only the text that is not parsed yet is kept in memory: a literal run or an expression segment is read until it is
+ * complete, turned into its node and dropped from the buffer. An expression segment is read up to its closing brace,
+ * found by the {@link ExpressionLexer}, before it is parsed, so a parse failure is always a syntax error. More input is
+ * only read when the lexer fails for lack of it.
+ */
+final class StreamingTemplateParser {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Reader reader;
+    private final TemplateScanner.SegmentParser segmentParser;
+    private final StringBuilder buffer = new StringBuilder();
+    private char[] chunk = new char[CHUNK_SIZE];
+    private boolean eof;
+
+    StreamingTemplateParser(Reader reader, TemplateScanner.SegmentParser segmentParser) {
+        this.reader = reader;
+        this.segmentParser = segmentParser;
+    }
+
+    Node parse() throws IOException {
+        var composite = new TemplateScanner.Composite();
+        int position = 0;
+        while (true) {
+            if (buffer.length() - position < 2)
+                fill(position);
+            if (position >= buffer.length())
+                return composite.build();
+            if (TemplateScanner.isExpressionStart(buffer, position)) {
+                var segment = segment(position);
+                composite.add(segment.node());
+                position = segment.end();
+            } else {
+                int end = TemplateScanner.literalEnd(buffer, position);
+                // the run may go on in the next chunk while it reaches the last character read
+                while (!eof && end >= buffer.length() - 1) {
+                    fill(position);
+                    end = TemplateScanner.literalEnd(buffer, position);
+                }
+                composite.add(TemplateScanner.literal(buffer, position, end));
+                position = end;
+            }
+            if (position >= CHUNK_SIZE && position >= buffer.length() / 2) {
+                buffer.delete(0, position);
+                position = 0;
+            }
+        }
+    }
+
+    private TemplateScanner.Segment segment(int start) throws IOException {
+        while (!eof) {
+            var lexer = new ExpressionLexer(buffer, start + 2);
+            try {
+                lexer.skip();
+                break;
+            } catch (ELException invalid) {
+                // a lexical error that more input cannot fix is left for the parser to report
+                if (!lexer.truncated())
+                    break;
+            }
+            fill(start);
+        }
+        return segmentParser.parse(buffer, start);
+    }
+
+    /**
+     * Reads at least as many characters as are pending after {@code position}, so that rescanning a growing segment
+     * stays linear overall.
+     */
+    private void fill(int position) throws IOException {
+        int wanted = Math.max(CHUNK_SIZE, buffer.length() - position);
+        if (chunk.length < wanted)
+            chunk = new char[wanted];
+        int total = 0;
+        while (total < wanted) {
+            int read = reader.read(chunk, total, wanted - total);
+            if (read < 0) {
+                eof = true;
+                break;
+            }
+            total += read;
+        }
+        buffer.append(chunk, 0, total);
+    }
+}
@@ -0,0 +1,236 @@
+package dev.thihup.joel.impl.parser;
+
+import dev.thihup.joel.impl.node.CompositeNode;
+import dev.thihup.joel.impl.node.DeferredExpressionNode;
+import dev.thihup.joel.impl.node.DynamicExpressionNode;
+import dev.thihup.joel.impl.node.LazySegmentNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.StringNode;
+import jakarta.el.ELException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Splits the literal text of a composite expression the same way the {@code LITERAL_EXPRESSION} lexer rule does.
+ * <p>
+ * A literal token runs until a {@code $} or {@code #} that is neither escaped by a preceding backslash nor followed by
+ * an ordinary character; a {@code $} or {@code #} that cannot start a token of its own is a token by itself. Literal
+ * text only costs a scan for the next delimiter and never reaches an expression parser, which only sees the
+ * {@code ${...}} and {@code #{...}} segments.
+ */
+public final class TemplateScanner {
+    private TemplateScanner() {
+    }
+
+    /**
+     * Tree of a single {@code ${...}} or {@code #{...}} segment, wrapped in its {@link DynamicExpressionNode} or
+     * {@link DeferredExpressionNode}, and the index right after its closing brace.
+     */
+    public record Segment(Node node, int end) {
+    }
+
+    @FunctionalInterface
+    public interface SegmentParser {
+        /**
+         * Parses the expression segment of {@code text} whose {@code $} or {@code #} is at {@code start}.
+         */
+        Segment parse(CharSequence text, int start);
+    }
+
+    /**
+     * Builds the tree of {@code template}, delegating its expression segments to {@code segmentParser}. A single segment
+     * is unwrapped, several are concatenated.
+     */
+    public static Node parse(CharSequence template, SegmentParser segmentParser) {
+        if (nextDelimiter(template, 0) == template.length())
+            return new StringNode(template.toString());
+        var composite = new Composite();
+        int position = 0;
+        while (position < template.length()) {
+            if (isExpressionStart(template, position)) {
+                var segment = segmentParser.parse(template, position);
+                composite.add(segment.node());
+                position = segment.end();
+            } else {
+                int end = literalEnd(template, position);
+                composite.add(literal(template, position, end));
+                position = end;
+            }
+        }
+        return composite.build();
+    }
+
+    /**
+     * Builds the tree of {@code template} like {@link #parse(CharSequence, SegmentParser)}, except that the segments of a
+     * composite are only delimited and become {@link LazySegmentNode}s, parsed by {@code segmentParser} on their first
+     * evaluation.
+     */
+    public static Node parseLazily(CharSequence template, SegmentParser segmentParser) {
+        if (nextDelimiter(template, 0) == template.length())
+            return new StringNode(template.toString());
+        Function<String, Node> parser = source -> parseSegment(source, segmentParser);
+        var composite = new Composite();
+        int position = 0;
+        while (position < template.length()) {
+            if (isExpressionStart(template, position)) {
+                int end = new ExpressionLexer(template, position + 2).skip();
+                composite.add(new LazySegmentNode(template.subSequence(position, end).toString(), parser));
+                position = end;
+            } else {
+                int end = literalEnd(template, position);
+                composite.add(literal(template, position, end));
+                position = end;
+            }
+        }
+        return composite.build();
+    }
+
+    private static Node parseSegment(String source, SegmentParser segmentParser) {
+        var segment = segmentParser.parse(source, 0);
+        if (segment.end() != source.length())
+            throw new ELException("Unexpected text after expression: " + source.substring(segment.end()));
+        return segment.node();
+    }
+
+    static StringNode literal(CharSequence template, int start, int end) {
+        return new StringNode(unescape(template.subSequence(start, end).toString()));
+    }
+
+    /**
+     * Accumulates the segments of a template in order.
+     */
+    static final class Composite {
+        private final List<Node> segments = new ArrayList<>();
+        private boolean dynamic;
+        private boolean deferred;
+
+        void add(Node segment) {
+            segments.add(segment);
+            dynamic |= segment instanceof DynamicExpressionNode;
+            deferred |= segment instanceof DeferredExpressionNode;
+            if (segment instanceof LazySegmentNode lazySegment) {
+                dynamic |= !lazySegment.deferred();
+                deferred |= lazySegment.deferred();
+            }
+        }
+
+        Node build() {
+            if (segments.isEmpty())
+                return new StringNode("");
+            if (segments.size() == 1) {
+                var node = segments.get(0);
+                if (node instanceof LazySegmentNode lazySegment)
+                    node = lazySegment.node();
+                if (node instanceof DynamicExpressionNode dynamicExpression)
+                    return dynamicExpression.node();
+                if (node instanceof DeferredExpressionNode deferredExpression)
+                    return deferredExpression.node();
+                return node;
+            }
+            if (dynamic && deferred)
+                throw new ELException("Cannot mix dynamic expressions with deferred expression");
+            return new CompositeNode(List.copyOf(segments));
+        }
+    }
+
+    /**
+     * Returns a template that {@link #parse(CharSequence, SegmentParser)} turns back into {@code node}, the root of a
+     * template. Literal text is written so that it is scanned back into the same segments, escaped when it starts like
+     * an expression; text that cannot, which only a pass rewriting the tree may produce, becomes a string literal
+     * expression with the same value.
+     */
+    public static String source(Node node) {
+        if (node instanceof StringNode literal)
+            return source(List.of(literal));
+        if (node instanceof CompositeNode compositeNode)
+            return source(compositeNode.segments());
+        return "${" + node.prettyPrint() + "}";
+    }
+
+    private static String source(List<Node> segments) {
+        boolean deferred = segments.stream().anyMatch(segment -> segment instanceof DeferredExpressionNode
+                || segment instanceof LazySegmentNode lazySegment && lazySegment.deferred());
+        var sources = new String[segments.size()];
+        // the first characters of the template after the segment, which decide where the scanner ends a literal
+        var following = "";
+        for (int i = sources.length - 1; i >= 0; i--) {
+            var segment = segments.get(i);
+            String source;
+            if (segment instanceof StringNode literal)
+                source = literalSource(literal.value(), following, deferred);
+            else if (segment instanceof LazySegmentNode lazySegment)
+                source = lazySegment.source();
+            else if (segment instanceof DynamicExpressionNode || segment instanceof DeferredExpressionNode)
+                source = segment.prettyPrint();
+            else
+                source = (deferred ? "#{" : "${") + segment.prettyPrint() + "}";
+            sources[i] = source;
+            following = (source + following).substring(0, Math.min(2, source.length() + following.length()));
+        }
+        return String.join("", sources);
+    }
+
+    private static String literalSource(String value, String following, boolean deferred) {
+        if (value.isEmpty() || scansTo(value, value, following))
+            return value;
+        if (scansTo("\\" + value, value, following))
+            return "\\" + value;
+        return (deferred ? "#{" : "${") + new StringNode(value).prettyPrint() + "}";
+    }
+
+    /**
+     * Whether {@code source}, followed by {@code following}, is scanned as a single literal of value {@code value}.
+     */
+    private static boolean scansTo(String source, String value, String following) {
+        var text = source + following;
+        return !isExpressionStart(text, 0) && literalEnd(text, 0) == source.length() && unescape(source).equals(value);
+    }
+
+    public static boolean isExpressionStart(CharSequence text, int index) {
+        char current = text.charAt(index);
+        return (current == '$' || current == '#') && index + 1 < text.length() && text.charAt(index + 1) == '{';
+    }
+
+    public static int literalEnd(CharSequence text, int start) {
+        int length = text.length();
+        int index = start;
+        while (true) {
+            int delimiter = nextDelimiter(text, index);
+            if (delimiter >= length)
+                return length;
+            if (delimiter > start && text.charAt(delimiter - 1) == '\\') {
+                index = delimiter + 1;
+                continue;
+            }
+            if (delimiter + 1 < length && isOrdinary(text.charAt(delimiter + 1))) {
+                index = delimiter + 2;
+                continue;
+            }
+            return delimiter == start ? start + 1 : delimiter;
+        }
+    }
+
+    private static int nextDelimiter(CharSequence text, int start) {
+        int length = text.length();
+        int index = start;
+        while (index < length && !isDelimiter(text.charAt(index)))
+            index++;
+        return index;
+    }
+
+    public static String unescape(String literal) {
+        if (literal.startsWith("\\#") || literal.startsWith("\\$"))
+            return literal.substring(1);
+        return literal;
+    }
+
+    private static boolean isDelimiter(char value) {
+        return value == '$' || value == '#';
+    }
+
+    private static boolean isOrdinary(char value) {
+        return value != '{' && value != '$' && value != '#' && value != '\\';
+    }
+}
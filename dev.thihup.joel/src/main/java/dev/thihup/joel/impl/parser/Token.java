@@ -0,0 +1,4 @@
+package dev.thihup.joel.impl.parser;
+
+record Token(TokenType type, String text, int position) {
+}
@@ -0,0 +1,44 @@
+package dev.thihup.joel.impl.parser;
+
+enum TokenType {
+    BOOL_LITERAL,
+    NULL,
+    DOT,
+    LPAREN,
+    RPAREN,
+    LBRACK,
+    RBRACK,
+    LCURL,
+    RCURL,
+    COLON,
+    COMMA,
+    SEMICOLON,
+    GT,
+    LT,
+    GE,
+    LE,
+    EQ,
+    NE,
+    NOT,
+    AND,
+    OR,
+    EMPTY,
+    INSTANCEOF,
+    MULT,
+    PLUS,
+    MINUS,
+    QUESTIONMARK,
+    DIV,
+    MOD,
+    CONCAT,
+    ASSIGN,
+    ARROW,
+    DOLLAR,
+    HASH,
+    QUALIFIED_FUNCTION,
+    INTEGER_LITERAL,
+    FLOATING_POINT_LITERAL,
+    STRING_LITERAL,
+    IDENTIFIER,
+    END
+}
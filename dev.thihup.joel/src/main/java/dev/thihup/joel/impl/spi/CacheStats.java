@@ -0,0 +1,23 @@
+package dev.thihup.joel.impl.spi;
+
+/**
+ * Snapshot of the parse cache counters of a {@link JoelExpressionFactory}.
+ *
+ * @param hitCount         lookups that found an already parsed expression
+ * @param missCount        lookups that had to parse the expression or load its precompiled tree
+ * @param evictionCount    entries removed to keep the cache within its bounds
+ * @param size             entries currently cached
+ * @param weight           total number of nodes currently cached
+ * @param precompiledCount misses served by a tree precompiled at build time instead of parsing the expression
+ */
+public record CacheStats(long hitCount, long missCount, long evictionCount, long size, long weight, long precompiledCount) {
+
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    public double hitRate() {
+        long requestCount = requestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.thihup.joel.impl.spi;
+
+/**
+ * Snapshot of the compilation counters of a {@link JoelExpressionFactory}.
+ *
+ * @param promotedCount    expressions whose compiled form was installed
+ * @param failedCount      compilations that did not produce a compiled form, leaving the expression interpreted
+ * @param pendingCount     expressions submitted for compilation and not compiled yet
+ * @param totalCompileTime nanoseconds spent compiling, over all compilations
+ * @param maxCompileTime   nanoseconds spent on the longest compilation
+ */
+public record CompilerStats(long promotedCount, long failedCount, long pendingCount, long totalCompileTime, long maxCompileTime) {
+
+    public long compileCount() {
+        return promotedCount + failedCount;
+    }
+
+    public double averageCompileTime() {
+        long compileCount = compileCount();
+        return compileCount == 0 ? 0.0 : (double) totalCompileTime / compileCount;
+    }
+}
@@ -5,11 +5,29 @@ import dev.thihup.joel.impl.TypeConverter;
 import dev.thihup.joel.impl.node.ObjectNode;
 import dev.thihup.joel.impl.JoelMethodExpression;
 import dev.thihup.joel.impl.StreamELResolver;
-import dev.thihup.joel.impl.antlr.JoelExpressionParser;
+import dev.thihup.joel.impl.cache.ContentKey;
+import dev.thihup.joel.impl.compiler.BytecodeCompiler;
+import dev.thihup.joel.impl.compiler.ExpressionCompiler;
+import dev.thihup.joel.impl.compiler.MethodHandleCompiler;
+import dev.thihup.joel.impl.compiler.TieredCompiler;
+import dev.thihup.joel.impl.cache.ExpressionStore;
+import dev.thihup.joel.impl.cache.NodeTable;
+import dev.thihup.joel.impl.cache.ParseCache;
+import dev.thihup.joel.impl.cache.PrecompiledExpressions;
 import dev.thihup.joel.impl.node.CallExpressionNode;
+import dev.thihup.joel.impl.node.CompiledNode;
+import dev.thihup.joel.impl.node.FlatNode;
 import dev.thihup.joel.impl.node.IdentifierNode;
 import dev.thihup.joel.impl.node.MemberNode;
+import dev.thihup.joel.impl.node.Node;
+import dev.thihup.joel.impl.node.RegisterNode;
 import dev.thihup.joel.impl.node.StringNode;
+import dev.thihup.joel.impl.optimizer.CommonSubexpressions;
+import dev.thihup.joel.impl.optimizer.ConstantFolder;
+import dev.thihup.joel.impl.optimizer.PartialEvaluator;
+import dev.thihup.joel.impl.optimizer.TypeFeedback;
+import dev.thihup.joel.impl.optimizer.TypeInference;
+import dev.thihup.joel.impl.parser.ExpressionParser;
 import jakarta.el.ELContext;
 import jakarta.el.ELException;
 import jakarta.el.ELResolver;
@@ -17,11 +35,292 @@ import jakarta.el.ExpressionFactory;
 import jakarta.el.MethodExpression;
 import jakarta.el.ValueExpression;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 public final class JoelExpressionFactory extends ExpressionFactory {
 
+    /**
+     * Maximum number of parsed expressions kept by the factory. Defaults to 10000.
+     */
+    public static final String CACHE_SIZE = "dev.thihup.joel.cacheSize";
+
+    /**
+     * Maximum total number of nodes of the parsed expressions kept by the factory. Unbounded by default.
+     */
+    public static final String CACHE_WEIGHT = "dev.thihup.joel.cacheWeight";
+
+    /**
+     * Front end used to parse expressions, either {@code antlr} or {@code pratt}. Defaults to {@code antlr}.
+     */
+    public static final String PARSER = "dev.thihup.joel.parser";
+
+    /**
+     * File where parsed expressions are persisted across restarts and shared between processes. Disabled by default.
+     */
+    public static final String CACHE_FILE = "dev.thihup.joel.cacheFile";
+
+    /**
+     * Whether structurally equal subtrees of parsed expressions share a single instance, see {@link NodeTable}.
+     * Subtrees are only shared between the expressions of one factory, since they carry its inline caches and static
+     * bindings. Defaults to {@code true}.
+     */
+    public static final String SHARE_NODES = "dev.thihup.joel.shareNodes";
+
+    /**
+     * Whether parsed expressions are lowered to the compact {@link FlatNode} encoding, which trades a little evaluation
+     * speed for a much smaller footprint in very large caches. Defaults to {@code false}.
+     */
+    public static final String FLAT_TREES = "dev.thihup.joel.flatTrees";
+
+    /**
+     * Whether the segments of composite expressions are only parsed the first time they are evaluated, which makes large
+     * templates with rarely evaluated segments cheap to create. A segment that does not parse then fails when it is
+     * evaluated rather than when the expression is created. Defaults to {@code false}.
+     */
+    public static final String LAZY_TEMPLATES = "dev.thihup.joel.lazyTemplates";
+
+    /**
+     * Whether parsed expressions go through the {@link ConstantFolder}, which evaluates their literal-only subtrees once
+     * and prunes branches with a literal condition. Defaults to {@code true}.
+     */
+    public static final String FOLD_CONSTANTS = "dev.thihup.joel.foldConstants";
+
+    /**
+     * Whether arithmetic and comparisons with an operand inferred to be a {@code Long} are specialized, see
+     * {@link TypeInference}. Ignored with {@link #FLAT_TREES}, which has its own evaluation loop. Defaults to
+     * {@code true}.
+     */
+    public static final String SPECIALIZE_OPERATORS = "dev.thihup.joel.specializeOperators";
+
+    /**
+     * Whether the property paths an expression reads more than once are only read once per evaluation, see
+     * {@link CommonSubexpressions}. Ignored with {@link #FLAT_TREES}. Defaults to {@code false}.
+     */
+    public static final String ELIMINATE_COMMON_SUBEXPRESSIONS = "dev.thihup.joel.eliminateCommonSubexpressions";
+
+    /**
+     * Number of pairs of operand classes a generic arithmetic or comparison specializes itself to as it is evaluated,
+     * of bean classes a property read caches the getter of, and of receiver and argument classes a method call caches
+     * the linked method of, see {@link TypeFeedback}; an operator, read or call that sees more stays generic. Cached
+     * reads and calls only go around resolvers known to handle beans like the {@link jakarta.el.BeanELResolver}: the
+     * plain {@code BeanELResolver} and the standard resolvers of a {@link jakarta.el.StandardELContext} or
+     * {@link jakarta.el.ELProcessor} without custom resolvers. Ignored with {@link #FLAT_TREES}. Defaults to 0, which
+     * leaves operators, reads and calls generic.
+     */
+    public static final String POLYMORPHISM_LIMIT = "dev.thihup.joel.polymorphismLimit";
+
+    /**
+     * Whether parsed expressions are lowered to a program for the {@link RegisterNode} register machine, which evaluates
+     * them in a single loop instead of walking the tree. Ignored with {@link #FLAT_TREES} and with a {@link #COMPILER}.
+     * Defaults to {@code false}.
+     */
+    public static final String REGISTER_MACHINE = "dev.thihup.joel.registerMachine";
+
+    /**
+     * Back end that compiles parsed expressions, {@code bytecode} for the {@link BytecodeCompiler} or
+     * {@code method_handles} for the {@link MethodHandleCompiler}. Expressions are interpreted by default, and when the
+     * name is unknown.
+     */
+    public static final String COMPILER = "dev.thihup.joel.compiler";
+
+    /**
+     * Number of evaluations after which an expression is compiled by the {@link #COMPILER}, on a background thread,
+     * see {@link TieredCompiler}. Defaults to 0, which compiles expressions when they are parsed.
+     */
+    public static final String COMPILE_THRESHOLD = "dev.thihup.joel.compileThreshold";
+
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
+    private static final System.Logger LOGGER = System.getLogger(JoelExpressionFactory.class.getName());
+
+    private final ParseCache<Object> parseCache;
+    private final ExpressionParser expressionParser;
+    private final Function<CharSequence, Node> frontEnd;
+    private final UnaryOperator<Node> cachedForm;
+    private final TieredCompiler compiler;
+    private final Function<String, Node> parser;
+    private final LongAdder precompiledCount = new LongAdder();
+    private final NodeTable nodes = new NodeTable();
+
     public JoelExpressionFactory() {
+        this(new Properties());
+    }
+
+    public JoelExpressionFactory(Properties properties) {
+        this.parseCache = new ParseCache<>(
+                longProperty(properties, CACHE_SIZE, DEFAULT_CACHE_SIZE),
+                longProperty(properties, CACHE_WEIGHT, Long.MAX_VALUE));
+        this.expressionParser = ExpressionParser.of(properties.getProperty(PARSER), ExpressionParser.ANTLR);
+        UnaryOperator<Node> folding = Boolean.parseBoolean(properties.getProperty(FOLD_CONSTANTS, "true").strip())
+                ? ConstantFolder::fold
+                : UnaryOperator.identity();
+        UnaryOperator<Node> sharing = Boolean.parseBoolean(properties.getProperty(SHARE_NODES, "true").strip())
+                ? node -> nodes.intern(folding.apply(node))
+                : folding;
+        UnaryOperator<Node> eliminating = Boolean.parseBoolean(properties.getProperty(ELIMINATE_COMMON_SUBEXPRESSIONS, "false").strip())
+                ? node -> CommonSubexpressions.eliminate(sharing.apply(node))
+                : sharing;
+        UnaryOperator<Node> inferring = Boolean.parseBoolean(properties.getProperty(SPECIALIZE_OPERATORS, "true").strip())
+                ? node -> TypeInference.specialize(eliminating.apply(node))
+                : eliminating;
+        int polymorphismLimit = (int) Math.min(longProperty(properties, POLYMORPHISM_LIMIT, 0), Integer.MAX_VALUE);
+        UnaryOperator<Node> optimizing;
+        if (Boolean.parseBoolean(properties.getProperty(FLAT_TREES, "false").strip()))
+            optimizing = node -> FlatNode.lower(sharing.apply(node));
+        else if (polymorphismLimit > 0)
+            optimizing = node -> TypeFeedback.install(inferring.apply(node), polymorphismLimit);
+        else
+            optimizing = inferring;
+        UnaryOperator<Node> lowering = Boolean.parseBoolean(properties.getProperty(REGISTER_MACHINE, "false").strip())
+                ? node -> RegisterNode.lower(optimizing.apply(node))
+                : optimizing;
+        var expressionCompiler = ExpressionCompiler.of(properties.getProperty(COMPILER));
+        this.compiler = expressionCompiler == null ? null : new TieredCompiler(expressionCompiler,
+                (int) Math.min(longProperty(properties, COMPILE_THRESHOLD, 0), Integer.MAX_VALUE));
+        this.cachedForm = compiler == null ? lowering : node -> compiler.prepare(optimizing.apply(node));
+        this.frontEnd = Boolean.parseBoolean(properties.getProperty(LAZY_TEMPLATES, "false").strip())
+                ? expressionParser::parseLazily
+                : expressionParser::parse;
+        var store = openStore(properties.getProperty(CACHE_FILE));
+        Function<String, Node> runtimeParser = store == null
+                ? frontEnd::apply
+                : expression -> store.get(expression, frontEnd::apply);
+        var precompiled = PrecompiledExpressions.load(classLoader());
+        this.parser = precompiled.size() == 0
+                ? expression -> cachedForm.apply(runtimeParser.apply(expression))
+                : expression -> {
+                    var node = precompiled.get(expression);
+                    if (node == null)
+                        return cachedForm.apply(runtimeParser.apply(expression));
+                    precompiledCount.increment();
+                    return cachedForm.apply(node);
+                };
+    }
+
+    private static ClassLoader classLoader() {
+        var contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return contextClassLoader != null ? contextClassLoader : JoelExpressionFactory.class.getClassLoader();
+    }
+
+    private static ExpressionStore openStore(String file) {
+        if (file == null || file.isBlank())
+            return null;
+        try {
+            return ExpressionStore.open(Path.of(file.strip()));
+        } catch (IOException | InvalidPathException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Ignoring expression store " + file, e);
+            return null;
+        }
+    }
+
+    private static long longProperty(Properties properties, String name, long defaultValue) {
+        var value = properties.getProperty(name);
+        if (value == null)
+            return defaultValue;
+        try {
+            long parsed = Long.parseLong(value.strip());
+            return parsed < 0 ? defaultValue : parsed;
+        } catch (NumberFormatException invalidValue) {
+            return defaultValue;
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        return parseCache.stats(precompiledCount.sum());
+    }
+
+    /**
+     * Returns the compilation counters, all zero when expressions are interpreted.
+     */
+    public CompilerStats getCompilerStats() {
+        return compiler != null ? compiler.stats() : new CompilerStats(0, 0, 0, 0, 0);
+    }
+
+    private Node parse(String expression) {
+        return parseCache.get(expression, key -> parser.apply(expression));
+    }
+
+    /**
+     * Creates a value expression from a large template without keeping its text: the parse cache is keyed by a hash of
+     * the content and its length. The template is hashed first and only parsed on a cache miss.
+     */
+    public ValueExpression createTemplateExpression(ELContext context, CharSequence template, Class<?> expectedType) {
+        Objects.requireNonNull(expectedType);
+        var node = parseCache.get(ContentKey.of(template), key -> cachedForm.apply(frontEnd.apply(template)));
+        return JoelValueExpression.newInstance(null, node, expectedType);
+    }
+
+    /**
+     * Creates a value expression from a template read from {@code reader}, which is not closed. The template is parsed
+     * incrementally as it is read, without holding all of it in memory, and hashed in the same pass: its tree is then
+     * looked up in the parse cache by that hash like {@link #createTemplateExpression(ELContext, CharSequence, Class)},
+     * so templates read again share the tree cached first. A streamed template is parsed eagerly even when
+     * {@link #LAZY_TEMPLATES} is set, since its text is not kept for its segments.
+     */
+    public ValueExpression createTemplateExpression(ELContext context, Reader reader, Class<?> expectedType) {
+        Objects.requireNonNull(expectedType);
+        Node node;
+        try {
+            if (parseCache.isDisabled()) {
+                node = cachedForm.apply(expressionParser.parse(reader));
+            } else {
+                var hashingReader = new ContentKey.HashingReader(reader);
+                var parsed = expressionParser.parse(hashingReader);
+                node = parseCache.get(hashingReader.key(), key -> cachedForm.apply(parsed));
+            }
+        } catch (IOException e) {
+            throw new ELException(e);
+        }
+        return JoelValueExpression.newInstance(null, node, expectedType);
+    }
+
+    /**
+     * Parses {@code expressions} in parallel on the common fork-join pool, so that the parse cache is populated before
+     * traffic arrives, then evaluates each of them {@code evaluations} times against a stub context whose top-level
+     * identifiers resolve to {@code null}, letting the JIT compile the evaluation paths. The stub context resolves no
+     * bean, static member or function, so dry evaluations never call into the application. Expressions that do not
+     * parse are logged and skipped, evaluation failures are ignored.
+     *
+     * @return the number of distinct expressions parsed
+     */
+    public int warmUp(Collection<String> expressions, int evaluations) {
+        return new WarmUp(this, evaluations).run(expressions);
+    }
+
+    /**
+     * Warms up the expressions listed one per line in every {@code manifest} resource visible to the context class
+     * loader, see {@link #warmUp(Collection, int)}.
+     */
+    public int warmUp(String manifest, int evaluations) {
+        return warmUp(WarmUp.readManifests(classLoader(), manifest), evaluations);
+    }
+
+    /**
+     * Returns a residual of {@code expression} in which the identifiers named in {@code bindings} are bound to their
+     * values, which take precedence over {@code context}, and the property reads, operators and conditionals that only
+     * depend on them are evaluated in {@code context} and pruned, see {@link PartialEvaluator}. Values read once that
+     * way are assumed not to change for as long as the residual is used; it is meant to be kept, for instance per
+     * tenant, and evaluated in the contexts that provide the remaining identifiers. The residual is not cached by this
+     * factory, and is only serializable when the values it holds are.
+     */
+    public ValueExpression specialize(ELContext context, ValueExpression expression, Map<String, ?> bindings) {
+        Objects.requireNonNull(bindings);
+        if (!(expression instanceof JoelValueExpression joelExpression))
+            throw new IllegalArgumentException("Not an expression of this factory: " + expression);
+        if (joelExpression.node() instanceof ObjectNode)
+            return expression;
+        var residual = PartialEvaluator.specialize(joelExpression.node(), bindings, context);
+        return JoelValueExpression.newInstance(expression.getExpressionString(), cachedForm.apply(residual),
+                expression.getExpectedType());
     }
 
     @Override
@@ -36,7 +335,9 @@ public final class JoelExpressionFactory extends ExpressionFactory {
     @Override
     public MethodExpression createMethodExpression(ELContext context, String expression, Class<?> expectedReturnType, Class<?>[] expectedParamTypes) {
         Objects.requireNonNull(expectedParamTypes);
-        var parse = JoelExpressionParser.parse(expression);
+        var parse = parse(expression);
+        if (parse instanceof CompiledNode compiledNode)
+            parse = compiledNode.node();
         if (!(parse instanceof StringNode) && !(parse instanceof MemberNode) && !(parse instanceof IdentifierNode) && !(parse instanceof CallExpressionNode))
             throw new ELException("Invalid method expression: " + expression);
         return JoelMethodExpression.newInstance(expression, parse, expectedReturnType, expectedParamTypes);
@@ -45,7 +346,7 @@ public final class JoelExpressionFactory extends ExpressionFactory {
     @Override
     public ValueExpression createValueExpression(ELContext context, String expression, Class<?> expectedType) {
         Objects.requireNonNull(expectedType);
-        var parseResult = JoelExpressionParser.parse(expression);
+        var parseResult = parse(expression);
         return JoelValueExpression.newInstance(expression, parseResult, expectedType);
     }
 
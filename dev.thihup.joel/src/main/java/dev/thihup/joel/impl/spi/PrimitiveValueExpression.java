@@ -0,0 +1,27 @@
+package dev.thihup.joel.impl.spi;
+
+import jakarta.el.ELContext;
+
+/**
+ * Value expression that can be evaluated to a primitive, implemented by the value expressions of a
+ * {@link JoelExpressionFactory}. The result is the value of the expression coerced to the primitive, but the
+ * arithmetic, comparisons and logical operators the expression is made of do not box their intermediate results when
+ * their operands are integers and booleans.
+ */
+public interface PrimitiveValueExpression {
+
+    /**
+     * Evaluates the expression coerced to a {@code long}.
+     */
+    long getLong(ELContext context);
+
+    /**
+     * Evaluates the expression coerced to a {@code double}.
+     */
+    double getDouble(ELContext context);
+
+    /**
+     * Evaluates the expression coerced to a {@code boolean}.
+     */
+    boolean getBoolean(ELContext context);
+}
@@ -0,0 +1,157 @@
+package dev.thihup.joel.impl.spi;
+
+import jakarta.el.ELContext;
+import jakarta.el.ELException;
+import jakarta.el.ELResolver;
+import jakarta.el.FunctionMapper;
+import jakarta.el.ValueExpression;
+import jakarta.el.VariableMapper;
+
+import java.beans.FeatureDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Parses and optionally evaluates expressions ahead of traffic, see {@link JoelExpressionFactory#warmUp}.
+ */
+final class WarmUp {
+    private static final System.Logger LOGGER = System.getLogger(WarmUp.class.getName());
+
+    private final JoelExpressionFactory factory;
+    private final int evaluations;
+
+    WarmUp(JoelExpressionFactory factory, int evaluations) {
+        if (evaluations < 0)
+            throw new IllegalArgumentException("Negative number of evaluations: " + evaluations);
+        this.factory = factory;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * Reads every {@code resource} visible to {@code classLoader}, one expression per non-blank line.
+     */
+    static List<String> readManifests(ClassLoader classLoader, String resource) {
+        var expressions = new ArrayList<String>();
+        try {
+            var manifests = classLoader.getResources(resource);
+            while (manifests.hasMoreElements())
+                readManifest(manifests.nextElement(), expressions);
+        } catch (IOException e) {
+            throw new ELException("Cannot read " + resource, e);
+        }
+        return expressions;
+    }
+
+    private static void readManifest(URL manifest, List<String> expressions) throws IOException {
+        try (var reader = new BufferedReader(new InputStreamReader(manifest.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank())
+                    expressions.add(line);
+            }
+        }
+    }
+
+    /**
+     * Warms up {@code expressions} on the common fork-join pool and returns how many of them parsed.
+     */
+    int run(Collection<String> expressions) {
+        var distinct = expressions.stream().distinct().toList();
+        int parsed = (int) distinct.parallelStream()
+                .filter(this::warmUp)
+                .count();
+        if (parsed < distinct.size())
+            LOGGER.log(System.Logger.Level.WARNING, "{0} of {1} warm-up expressions do not parse", distinct.size() - parsed, distinct.size());
+        return parsed;
+    }
+
+    private boolean warmUp(String expression) {
+        ValueExpression valueExpression;
+        try {
+            valueExpression = factory.createValueExpression(null, expression, Object.class);
+        } catch (RuntimeException invalidExpression) {
+            // the parsers also fail with other exceptions than ELException on some invalid input
+            LOGGER.log(System.Logger.Level.DEBUG, "Cannot parse warm-up expression " + expression, invalidExpression);
+            return false;
+        }
+        if (evaluations > 0) {
+            var context = new StubContext();
+            for (int i = 0; i < evaluations; i++) {
+                try {
+                    valueExpression.getValue(context);
+                } catch (RuntimeException ignored) {
+                    // the stub context cannot satisfy every expression, the paths taken so far are warm anyway
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Context whose only resolver is a {@link StubResolver}, without functions or variables. Dry evaluations therefore
+     * never reach a bean, a static member or a function of the application, so warming up an expression such as
+     * {@code ${System.exit(0)}} cannot run it.
+     */
+    private static final class StubContext extends ELContext {
+        private final ELResolver resolver = new StubResolver();
+
+        @Override
+        public ELResolver getELResolver() {
+            return resolver;
+        }
+
+        @Override
+        public FunctionMapper getFunctionMapper() {
+            return null;
+        }
+
+        @Override
+        public VariableMapper getVariableMapper() {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves every top-level identifier to {@code null}, so that dry evaluations go past them, and nothing else.
+     */
+    private static final class StubResolver extends ELResolver {
+        @Override
+        public Object getValue(ELContext context, Object base, Object property) {
+            if (base == null && property instanceof String)
+                context.setPropertyResolved(true);
+            return null;
+        }
+
+        @Override
+        public Class<?> getType(ELContext context, Object base, Object property) {
+            return null;
+        }
+
+        @Override
+        public void setValue(ELContext context, Object base, Object property, Object value) {
+        }
+
+        @Override
+        public boolean isReadOnly(ELContext context, Object base, Object property) {
+            return true;
+        }
+
+        @Override
+        public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext context, Object base) {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public Class<?> getCommonPropertyType(ELContext context, Object base) {
+            return base == null ? String.class : null;
+        }
+    }
+}
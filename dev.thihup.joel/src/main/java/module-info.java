@@ -3,9 +3,14 @@ import dev.thihup.joel.impl.spi.JoelExpressionFactory;
 @SuppressWarnings("requires-automatic")
 module dev.thihup.joel {
     exports dev.thihup.joel.impl.spi;
+    exports dev.thihup.joel.impl.antlr to dev.thihup.joel.precompiler;
+    exports dev.thihup.joel.impl.cache to dev.thihup.joel.precompiler;
+    exports dev.thihup.joel.impl.node to dev.thihup.joel.precompiler;
     requires transitive jakarta.el;
 
     requires org.antlr.antlr4.runtime;
+    requires org.objectweb.asm;
     requires java.desktop;
+    requires jdk.dynalink;
     provides jakarta.el.ExpressionFactory with JoelExpressionFactory;
 }
@@ -0,0 +1,26 @@
+package dev.thihup.joel.el;
+
+import jakarta.el.CompositeELResolver;
+import jakarta.el.ELResolver;
+import jakarta.el.ImportHandler;
+
+import java.util.List;
+
+/**
+ * State of the {@code jakarta.el} classes that the API does not expose and the implementation needs to cache what it
+ * resolves through them, see {@link SharedSecrets}.
+ */
+public interface ELAccess {
+
+    /**
+     * Returns the number of imports that changed {@code importHandler}. An import handler only ever gains imports, so
+     * the classes and static members it resolves can only change when this number does.
+     */
+    int modifications(ImportHandler importHandler);
+
+    /**
+     * Returns a read-only view of the components of {@code resolver}, in the order it consults them. Components are
+     * only ever added, and the view can be read while they are.
+     */
+    List<ELResolver> components(CompositeELResolver resolver);
+}
@@ -0,0 +1,30 @@
+package dev.thihup.joel.el;
+
+/**
+ * Hands the {@link ELAccess} of the {@code jakarta.el} package to the implementation, the only module this package is
+ * exported to. The access is registered by a class of the {@code jakarta.el} package when it is initialized, which
+ * {@link #getELAccess()} triggers.
+ */
+public final class SharedSecrets {
+    private static volatile ELAccess elAccess;
+
+    private SharedSecrets() {
+    }
+
+    public static void setELAccess(ELAccess access) {
+        elAccess = access;
+    }
+
+    public static ELAccess getELAccess() {
+        var access = elAccess;
+        if (access == null) {
+            try {
+                Class.forName("jakarta.el.ELAccessImpl", true, SharedSecrets.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+            access = elAccess;
+        }
+        return access;
+    }
+}
@@ -1,12 +1,13 @@
 package jakarta.el;
 
 import java.beans.FeatureDescriptor;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Function;
 import java.util.stream.StreamSupport;
 
@@ -45,7 +46,8 @@ import java.util.stream.StreamSupport;
  */
 public class CompositeELResolver extends ELResolver {
 
-    private final List<ELResolver> resolvers = new ArrayList<>();
+    private final List<ELResolver> resolvers = new CopyOnWriteArrayList<>();
+    private final List<ELResolver> components = Collections.unmodifiableList(resolvers);
 
     public CompositeELResolver() {
     }
@@ -431,4 +433,11 @@ public class CompositeELResolver extends ELResolver {
         }
         return null;
     }
+
+    /**
+     * Returns a read-only view of the component resolvers, see {@link dev.thihup.joel.el.ELAccess#components}.
+     */
+    List<ELResolver> components() {
+        return components;
+    }
 }
@@ -0,0 +1,28 @@
+package jakarta.el;
+
+import dev.thihup.joel.el.ELAccess;
+import dev.thihup.joel.el.SharedSecrets;
+
+import java.util.List;
+
+/**
+ * Registers the {@link ELAccess} of this package when it is initialized.
+ */
+final class ELAccessImpl implements ELAccess {
+    static {
+        SharedSecrets.setELAccess(new ELAccessImpl());
+    }
+
+    private ELAccessImpl() {
+    }
+
+    @Override
+    public int modifications(ImportHandler importHandler) {
+        return importHandler.modifications();
+    }
+
+    @Override
+    public List<ELResolver> components(CompositeELResolver resolver) {
+        return resolver.components();
+    }
+}
@@ -183,11 +183,12 @@ public abstract class ELContext {
      * @since Jakarta Expression Language 3.0
      */
     public Object getLambdaArgument(String argument) {
-        return lambdaArguments.stream()
-                .map(x -> x.get(argument))
-                .filter(Objects::nonNull)
-                .findFirst()
-                .orElse(null);
+        for (var arguments : lambdaArguments) {
+            var value = arguments.get(argument);
+            if (value != null)
+                return value;
+        }
+        return null;
     }
 
     /**
@@ -222,7 +223,13 @@ public abstract class ELContext {
      * @return true if arg is a LambdaArgument, false otherwise.
      */
     public boolean isLambdaArgument(String argument) {
-        return lambdaArguments.stream().anyMatch(x -> x.containsKey(argument));
+        if (lambdaArguments.isEmpty())
+            return false;
+        for (var arguments : lambdaArguments) {
+            if (arguments.containsKey(argument))
+                return true;
+        }
+        return false;
     }
 
     /**
@@ -261,7 +268,10 @@ public abstract class ELContext {
      * @param expression The Jakarta Expression Language expression string that has been evaluated
      */
     public void notifyAfterEvaluation(String expression) {
-        listeners.forEach(e -> e.afterEvaluation(this, expression));
+        if (listeners.isEmpty())
+            return;
+        for (var listener : listeners)
+            listener.afterEvaluation(this, expression);
     }
 
     /**
@@ -270,7 +280,10 @@ public abstract class ELContext {
      * @param expression The Jakarta Expression Language expression string to be evaluated
      */
     public void notifyBeforeEvaluation(String expression) {
-        listeners.forEach(e -> e.beforeEvaluation(this, expression));
+        if (listeners.isEmpty())
+            return;
+        for (var listener : listeners)
+            listener.beforeEvaluation(this, expression);
     }
 
     /**
@@ -280,7 +293,10 @@ public abstract class ELContext {
      * @param property The property Object
      */
     public void notifyPropertyResolved(Object base, Object property) {
-        listeners.forEach(e -> e.propertyResolved(this, base, property));
+        if (listeners.isEmpty())
+            return;
+        for (var listener : listeners)
+            listener.propertyResolved(this, base, property);
     }
 
     /**
@@ -1,5 +1,6 @@
 package jakarta.el;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Collections;
 import java.util.Map;
@@ -94,7 +95,8 @@ public abstract class ExpressionFactory {
      * @return a new <code>ExpressionFactory</code> instance
      */
     public static ExpressionFactory newInstance() {
-        return ServiceLoader.load(ExpressionFactory.class).iterator().next();
+        return ServiceLoader.load(ExpressionFactory.class).findFirst()
+                .orElseThrow(() -> new ELException("No ExpressionFactory implementation found"));
     }
 
     /**
@@ -123,7 +125,21 @@ public abstract class ExpressionFactory {
      * @return a new <code>ExpressionFactory</code> instance
      */
     public static ExpressionFactory newInstance(Properties properties) {
-        return newInstance();
+        if (properties == null)
+            return newInstance();
+        var provider = ServiceLoader.load(ExpressionFactory.class).stream().findFirst()
+                .orElseThrow(() -> new ELException("No ExpressionFactory implementation found"));
+        try {
+            return provider.type().getConstructor(Properties.class).newInstance(properties);
+        } catch (NoSuchMethodException noPropertiesConstructor) {
+            return provider.get();
+        } catch (InvocationTargetException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            throw new ELException(exception.getCause());
+        } catch (ReflectiveOperationException exception) {
+            throw new ELException(exception);
+        }
     }
 
     /**
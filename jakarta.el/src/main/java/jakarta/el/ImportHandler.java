@@ -15,6 +15,7 @@ public class ImportHandler {
 
     private final Set<String> packages = new HashSet<>();
     private final Map<String, String> staticImports = new HashMap<>();
+    private volatile int modifications;
 
     public ImportHandler() {
         packages.add("java.lang");
@@ -31,7 +32,8 @@ public class ImportHandler {
         if (index == -1) {
             throw new ELException("Not fully qualified classname: %s".formatted(className));
         }
-        packages.add(className.substring(0, index));
+        if (packages.add(className.substring(0, index)))
+            modifications++;
     }
 
     /**
@@ -43,7 +45,8 @@ public class ImportHandler {
         if (packageName.indexOf('.') == -1) {
             throw new ELException("Package must have a dot: %s".formatted(packageName));
         }
-        packages.add(packageName);
+        if (packages.add(packageName))
+            modifications++;
     }
 
     /**
@@ -57,7 +60,8 @@ public class ImportHandler {
         if (index == -1) {
             throw new ELException("Not fully qualified classname: %s".formatted(name));
         }
-        staticImports.putIfAbsent(name.substring(index + 1), name.substring(0, index));
+        if (staticImports.putIfAbsent(name.substring(index + 1), name.substring(0, index)) == null)
+            modifications++;
     }
 
     /**
@@ -100,4 +104,11 @@ public class ImportHandler {
         }
     }
 
+    /**
+     * Returns the number of imports that changed this handler, see {@link dev.thihup.joel.el.ELAccess#modifications}.
+     */
+    int modifications() {
+        return modifications;
+    }
+
 }
@@ -2,5 +2,6 @@ module jakarta.el {
     requires transitive java.desktop;
     requires jdk.dynalink;
     exports jakarta.el;
+    exports dev.thihup.joel.el to dev.thihup.joel;
     uses jakarta.el.ExpressionFactory;
 }